@@ -0,0 +1,45 @@
+package be.condorcet.library.benchmarks;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Instance PostgreSQL embarquée, démarrée une fois par JVM de mesure (chaque fork JMH a la sienne)
+ * et arrêtée à la sortie de la JVM.
+ */
+final class BenchmarkDatabase {
+
+    private static EmbeddedPostgres postgres;
+
+    private BenchmarkDatabase() {
+    }
+
+    /**
+     * URL JDBC de la base « postgres » de l'instance embarquée, démarrée au premier appel.
+     */
+    static synchronized String jdbcUrl() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder()
+                        // Désactivé par défaut par embedded-postgres : le coût du COMMIT fait partie de la mesure
+                        .setServerConfig("synchronous_commit", "on")
+                        .setServerConfig("shared_buffers", "256MB")
+                        .start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Démarrage de PostgreSQL embarqué impossible", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(BenchmarkDatabase::stop, "embedded-postgres-stop"));
+        }
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+
+    private static synchronized void stop() {
+        try {
+            postgres.close();
+        } catch (IOException e) {
+            // JVM en cours d'arrêt : rien de plus à faire
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package be.condorcet.library.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Point d'entrée des bancs d'essai : mêmes options que org.openjdk.jmh.Main, mais les résultats
+ * sont écrits par défaut en JSON dans results/jmh-&lt;version&gt;-&lt;date&gt;.json, pour comparer
+ * les versions entre elles (-rf / -rff pour changer de format ou de fichier).
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp()) {
+            options.showHelp();
+            return;
+        }
+        if (options.shouldList()) {
+            new Runner(options).list();
+            return;
+        }
+
+        ChainedOptionsBuilder builder = new OptionsBuilder().parent(options);
+        if (!options.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!options.getResult().hasValue()) {
+            Path results = Path.of("results");
+            Files.createDirectories(results);
+            String version = System.getProperty("library.version", "dev");
+            String date = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss"));
+            builder.result(results.resolve("jmh-" + version + "-" + date + ".json").toString());
+        }
+        new Runner(builder.build()).run();
+    }
+}
@@ -0,0 +1,60 @@
+package be.condorcet.library.benchmarks;
+
+import be.condorcet.library.dto.BookView;
+import be.condorcet.library.dto.Cursor;
+import be.condorcet.library.dto.CursorPage;
+import be.condorcet.library.service.BookService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Lectures du catalogue : recherche par titre (index en mémoire puis chargement des livres)
+ * et livres disponibles d'une catégorie (environ 1 000 livres avec auteur et catégories, lus page par page).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CatalogueBenchmark {
+
+    /** Mots isolés, combinaisons, accents omis et préfixes : parcourus à tour de rôle. */
+    private static final String[] QUERIES = {"voyage", "étoile mer", "chateau nuit", "legende 12", "riv"};
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = LibraryContext.start();
+        bookService = context.getBean(BookService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<BookView> searchByTitle() {
+        String query = QUERIES[next++ % QUERIES.length];
+        return bookService.searchByTitle(query, 20);
+    }
+
+    @Benchmark
+    public int getAvailableBooksByCategory() {
+        int books = 0;
+        String after = null;
+        do {
+            CursorPage<BookView> page = bookService.getAvailableBooksByCategory(Dataset.CATEGORY, after, Cursor.MAX_LIMIT);
+            books += page.items().size();
+            after = page.nextCursor();
+        } while (after != null);
+        return books;
+    }
+}
@@ -0,0 +1,89 @@
+package be.condorcet.library.benchmarks;
+
+import be.condorcet.library.dto.LoanView;
+import be.condorcet.library.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Emprunt et retour d'un livre (LoanService.createLoan / returnBook), transaction comprise.
+ *
+ * Chaque emprunt mesuré est rendu hors mesure, et chaque retour mesuré porte sur un emprunt
+ * créé hors mesure : les quotas des membres et les exemplaires restent stables d'une itération à l'autre.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class CirculationBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private final AtomicLong loans = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = LibraryContext.start();
+        loanService = context.getBean(LoanService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    LoanView checkout() {
+        long n = loans.getAndIncrement();
+        return loanService.createLoan(Dataset.member(n), Dataset.freeBook(n), LocalDate.now().plusDays(21));
+    }
+
+    /**
+     * Emprunt à créer : rendu après la mesure.
+     */
+    @State(Scope.Thread)
+    public static class Checkout {
+        CirculationBenchmark benchmark;
+        Long loanId;
+
+        @Setup(Level.Invocation)
+        public void prepare(CirculationBenchmark benchmark) {
+            this.benchmark = benchmark;
+        }
+
+        @TearDown(Level.Invocation)
+        public void giveBack() {
+            benchmark.loanService.returnBook(loanId);
+        }
+    }
+
+    /**
+     * Emprunt à rendre : créé avant la mesure.
+     */
+    @State(Scope.Thread)
+    public static class OpenLoan {
+        Long loanId;
+
+        @Setup(Level.Invocation)
+        public void borrow(CirculationBenchmark benchmark) {
+            loanId = benchmark.checkout().id();
+        }
+    }
+
+    @Benchmark
+    public LoanView createLoan(Checkout checkout) {
+        LoanView loan = checkout();
+        checkout.loanId = loan.id();
+        return loan;
+    }
+
+    @Benchmark
+    public LoanView returnBook(OpenLoan open) {
+        return loanService.returnBook(open.loanId);
+    }
+}
@@ -0,0 +1,32 @@
+package be.condorcet.library.benchmarks;
+
+/**
+ * Tailles et plages d'IDs du jeu de données généré par benchmark-data.sql.
+ */
+final class Dataset {
+
+    static final int MEMBERS = 5_000;
+    static final int BOOKS = 20_000;
+    static final int AUTHORS = 500;
+
+    /** Premier livre sans emprunt en cours : les emprunts créés pendant la mesure portent sur la suite. */
+    static final int FIRST_FREE_BOOK = 10_001;
+
+    /** Catégorie d'environ 1 000 livres. */
+    static final String CATEGORY = "Genre 07";
+
+    private Dataset() {
+    }
+
+    /**
+     * Membre et livre du n-ième emprunt créé pendant la mesure : chaque membre a déjà un emprunt
+     * en cours, jamais sur ces livres, et garde de la marge sur son quota.
+     */
+    static long member(long n) {
+        return 1 + n % MEMBERS;
+    }
+
+    static long freeBook(long n) {
+        return FIRST_FREE_BOOK + n % (BOOKS - FIRST_FREE_BOOK + 1);
+    }
+}
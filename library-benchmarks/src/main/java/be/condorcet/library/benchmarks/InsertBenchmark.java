@@ -0,0 +1,108 @@
+package be.condorcet.library.benchmarks;
+
+import be.condorcet.library.model.Author;
+import be.condorcet.library.model.Book;
+import be.condorcet.library.model.Loan;
+import be.condorcet.library.model.Member;
+import be.condorcet.library.model.enums.LoanStatus;
+import be.condorcet.library.repository.AuthorRepository;
+import be.condorcet.library.repository.BookRepository;
+import be.condorcet.library.repository.LoanRepository;
+import be.condorcet.library.repository.MemberRepository;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit d'insertion de livres et d'emprunts par lots de 500 lignes dans une transaction.
+ *
+ * IDs par séquence (allocationSize 50) dans les deux cas ; batchSize=1 reproduit un INSERT par ligne,
+ * comme avec les anciens IDs IDENTITY, batchSize=50 est la configuration de l'application.
+ * Les lignes insérées sont supprimées après chaque itération.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class InsertBenchmark {
+
+    static final int ROWS = 500;
+
+    @Param({"1", "50"})
+    public String batchSize;
+
+    private ConfigurableApplicationContext context;
+    private TransactionTemplate transaction;
+    private JdbcTemplate jdbcTemplate;
+    private AuthorRepository authorRepository;
+    private MemberRepository memberRepository;
+    private BookRepository bookRepository;
+    private LoanRepository loanRepository;
+    private long inserted;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = LibraryContext.start("spring.jpa.properties.hibernate.jdbc.batch_size=" + batchSize);
+        transaction = context.getBean(TransactionTemplate.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        authorRepository = context.getBean(AuthorRepository.class);
+        memberRepository = context.getBean(MemberRepository.class);
+        bookRepository = context.getBean(BookRepository.class);
+        loanRepository = context.getBean(LoanRepository.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteInserted() {
+        // Les séquences démarrent à 100 000 (benchmark-data.sql) : tout ce qui est au-delà a été inséré ici
+        jdbcTemplate.update("DELETE FROM loans WHERE id >= 100000");
+        jdbcTemplate.update("DELETE FROM books WHERE id >= 100000");
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Book> insertBooks() {
+        return transaction.execute(status -> {
+            List<Book> books = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                long n = inserted++;
+                Author author = authorRepository.getReferenceById(1 + n % Dataset.AUTHORS);
+                Book book = new Book("bench-" + n, "Livre inséré " + n, 2000, 2, author);
+                book.setAvailableCopies(2);
+                books.add(book);
+            }
+            return bookRepository.saveAll(books);
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public List<Loan> insertLoans() {
+        LocalDate today = LocalDate.now();
+        return transaction.execute(status -> {
+            List<Loan> loans = new ArrayList<>(ROWS);
+            for (int i = 0; i < ROWS; i++) {
+                long n = inserted++;
+                Member member = memberRepository.getReferenceById(Dataset.member(n));
+                Book book = bookRepository.getReferenceById(1 + n % Dataset.BOOKS);
+                Loan loan = new Loan(today.minusDays(21), today, member, book);
+                loan.setReturnDate(today);
+                loan.setStatus(LoanStatus.RETURNED);
+                loans.add(loan);
+            }
+            return loanRepository.saveAll(loans);
+        });
+    }
+}
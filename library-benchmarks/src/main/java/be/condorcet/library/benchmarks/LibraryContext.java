@@ -0,0 +1,40 @@
+package be.condorcet.library.benchmarks;
+
+import be.condorcet.library.LibraryManagementApiApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Démarre l'application (sans serveur HTTP) sur la base embarquée, chargée avec le jeu de données
+ * généré par benchmark-data.sql. Les services sont appelés directement, comme par les contrôleurs.
+ */
+final class LibraryContext {
+
+    private LibraryContext() {
+    }
+
+    /**
+     * @param properties propriétés supplémentaires (clé=valeur), par exemple le mode de calcul des retards
+     */
+    static ConfigurableApplicationContext start(String... properties) {
+        List<String> all = new ArrayList<>(List.of(
+                "spring.datasource.url=" + BenchmarkDatabase.jdbcUrl(),
+                "spring.sql.init.data-locations=classpath:benchmark-data.sql",
+                "spring.main.banner-mode=off",
+                "logging.level.root=WARN",
+                // Pas de journal des requêtes lentes ni de tâches planifiées pendant la mesure
+                "library.slow-query.threshold=1h",
+                "library.loans.overdue-sweep.cron=-",
+                "library.members.loan-counters.reconcile-cron=-",
+                "library.members.loan-counters.reconcile-on-startup=false"));
+        all.addAll(List.of(properties));
+        // Passées en arguments de ligne de commande : elles priment sur application.yml
+        return new SpringApplicationBuilder(LibraryManagementApiApplication.class)
+                .web(WebApplicationType.NONE)
+                .run(all.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+}
@@ -0,0 +1,91 @@
+package be.condorcet.library.benchmarks;
+
+import be.condorcet.library.dto.Cursor;
+import be.condorcet.library.dto.CursorPage;
+import be.condorcet.library.dto.LoanView;
+import be.condorcet.library.dto.OverdueSweepResult;
+import be.condorcet.library.service.LoanService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Retards stockés (STORED, tâche de nuit) contre retards calculés à la lecture (DERIVED) :
+ * lecture des emprunts en retard (environ 2 500, page par page) et coût d'un passage de la tâche.
+ *
+ * Avant chaque passage mesuré, les retards déjà marqués repassent à ACTIVE (hors mesure) :
+ * en STORED, chaque passage réécrit donc tous les emprunts échus, comme une nuit de production.
+ * Le compteur updatedLoans donne le volume d'écriture de l'itération (toujours 0 en DERIVED).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class OverdueBenchmark {
+
+    @Param({"STORED", "DERIVED"})
+    public String mode;
+
+    private ConfigurableApplicationContext context;
+    private LoanService loanService;
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = LibraryContext.start("library.loans.overdue-mode=" + mode);
+        loanService = context.getBean(LoanService.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        // État d'une journée ordinaire : la tâche de la nuit est passée
+        loanService.updateOverdueLoans();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    /**
+     * Volume d'écriture de la tâche, publié comme métrique secondaire.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Writes {
+        public long updatedLoans;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            updatedLoans = 0;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PendingSweep {
+        @Setup(Level.Invocation)
+        public void unmark(OverdueBenchmark benchmark) {
+            benchmark.jdbcTemplate.update("UPDATE loans SET status = 'ACTIVE' WHERE status = 'OVERDUE'");
+        }
+    }
+
+    @Benchmark
+    public int getOverdueLoans() {
+        int loans = 0;
+        String after = null;
+        do {
+            CursorPage<LoanView> page = loanService.getOverdueLoans(after, Cursor.MAX_LIMIT);
+            loans += page.items().size();
+            after = page.nextCursor();
+        } while (after != null);
+        return loans;
+    }
+
+    @Benchmark
+    public OverdueSweepResult sweep(PendingSweep pending, Writes writes) {
+        OverdueSweepResult result = loanService.updateOverdueLoans();
+        writes.updatedLoans += result.updatedLoans();
+        return result;
+    }
+}
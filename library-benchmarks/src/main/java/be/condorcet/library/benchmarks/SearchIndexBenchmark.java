@@ -0,0 +1,80 @@
+package be.condorcet.library.benchmarks;
+
+import be.condorcet.library.dataset.DatasetGenerator;
+import be.condorcet.library.service.BookSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche par titre dans l'index en mémoire, sans le cache des requêtes récentes ni la lecture des livres :
+ * catalogue de benchmark-data.sql (20 000 titres) et catalogue d'un million de titres, généré avant la mesure
+ * par le générateur du profil dataset (mêmes mots de titres, tirés selon une loi de Zipf).
+ *
+ * Les requêtes sont tirées des titres du catalogue : un mot courant, deux mots, un mot et un début de mot,
+ * un début de mot seul ; du plus au moins sélectif selon les mots tirés.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class SearchIndexBenchmark {
+
+    private static final int QUERIES = 2_000;
+
+    @Param({"20000", "1000000"})
+    public int books;
+
+    private ConfigurableApplicationContext context;
+    private BookSearchIndex bookSearchIndex;
+    private List<String> queries;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void start() throws SQLException {
+        context = LibraryContext.start("library.books.search.query-cache-size=0");
+        bookSearchIndex = context.getBean(BookSearchIndex.class);
+        if (books != Dataset.BOOKS) {
+            // Remplace le jeu de benchmark-data.sql : catalogue seul, sans emprunts
+            new DatasetGenerator(context.getBean(DataSource.class), context,
+                    50_000, 40, 1_000, books, 0, 0, 1095, 0.8, 0.9, 42).generate();
+            bookSearchIndex.rebuild();
+        }
+        List<String> titles = context.getBean(JdbcTemplate.class).queryForList(
+                "SELECT title FROM books WHERE id % ? = 0 ORDER BY id", String.class, books / QUERIES);
+        queries = new ArrayList<>(titles.size());
+        for (int i = 0; i < titles.size(); i++) {
+            queries.add(query(titles.get(i), i));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<Long> search() {
+        return bookSearchIndex.search(queries.get(next++ % queries.size()), 20);
+    }
+
+    private static String query(String title, int i) {
+        String[] words = title.split("[ ,]+");
+        String first = words[0];
+        String last = words[words.length > 2 ? 2 : words.length - 1];
+        return switch (i % 4) {
+            case 0 -> first;
+            case 1 -> first + " " + last;
+            case 2 -> first + " " + last.substring(0, Math.min(3, last.length()));
+            default -> first.substring(0, Math.min(3, first.length()));
+        };
+    }
+}
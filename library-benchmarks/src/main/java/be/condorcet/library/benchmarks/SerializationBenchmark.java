@@ -0,0 +1,85 @@
+package be.condorcet.library.benchmarks;
+
+import be.condorcet.library.dto.BookView;
+import be.condorcet.library.dto.LoanView;
+import be.condorcet.library.model.Book;
+import be.condorcet.library.model.Loan;
+import be.condorcet.library.repository.BookRepository;
+import be.condorcet.library.repository.LoanRepository;
+import org.hibernate.Hibernate;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Limit;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation JSON (mapper de l'application) d'une page de livres et d'emprunts :
+ * graphes d'entités Hibernate (proxys compris) contre les DTO plats renvoyés par les services.
+ * Les données sont chargées et initialisées une fois : seule l'écriture JSON est mesurée.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 3)
+@Measurement(iterations = 5, time = 3)
+@Fork(1)
+public class SerializationBenchmark {
+
+    @Param({"100"})
+    public int pageSize;
+
+    private ConfigurableApplicationContext context;
+    private JsonMapper jsonMapper;
+    private List<Book> books;
+    private List<BookView> bookViews;
+    private List<Loan> loans;
+    private List<LoanView> loanViews;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = LibraryContext.start();
+        jsonMapper = context.getBean(JsonMapper.class);
+        BookRepository bookRepository = context.getBean(BookRepository.class);
+        LoanRepository loanRepository = context.getBean(LoanRepository.class);
+        TransactionTemplate transaction = context.getBean(TransactionTemplate.class);
+
+        transaction.executeWithoutResult(status -> {
+            books = bookRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(pageSize));
+            books.forEach(book -> Hibernate.initialize(book.getCategories()));
+            bookViews = books.stream().map(BookView::of).toList();
+
+            loans = loanRepository.findByIdGreaterThanOrderByIdAsc(0L, Limit.of(pageSize));
+            loans.forEach(loan -> Hibernate.initialize(loan.getBook().getAuthor()));
+            loanViews = loans.stream().map(LoanView::of).toList();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    @Benchmark
+    public byte[] bookEntities() {
+        return jsonMapper.writeValueAsBytes(books);
+    }
+
+    @Benchmark
+    public byte[] bookViews() {
+        return jsonMapper.writeValueAsBytes(bookViews);
+    }
+
+    @Benchmark
+    public byte[] loanEntities() {
+        return jsonMapper.writeValueAsBytes(loans);
+    }
+
+    @Benchmark
+    public byte[] loanViews() {
+        return jsonMapper.writeValueAsBytes(loanViews);
+    }
+}
@@ -0,0 +1,67 @@
+-- Jeu de données des bancs d'essai, régénéré à chaque démarrage du contexte (graine fixe, reproductible) :
+-- 500 auteurs, 30 catégories, 20 000 livres (1 ou 2 catégories), 5 000 membres,
+-- 50 000 emprunts rendus et un emprunt en cours par membre (à peu près la moitié en retard).
+-- Les emprunts en cours portent sur les livres 1 à 10 000 : les livres suivants restent libres
+-- pour les emprunts créés pendant la mesure (voir Dataset).
+
+TRUNCATE book_categories, loans, books, categories, authors, members;
+SELECT setseed(0.42);
+
+INSERT INTO authors (id, first_name, last_name, nationality, birth_year)
+SELECT g,
+       (ARRAY['Jules','Victor','Émile','Marguerite','George','Albert','Colette','Honoré','Gustave','Simone'])[1 + g % 10],
+       (ARRAY['Verne','Hugo','Zola','Duras','Sand','Camus','Gabrielle','Balzac','Flaubert','Beauvoir'])[1 + (g / 10) % 10] || ' ' || g,
+       (ARRAY['France','Belgique','Suisse','Canada'])[1 + g % 4],
+       1800 + g % 200
+FROM generate_series(1, 500) g;
+
+INSERT INTO categories (id, name, description)
+SELECT g, 'Genre ' || lpad(g::text, 2, '0'), 'Catégorie générée n° ' || g
+FROM generate_series(1, 30) g;
+
+INSERT INTO members (id, email, first_name, last_name, membership_date, active, active_loan_count, total_loan_count)
+SELECT g, 'membre' || g || '@example.com', 'Prénom' || g, 'Nom' || g, DATE '2020-01-01' + g % 1500, true, 0, 0
+FROM generate_series(1, 5000) g;
+
+-- Titres : deux mots courants (accentués ou non) suivis du numéro du livre
+INSERT INTO books (id, isbn, title, publication_year, available_copies, total_copies, author_id)
+SELECT g,
+       '979-' || lpad(g::text, 9, '0'),
+       w[1 + g % 30] || ' ' || lower(w[1 + (g / 30) % 30]) || ' ' || g,
+       1850 + g % 170, 3, 3, 1 + (random() * 499)::int
+FROM generate_series(1, 20000) g,
+     (SELECT ARRAY['Voyage','Nuit','Étoile','Mer','Forêt','Château','Été','Hiver','Cœur','Rêve',
+                   'Île','Mémoire','Théâtre','Légende','Jardin','Rivière','Histoire','Secret','Ombre','Lumière',
+                   'Chemin','Roi','Frère','Prière','Fenêtre','Épée','Ville','Guerre','Silence','Saison'] AS w) words;
+
+INSERT INTO book_categories (book_id, category_id)
+SELECT g, 1 + g % 30 FROM generate_series(1, 20000) g
+UNION
+SELECT g, 1 + (g * 7 + 3) % 30 FROM generate_series(1, 20000) g WHERE g % 3 = 0;
+
+-- Historique : emprunts rendus
+INSERT INTO loans (id, loan_date, due_date, return_date, status, member_id, book_id)
+SELECT g, d, d + 21, d + g % 20, 'RETURNED', 1 + g % 5000, 1 + (g * 13) % 20000
+FROM generate_series(1, 50000) g, LATERAL (SELECT DATE '2024-01-01' + g % 600 AS d) loan_date;
+
+-- Un emprunt en cours par membre, échu depuis 1 à 18 jours pour environ la moitié
+INSERT INTO loans (id, loan_date, due_date, return_date, status, member_id, book_id)
+SELECT 50000 + m, CURRENT_DATE - m % 40, CURRENT_DATE - m % 40 + 21, NULL, 'ACTIVE', m, 1 + (m - 1) % 10000
+FROM generate_series(1, 5000) m;
+
+UPDATE books b SET available_copies = b.total_copies - l.active
+FROM (SELECT book_id, count(*) AS active FROM loans WHERE status = 'ACTIVE' GROUP BY book_id) l
+WHERE l.book_id = b.id;
+
+UPDATE members m SET active_loan_count = l.active, total_loan_count = l.total
+FROM (SELECT member_id, count(*) FILTER (WHERE status = 'ACTIVE') AS active, count(*) AS total
+      FROM loans GROUP BY member_id) l
+WHERE l.member_id = m.id;
+
+ANALYZE;
+
+ALTER SEQUENCE authors_seq RESTART WITH 100000;
+ALTER SEQUENCE categories_seq RESTART WITH 100000;
+ALTER SEQUENCE members_seq RESTART WITH 100000;
+ALTER SEQUENCE books_seq RESTART WITH 100000;
+ALTER SEQUENCE loans_seq RESTART WITH 100000;
@@ -0,0 +1,73 @@
+package be.condorcet.library.common;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Tirage d'un rang entre 1 et n selon une loi de Zipf d'exposant s (rang k tiré avec une probabilité
+ * proportionnelle à 1 / k^s) : quelques membres et livres concentrent l'essentiel de l'activité.
+ * s = 0 donne un tirage uniforme.
+ *
+ * Méthode de rejet-inversion de Hörmann et Derflinger : mémoire constante, utilisable pour des millions d'IDs.
+ * Partagé par le générateur de jeu de données de l'API et le générateur de charge : les IDs populaires
+ * sont les mêmes des deux côtés.
+ */
+public final class Zipf {
+
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double threshold;
+
+    public Zipf(int n, double exponent) {
+        if (n < 1 || exponent < 0) {
+            throw new IllegalArgumentException("Zipf : n >= 1 et exposant >= 0 attendus (n=" + n + ", s=" + exponent + ")");
+        }
+        this.n = n;
+        this.exponent = exponent;
+        this.hIntegralX1 = hIntegral(1.5) - 1;
+        this.hIntegralN = hIntegral(n + 0.5);
+        this.threshold = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    /**
+     * @return un rang entre 1 (le plus fréquent) et n
+     */
+    public int sample(RandomGenerator random) {
+        if (exponent == 0) {
+            return 1 + random.nextInt(n);
+        }
+        while (true) {
+            double u = hIntegralN + random.nextDouble() * (hIntegralX1 - hIntegralN);
+            double x = hIntegralInverse(u);
+            int k = (int) Math.max(1, Math.min(n, Math.round(x)));
+            if (k - x <= threshold || u >= hIntegral(k + 0.5) - h(k)) {
+                return k;
+            }
+        }
+    }
+
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegral(double x) {
+        double logX = Math.log(x);
+        return expm1Ratio((1 - exponent) * logX) * logX;
+    }
+
+    private double hIntegralInverse(double x) {
+        double t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(log1pRatio(t) * x);
+    }
+
+    /** log(1 + x) / x, prolongé par continuité en 0. */
+    private static double log1pRatio(double x) {
+        return Math.abs(x) > 1e-8 ? Math.log1p(x) / x : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    /** (exp(x) - 1) / x, prolongé par continuité en 0. */
+    private static double expm1Ratio(double x) {
+        return Math.abs(x) > 1e-8 ? Math.expm1(x) / x : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+}
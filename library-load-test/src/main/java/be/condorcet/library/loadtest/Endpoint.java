@@ -0,0 +1,41 @@
+package be.condorcet.library.loadtest;
+
+/**
+ * Opérations du scénario de prêt, chacune avec son poids par défaut dans le mélange.
+ */
+enum Endpoint {
+
+    /** GET /api/books/available : une page du catalogue disponible, à une position aléatoire. */
+    BROWSE("browse", "GET /api/books/available", 40),
+
+    /** GET /api/books/search/title : recherche d'un mot du titre ou de l'auteur. */
+    SEARCH("search", "GET /api/books/search/title", 25),
+
+    /** GET /api/loans/quota/member/{id} : quota restant d'un membre. */
+    QUOTA("quota", "GET /api/loans/quota/member/{id}", 15),
+
+    /** POST /api/loans : emprunt (ADMIN). */
+    CHECKOUT("checkout", "POST /api/loans", 10),
+
+    /** POST /api/loans/{id}/return : retour d'un emprunt créé pendant le test (ADMIN). */
+    RETURN("return", "POST /api/loans/{id}/return", 10);
+
+    final String key;
+    final String route;
+    final int defaultWeight;
+
+    Endpoint(String key, String route, int defaultWeight) {
+        this.key = key;
+        this.route = route;
+        this.defaultWeight = defaultWeight;
+    }
+
+    static Endpoint of(String key) {
+        for (Endpoint endpoint : values()) {
+            if (endpoint.key.equals(key)) {
+                return endpoint;
+            }
+        }
+        throw new IllegalArgumentException("Opération inconnue : '" + key + "' (browse, search, quota, checkout, return)");
+    }
+}
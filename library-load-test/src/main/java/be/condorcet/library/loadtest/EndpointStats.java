@@ -0,0 +1,118 @@
+package be.condorcet.library.loadtest;
+
+import java.net.http.HttpResponse;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Mesures d'une opération pendant un palier : latences (toutes conservées, percentiles exacts),
+ * refus métier, erreurs et temps serveur lus dans l'en-tête Server-Timing de l'application.
+ */
+final class EndpointStats {
+
+    private static final Pattern DB = Pattern.compile("db;dur=([0-9.]+);desc=\"(\\d+) sql\"");
+    private static final Pattern TOTAL = Pattern.compile("total;dur=([0-9.]+)");
+
+    private long[] latencies = new long[4096];
+    private int count;
+    private long rejected;
+    private long errors;
+    private long timedResponses;
+    private double serverDbMillis;
+    private double serverTotalMillis;
+    private long sqlStatements;
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * Enregistre une réponse. 4xx : refus (quota, plus d'exemplaire...), 5xx : erreur.
+     * @param latencyNanos depuis l'instant prévu d'envoi (l'attente côté client est comptée)
+     */
+    void record(long latencyNanos, HttpResponse<?> response) {
+        String serverTiming = response.headers().firstValue("Server-Timing").orElse(null);
+        synchronized (this) {
+            add(latencyNanos);
+            int status = response.statusCode();
+            if (status >= 500) {
+                errors++;
+            } else if (status >= 400) {
+                rejected++;
+            }
+            if (serverTiming != null) {
+                Matcher db = DB.matcher(serverTiming);
+                Matcher total = TOTAL.matcher(serverTiming);
+                if (db.find() && total.find()) {
+                    timedResponses++;
+                    serverDbMillis += Double.parseDouble(db.group(1));
+                    sqlStatements += Long.parseLong(db.group(2));
+                    serverTotalMillis += Double.parseDouble(total.group(1));
+                }
+            }
+        }
+    }
+
+    /**
+     * Enregistre un échec sans réponse (délai dépassé, connexion refusée ou coupée).
+     */
+    synchronized void recordFailure(long latencyNanos) {
+        add(latencyNanos);
+        errors++;
+    }
+
+    /**
+     * Requête abandonnée avant l'envoi : trop de requêtes déjà en attente de réponse.
+     */
+    void drop() {
+        dropped.increment();
+    }
+
+    private void add(long latencyNanos) {
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = latencyNanos;
+    }
+
+    synchronized Summary summarize(Endpoint endpoint, double seconds) {
+        long[] sorted = Arrays.copyOf(latencies, count);
+        Arrays.sort(sorted);
+        return new Summary(endpoint.key, count, count / seconds,
+                percentile(sorted, 0.50), percentile(sorted, 0.99), percentile(sorted, 0.999),
+                count == 0 ? 0 : sorted[count - 1] / 1e6,
+                rejected, errors, dropped.sum(),
+                timedResponses == 0 ? 0 : serverDbMillis / timedResponses,
+                timedResponses == 0 ? 0 : serverTotalMillis / timedResponses,
+                timedResponses == 0 ? 0 : (double) sqlStatements / timedResponses);
+    }
+
+    private static double percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(quantile * sorted.length) - 1;
+        return sorted[Math.max(0, index)] / 1e6;
+    }
+
+    /**
+     * Bilan d'une opération sur un palier (durées en millisecondes).
+     *
+     * @param requests les requêtes envoyées (réponses et échecs)
+     * @param throughput les requêtes par seconde
+     * @param rejected les réponses 4xx
+     * @param errors les réponses 5xx, délais dépassés et erreurs de connexion
+     * @param dropped les requêtes abandonnées par le générateur (trop de requêtes en attente)
+     * @param serverDbMs le temps JDBC moyen mesuré par l'application (Server-Timing)
+     * @param serverTotalMs le temps de traitement moyen mesuré par l'application
+     * @param sqlPerRequest le nombre moyen de requêtes SQL
+     */
+    record Summary(String endpoint, long requests, double throughput, double p50Ms, double p99Ms, double p999Ms,
+                   double maxMs, long rejected, long errors, long dropped, double serverDbMs, double serverTotalMs,
+                   double sqlPerRequest) {
+
+        double errorRate() {
+            long attempted = requests + dropped;
+            return attempted == 0 ? 0 : (double) (errors + dropped) / attempted;
+        }
+    }
+}
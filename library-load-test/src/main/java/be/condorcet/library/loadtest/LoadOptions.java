@@ -0,0 +1,117 @@
+package be.condorcet.library.loadtest;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Options du générateur de charge, lues sur la ligne de commande sous la forme --nom=valeur.
+ *
+ * @param baseUrl l'adresse de l'application (--base-url, http://localhost:8081)
+ * @param user l'utilisateur ADMIN des emprunts et retours (--user, admin)
+ * @param password son mot de passe (--password, admin)
+ * @param rates les paliers de débit visés, en requêtes par seconde (--rates, 20,50,100,200)
+ * @param stepDuration la durée de chaque palier (--duration, 60s)
+ * @param warmup la chauffe avant le premier palier, non mesurée (--warmup, 15s)
+ * @param mix le poids de chaque opération (--mix, browse:40,search:25,quota:15,checkout:10,return:10)
+ * @param members le nombre de membres, IDs 1 à n (--members, 3)
+ * @param books le nombre de livres, IDs 1 à n (--books, 5)
+ * @param memberSkew l'exposant de Zipf des membres, 0 pour uniforme (--member-skew, 1.0)
+ * @param bookSkew l'exposant de Zipf des livres (--book-skew, 1.0)
+ * @param searchTerms les mots recherchés (--search-terms)
+ * @param timeout le délai maximal d'une requête (--timeout, 10s)
+ * @param maxInFlight les requêtes simultanées au-delà desquelles le générateur abandonne les suivantes (--max-in-flight, 2000)
+ * @param stopErrorRate le taux d'erreurs (5xx, délais, connexions) qui arrête la montée en charge (--stop-error-rate, 0.05)
+ * @param seed la graine du tirage (--seed, 42)
+ * @param out le fichier JSON des résultats, facultatif (--out)
+ */
+record LoadOptions(URI baseUrl, String user, String password, List<Integer> rates, Duration stepDuration,
+                   Duration warmup, Map<Endpoint, Integer> mix, int members, int books, double memberSkew,
+                   double bookSkew, List<String> searchTerms, Duration timeout, int maxInFlight,
+                   double stopErrorRate, long seed, Path out) {
+
+    /** Mots présents dans les titres et noms d'auteurs des jeux de données (data.sql et données générées). */
+    static final String DEFAULT_SEARCH_TERMS =
+            "voyage,nuit,etoile,mer,foret,chateau,ete,hiver,coeur,reve,ile,memoire,legende,jardin,riviere,"
+            + "histoire,secret,ombre,lumiere,chemin,verne,orwell,shelley,monde,frankenstein";
+
+    static LoadOptions parse(String... args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Option attendue sous la forme --nom=valeur : " + arg);
+            }
+            int equals = arg.indexOf('=');
+            values.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+
+        Map<Endpoint, Integer> mix = new EnumMap<>(Endpoint.class);
+        if (values.containsKey("mix")) {
+            for (String entry : values.remove("mix").split(",")) {
+                String[] parts = entry.split(":");
+                mix.put(Endpoint.of(parts[0].trim()), Integer.parseInt(parts[1].trim()));
+            }
+        } else {
+            for (Endpoint endpoint : Endpoint.values()) {
+                mix.put(endpoint, endpoint.defaultWeight);
+            }
+        }
+
+        LoadOptions options = new LoadOptions(
+                URI.create(stripTrailingSlash(values.getOrDefault("base-url", "http://localhost:8081"))),
+                values.getOrDefault("user", "admin"),
+                values.getOrDefault("password", "admin"),
+                Arrays.stream(values.getOrDefault("rates", "20,50,100,200").split(","))
+                        .map(String::trim).map(Integer::parseInt).toList(),
+                duration(values.getOrDefault("duration", "60s")),
+                duration(values.getOrDefault("warmup", "15s")),
+                mix,
+                Integer.parseInt(values.getOrDefault("members", "3")),
+                Integer.parseInt(values.getOrDefault("books", "5")),
+                Double.parseDouble(values.getOrDefault("member-skew", "1.0")),
+                Double.parseDouble(values.getOrDefault("book-skew", "1.0")),
+                List.of(values.getOrDefault("search-terms", DEFAULT_SEARCH_TERMS).split(",")),
+                duration(values.getOrDefault("timeout", "10s")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "2000")),
+                Double.parseDouble(values.getOrDefault("stop-error-rate", "0.05")),
+                Long.parseLong(values.getOrDefault("seed", "42")),
+                values.containsKey("out") ? Path.of(values.get("out")) : null);
+
+        values.keySet().removeAll(List.of("base-url", "user", "password", "rates", "duration", "warmup", "members",
+                "books", "member-skew", "book-skew", "search-terms", "timeout", "max-in-flight", "stop-error-rate",
+                "seed", "out"));
+        if (!values.isEmpty()) {
+            throw new IllegalArgumentException("Options inconnues : " + values.keySet());
+        }
+        if (mix.values().stream().mapToInt(Integer::intValue).sum() <= 0) {
+            throw new IllegalArgumentException("--mix : au moins un poids positif attendu");
+        }
+        return options;
+    }
+
+    /**
+     * Durée au format 500ms, 30s, 2m ou 1h.
+     */
+    static Duration duration(String text) {
+        String value = text.trim();
+        if (value.endsWith("ms")) {
+            return Duration.ofMillis(Long.parseLong(value.substring(0, value.length() - 2)));
+        }
+        long amount = Long.parseLong(value.substring(0, value.length() - 1));
+        return switch (value.charAt(value.length() - 1)) {
+            case 's' -> Duration.ofSeconds(amount);
+            case 'm' -> Duration.ofMinutes(amount);
+            case 'h' -> Duration.ofHours(amount);
+            default -> throw new IllegalArgumentException("Durée invalide : " + text + " (500ms, 30s, 2m, 1h)");
+        };
+    }
+
+    private static String stripTrailingSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
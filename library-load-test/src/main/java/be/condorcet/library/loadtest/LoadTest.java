@@ -0,0 +1,331 @@
+package be.condorcet.library.loadtest;
+
+import be.condorcet.library.common.Zipf;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Générateur de charge HTTP pour les scénarios de prêt, à lancer contre une application déjà démarrée.
+ *
+ * Charge ouverte : les requêtes partent selon un processus de Poisson au débit visé, chacune dans
+ * son propre thread virtuel, que l'application suive ou non. La latence est comptée depuis l'instant
+ * prévu d'envoi : un serveur saturé ne ralentit pas le générateur, il allonge les latences mesurées.
+ * Le débit monte par paliers (--rates) et s'arrête au premier palier dont le taux d'erreurs dépasse
+ * --stop-error-rate : c'est le point où le service décroche.
+ *
+ * Exemple : mvn exec:java -Dload.args="--members=50000 --books=200000 --rates=50,100,200,400 --duration=2m"
+ */
+public final class LoadTest {
+
+    private static final Pattern LOAN_ID = Pattern.compile("\"id\"\\s*:\\s*(\\d+)");
+
+    private final LoadOptions options;
+    private final HttpClient client;
+    private final ExecutorService clients = Executors.newVirtualThreadPerTaskExecutor();
+    private final String authorization;
+    private final Zipf members;
+    private final Zipf books;
+    private final Endpoint[] endpoints;
+    private final int[] cumulativeWeights;
+    private final Semaphore inFlight;
+    private final ConcurrentLinkedQueue<Long> openLoans = new ConcurrentLinkedQueue<>();
+    private final SplittableRandom random;
+
+    LoadTest(LoadOptions options) {
+        this.options = options;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(options.timeout())
+                .executor(clients)
+                .build();
+        this.authorization = "Basic " + Base64.getEncoder().encodeToString(
+                (options.user() + ":" + options.password()).getBytes(StandardCharsets.UTF_8));
+        this.members = new Zipf(options.members(), options.memberSkew());
+        this.books = new Zipf(options.books(), options.bookSkew());
+        this.endpoints = options.mix().keySet().toArray(Endpoint[]::new);
+        this.cumulativeWeights = new int[endpoints.length];
+        int total = 0;
+        for (int i = 0; i < endpoints.length; i++) {
+            total += options.mix().get(endpoints[i]);
+            cumulativeWeights[i] = total;
+        }
+        this.inFlight = new Semaphore(options.maxInFlight());
+        this.random = new SplittableRandom(options.seed());
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+        new LoadTest(options).run();
+    }
+
+    void run() throws IOException, InterruptedException {
+        System.out.printf(Locale.ROOT, "Cible %s : %d membres (Zipf %.2f), %d livres (Zipf %.2f), mélange %s%n",
+                options.baseUrl(), options.members(), options.memberSkew(), options.books(), options.bookSkew(),
+                options.mix().entrySet().stream().map(e -> e.getKey().key + ":" + e.getValue())
+                        .collect(Collectors.joining(",")));
+        if (!options.warmup().isZero()) {
+            System.out.printf(Locale.ROOT, "Chauffe : %d req/s pendant %d s%n",
+                    options.rates().getFirst(), options.warmup().toSeconds());
+            runStep(options.rates().getFirst(), options.warmup());
+        }
+
+        List<StepResult> steps = new ArrayList<>();
+        for (int rate : options.rates()) {
+            StepResult step = runStep(rate, options.stepDuration());
+            steps.add(step);
+            print(step);
+            if (step.errorRate() > options.stopErrorRate()) {
+                System.out.printf(Locale.ROOT, "%nDécrochage à %d req/s : %.1f %% d'erreurs (seuil %.1f %%), paliers suivants annulés%n",
+                        rate, step.errorRate() * 100, options.stopErrorRate() * 100);
+                break;
+            }
+        }
+
+        returnOpenLoans();
+        if (options.out() != null) {
+            Files.createDirectories(options.out().toAbsolutePath().getParent());
+            Files.writeString(options.out(), toJson(steps));
+            System.out.println("Résultats écrits dans " + options.out());
+        }
+        clients.shutdown();
+    }
+
+    /**
+     * Envoie des requêtes au débit visé pendant la durée donnée, puis attend les réponses en cours.
+     */
+    private StepResult runStep(int rate, Duration duration) throws InterruptedException {
+        Map<Endpoint, EndpointStats> stats = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : endpoints) {
+            stats.put(endpoint, new EndpointStats());
+        }
+        stats.putIfAbsent(Endpoint.CHECKOUT, new EndpointStats());
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        double next = start;
+        while (true) {
+            // Intervalles exponentiels : arrivées de Poisson, comme des usagers indépendants
+            next += -Math.log(1 - random.nextDouble()) * 1e9 / rate;
+            if (next >= end) {
+                break;
+            }
+            long intended = (long) next;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            Call call = nextCall();
+            EndpointStats endpointStats = stats.get(call.endpoint());
+            if (!inFlight.tryAcquire()) {
+                endpointStats.drop();
+                continue;
+            }
+            clients.execute(() -> {
+                try {
+                    send(call, intended, endpointStats);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+
+        long drainSeconds = options.timeout().toSeconds() + 5;
+        if (inFlight.tryAcquire(options.maxInFlight(), drainSeconds, TimeUnit.SECONDS)) {
+            inFlight.release(options.maxInFlight());
+        }
+
+        double seconds = duration.toNanos() / 1e9;
+        List<EndpointStats.Summary> summaries = new ArrayList<>();
+        stats.forEach((endpoint, endpointStats) -> summaries.add(endpointStats.summarize(endpoint, seconds)));
+        return new StepResult(rate, seconds, summaries);
+    }
+
+    /**
+     * Tire l'opération suivante et ses paramètres (sur le thread d'ordonnancement : tirage reproductible).
+     */
+    private Call nextCall() {
+        int draw = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        int index = 0;
+        while (draw >= cumulativeWeights[index]) {
+            index++;
+        }
+        Endpoint endpoint = endpoints[index];
+        if (endpoint == Endpoint.RETURN) {
+            Long loanId = openLoans.poll();
+            if (loanId != null) {
+                return new Call(endpoint, post("/api/loans/" + loanId + "/return"));
+            }
+            // Aucun emprunt à rendre pour l'instant : on emprunte à la place
+            endpoint = Endpoint.CHECKOUT;
+        }
+        return switch (endpoint) {
+            case BROWSE -> {
+                // Une fois sur deux la première page, sinon une page à une position aléatoire du catalogue
+                String after = random.nextBoolean() ? "" : "&after=" + Base64.getUrlEncoder().withoutPadding()
+                        .encodeToString(String.valueOf(random.nextInt(options.books())).getBytes(StandardCharsets.UTF_8));
+                yield new Call(endpoint, get("/api/books/available?limit=20" + after));
+            }
+            case SEARCH -> {
+                String term = options.searchTerms().get(random.nextInt(options.searchTerms().size()));
+                yield new Call(endpoint, get("/api/books/search/title?limit=20&title="
+                        + URLEncoder.encode(term.trim(), StandardCharsets.UTF_8)));
+            }
+            case QUOTA -> new Call(endpoint, get("/api/loans/quota/member/" + members.sample(random)));
+            case CHECKOUT -> new Call(endpoint, post("/api/loans?memberId=" + members.sample(random)
+                    + "&bookId=" + books.sample(random) + "&dueDate=" + LocalDate.now().plusDays(14)));
+            case RETURN -> throw new IllegalStateException("Retour sans emprunt");
+        };
+    }
+
+    private void send(Call call, long intended, EndpointStats stats) {
+        try {
+            HttpResponse<String> response = client.send(call.request(), HttpResponse.BodyHandlers.ofString());
+            stats.record(System.nanoTime() - intended, response);
+            if (call.endpoint() == Endpoint.CHECKOUT && response.statusCode() == 201) {
+                Matcher id = LOAN_ID.matcher(response.body());
+                if (id.find()) {
+                    openLoans.add(Long.parseLong(id.group(1)));
+                }
+            }
+        } catch (IOException e) {
+            stats.recordFailure(System.nanoTime() - intended);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Rend les emprunts encore ouverts à la fin du test : la base retrouve ses quotas et ses exemplaires.
+     */
+    private void returnOpenLoans() throws InterruptedException {
+        int returned = 0;
+        Semaphore parallel = new Semaphore(20);
+        Long loanId;
+        while ((loanId = openLoans.poll()) != null) {
+            HttpRequest request = post("/api/loans/" + loanId + "/return");
+            parallel.acquire();
+            clients.execute(() -> {
+                try {
+                    client.send(request, HttpResponse.BodyHandlers.discarding());
+                } catch (IOException | InterruptedException e) {
+                    // emprunt laissé ouvert : signalé par le compte ci-dessous
+                } finally {
+                    parallel.release();
+                }
+            });
+            returned++;
+        }
+        parallel.acquire(20);
+        if (returned > 0) {
+            System.out.printf("%d emprunt(s) ouvert(s) pendant le test rendu(s)%n", returned);
+        }
+    }
+
+    private HttpRequest get(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(options.timeout()).GET().build();
+    }
+
+    private HttpRequest post(String path) {
+        return HttpRequest.newBuilder(uri(path)).timeout(options.timeout())
+                .header("Authorization", authorization)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build();
+    }
+
+    private URI uri(String path) {
+        return URI.create(options.baseUrl() + path);
+    }
+
+    private static void print(StepResult step) {
+        System.out.printf(Locale.ROOT, "%nPalier %d req/s : %d requêtes en %.0f s (%.1f req/s), erreurs %.2f %%%n",
+                step.rate(), step.requests(), step.seconds(), step.requests() / step.seconds(), step.errorRate() * 100);
+        System.out.printf(Locale.ROOT, "%-9s %8s %7s %8s %8s %9s %8s %6s %6s %8s %7s %7s %10s%n",
+                "opération", "req", "req/s", "p50 ms", "p99 ms", "p99.9 ms", "max ms", "4xx", "err", "abandon",
+                "SQL/req", "db ms", "serveur ms");
+        for (EndpointStats.Summary s : step.endpoints()) {
+            System.out.printf(Locale.ROOT, "%-9s %8d %7.1f %8.1f %8.1f %9.1f %8.1f %6d %6d %8d %7.1f %7.1f %10.1f%n",
+                    s.endpoint(), s.requests(), s.throughput(), s.p50Ms(), s.p99Ms(), s.p999Ms(), s.maxMs(),
+                    s.rejected(), s.errors(), s.dropped(), s.sqlPerRequest(), s.serverDbMs(), s.serverTotalMs());
+        }
+    }
+
+    private String toJson(List<StepResult> steps) {
+        StringBuilder json = new StringBuilder();
+        json.append(String.format(Locale.ROOT,
+                "{\"baseUrl\":\"%s\",\"finishedAt\":\"%s\",\"members\":%d,\"books\":%d,\"memberSkew\":%s,\"bookSkew\":%s,\"steps\":[",
+                options.baseUrl(), Instant.now(), options.members(), options.books(),
+                options.memberSkew(), options.bookSkew()));
+        for (int i = 0; i < steps.size(); i++) {
+            StepResult step = steps.get(i);
+            json.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                    "{\"rate\":%d,\"seconds\":%.1f,\"requests\":%d,\"errorRate\":%.5f,\"endpoints\":[",
+                    step.rate(), step.seconds(), step.requests(), step.errorRate()));
+            for (int j = 0; j < step.endpoints().size(); j++) {
+                EndpointStats.Summary s = step.endpoints().get(j);
+                json.append(j == 0 ? "" : ",").append(String.format(Locale.ROOT,
+                        "{\"endpoint\":\"%s\",\"requests\":%d,\"throughput\":%.2f,\"p50Ms\":%.2f,\"p99Ms\":%.2f,"
+                                + "\"p999Ms\":%.2f,\"maxMs\":%.2f,\"rejected\":%d,\"errors\":%d,\"dropped\":%d,"
+                                + "\"sqlPerRequest\":%.2f,\"serverDbMs\":%.2f,\"serverTotalMs\":%.2f}",
+                        s.endpoint(), s.requests(), s.throughput(), s.p50Ms(), s.p99Ms(), s.p999Ms(), s.maxMs(),
+                        s.rejected(), s.errors(), s.dropped(), s.sqlPerRequest(), s.serverDbMs(), s.serverTotalMs()));
+            }
+            json.append("]}");
+        }
+        return json.append("]}\n").toString();
+    }
+
+    /**
+     * Une requête prête à partir et l'opération dont elle relève.
+     */
+    private record Call(Endpoint endpoint, HttpRequest request) {
+    }
+
+    /**
+     * Bilan d'un palier.
+     */
+    private record StepResult(int rate, double seconds, List<EndpointStats.Summary> endpoints) {
+
+        long requests() {
+            return endpoints.stream().mapToLong(EndpointStats.Summary::requests).sum();
+        }
+
+        double errorRate() {
+            long attempted = endpoints.stream().mapToLong(s -> s.requests() + s.dropped()).sum();
+            long failed = endpoints.stream().mapToLong(s -> s.errors() + s.dropped()).sum();
+            return attempted == 0 ? 0 : (double) failed / attempted;
+        }
+    }
+}
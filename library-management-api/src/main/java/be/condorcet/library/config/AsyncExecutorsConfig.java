@@ -0,0 +1,61 @@
+package be.condorcet.library.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Exécuteurs dédiés, pour qu'un usage n'affame pas les autres :
+ * - dashboardTaskExecutor : sous-requêtes du tableau de bord d'un membre, sur des threads virtuels,
+ *   avec un plafond de tâches simultanées (chacune tient une connexion du pool JDBC) ;
+ * - exportTaskExecutor : exports NDJSON en flux (StreamingResponseBody), qui occupent un thread
+ *   pendant toute la lecture d'une table.
+ *
+ * applicationTaskExecutor reste créé par Spring Boot (spring.task.execution.mode: force) pour les tâches
+ * de fond, comme la réconciliation des compteurs au démarrage. Les builders de Spring Boot appliquent
+ * à chaque exécuteur le RequestTimingTaskDecorator.
+ */
+@Configuration
+public class AsyncExecutorsConfig implements WebMvcConfigurer {
+
+    private final AsyncTaskExecutor exportTaskExecutor;
+
+    public AsyncExecutorsConfig(@Qualifier("exportTaskExecutor") AsyncTaskExecutor exportTaskExecutor) {
+        this.exportTaskExecutor = exportTaskExecutor;
+    }
+
+    @Bean
+    public static SimpleAsyncTaskExecutor dashboardTaskExecutor(
+            SimpleAsyncTaskExecutorBuilder builder,
+            @Value("${library.members.dashboard.concurrency:8}") int concurrency) {
+        return builder.virtualThreads(true)
+                .concurrencyLimit(concurrency)
+                .threadNamePrefix("dashboard-")
+                .build();
+    }
+
+    @Bean
+    public static ThreadPoolTaskExecutor exportTaskExecutor(
+            ThreadPoolTaskExecutorBuilder builder,
+            @Value("${library.exports.threads:2}") int threads,
+            @Value("${library.exports.queue-capacity:20}") int queueCapacity) {
+        return builder.corePoolSize(threads)
+                .maxPoolSize(threads)
+                .queueCapacity(queueCapacity)
+                .threadNamePrefix("export-")
+                .build();
+    }
+
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(exportTaskExecutor);
+    }
+}
@@ -0,0 +1,73 @@
+package be.condorcet.library.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Enveloppe la DataSource (pool Hikari) dans un proxy JDBC : chaque exécution de requête,
+ * quel que soit le repository ou l'appelant, est comptée et chronométrée pour la requête HTTP en cours,
+ * et les requêtes lentes sont journalisées (SlowQueryLog).
+ */
+@Component
+public class DataSourceProxyPostProcessor implements BeanPostProcessor {
+
+    private final Duration slowQueryThreshold;
+    private final boolean logParameters;
+    private final boolean explain;
+
+    public DataSourceProxyPostProcessor(
+            @Value("${library.slow-query.threshold:200ms}") Duration slowQueryThreshold,
+            @Value("${library.slow-query.log-parameters:false}") boolean logParameters,
+            @Value("${library.slow-query.explain:false}") boolean explain) {
+        this.slowQueryThreshold = slowQueryThreshold;
+        this.logParameters = logParameters;
+        this.explain = explain;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof DataSource dataSource && !(bean instanceof ProxyDataSource)) {
+            return ProxyDataSourceBuilder.create(beanName, dataSource)
+                    .listener(new RequestTimingListener())
+                    .listener(new SlowQueryLog(slowQueryThreshold, logParameters, explain ? dataSource : null))
+                    .build();
+        }
+        return bean;
+    }
+
+    /**
+     * Alimente le RequestTiming du thread courant (rien hors requête HTTP : tâches planifiées, démarrage).
+     * Le début de l'exécution est gardé dans l'ExecutionInfo : plusieurs threads peuvent alimenter
+     * les mesures d'une même requête en même temps.
+     */
+    private static final class RequestTimingListener implements QueryExecutionListener {
+
+        private static final String START = "requestTiming.start";
+
+        @Override
+        public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            if (RequestTiming.current() != null) {
+                execInfo.addCustomValue(START, System.nanoTime());
+            }
+        }
+
+        @Override
+        public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            RequestTiming timing = RequestTiming.current();
+            Long start = execInfo.getCustomValue(START, Long.class);
+            if (timing != null && start != null) {
+                timing.queryFinished(System.nanoTime() - start);
+            }
+        }
+    }
+}
@@ -0,0 +1,17 @@
+package be.condorcet.library.config;
+
+/**
+ * Façon dont le retard d'un emprunt est déterminé (propriété {@code library.loans.overdue-mode}).
+ */
+public enum OverdueMode {
+    /**
+     * Le statut OVERDUE est écrit en base par la tâche planifiée de détection des retards.
+     */
+    STORED,
+
+    /**
+     * Le statut reste ACTIVE en base : un emprunt est en retard s'il est ACTIVE et que sa date
+     * de retour prévue est dépassée. Calculé à la lecture, aucune écriture nocturne.
+     */
+    DERIVED
+}
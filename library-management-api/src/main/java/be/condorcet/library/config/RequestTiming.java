@@ -0,0 +1,113 @@
+package be.condorcet.library.config;
+
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mesures d'une requête HTTP : requêtes SQL (nombre, durée JDBC), sérialisation de la réponse
+ * et octets alloués par le thread. Rattachée au thread qui traite la requête (RequestTimingFilter),
+ * et le temps de leur exécution aux tâches qu'elle confie à l'exécuteur applicatif
+ * (RequestTimingTaskDecorator) : les compteurs SQL sont donc partagés entre threads.
+ * Les octets alloués restent ceux du seul thread de la requête.
+ *
+ * Un lot JDBC (executeBatch) compte pour une seule exécution : c'est le nombre d'allers-retours
+ * vers la base qui trahit un N+1.
+ */
+final class RequestTiming {
+
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private final long start = System.nanoTime();
+    private final long allocatedAtStart = allocatedBytes();
+    private final AtomicInteger sqlCount = new AtomicInteger();
+    private final AtomicLong sqlNanos = new AtomicLong();
+    private long serializationStart;
+
+    static RequestTiming start() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        return timing;
+    }
+
+    static RequestTiming current() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Rattache les mesures d'une requête au thread courant (tâche exécutée pour elle sur un autre thread).
+     * @return les mesures rattachées auparavant à ce thread, à rendre à {@link #restore(RequestTiming)}
+     */
+    static RequestTiming attach(RequestTiming timing) {
+        RequestTiming previous = CURRENT.get();
+        CURRENT.set(timing);
+        return previous;
+    }
+
+    static void restore(RequestTiming previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+
+    void finish() {
+        CURRENT.remove();
+    }
+
+    void queryFinished(long nanos) {
+        sqlCount.incrementAndGet();
+        sqlNanos.addAndGet(nanos);
+    }
+
+    void serializationStarted() {
+        serializationStart = System.nanoTime();
+    }
+
+    int sqlCount() {
+        return sqlCount.get();
+    }
+
+    long sqlNanos() {
+        return sqlNanos.get();
+    }
+
+    long elapsedNanos() {
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Durée de la sérialisation jusqu'à maintenant (0 si la réponse n'a pas de corps sérialisé).
+     */
+    long serializationNanos() {
+        return serializationStart == 0 ? 0 : System.nanoTime() - serializationStart;
+    }
+
+    /**
+     * Octets alloués par le thread depuis le début de la requête (-1 si la JVM ne le mesure pas).
+     */
+    long allocated() {
+        long now = allocatedBytes();
+        return now < 0 || allocatedAtStart < 0 ? -1 : now - allocatedAtStart;
+    }
+
+    /**
+     * Valeur de l'en-tête Server-Timing (durées en millisecondes).
+     * @param complete false si la réponse est envoyée avant la fin de la sérialisation (gros corps)
+     */
+    String serverTiming(boolean complete) {
+        return String.format(Locale.ROOT,
+                "db;dur=%.1f;desc=\"%d sql\", ser;dur=%.1f%s, total;dur=%.1f, alloc;desc=\"%d B\"",
+                sqlNanos() / 1e6, sqlCount(), serializationNanos() / 1e6, complete ? "" : ";desc=\"partial\"",
+                elapsedNanos() / 1e6, allocated());
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.isThreadAllocatedMemoryEnabled() ? THREADS.getCurrentThreadAllocatedBytes() : -1;
+    }
+}
@@ -0,0 +1,154 @@
+package be.condorcet.library.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Ajoute à chaque réponse un en-tête Server-Timing (nombre de requêtes SQL, temps JDBC,
+ * sérialisation, durée totale, octets alloués) et journalise les requêtes qui dépassent les seuils.
+ *
+ * L'en-tête doit partir avant le corps : il est écrit au premier flush (le convertisseur JSON
+ * vide le flux une fois la sérialisation finie) ou juste avant que le corps ne dépasse le tampon
+ * de la réponse. Au-delà de ce tampon, la durée de sérialisation de l'en-tête est partielle ;
+ * la ligne de journal, écrite à la fin, est toujours complète.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RequestTimingFilter.class);
+
+    static final String HEADER = "Server-Timing";
+
+    private final int sqlCountThreshold;
+    private final long sqlTimeThresholdNanos;
+    private final long allocationThreshold;
+
+    public RequestTimingFilter(@Value("${library.request-timing.log.sql-count:50}") int sqlCountThreshold,
+                               @Value("${library.request-timing.log.sql-time:500ms}") Duration sqlTimeThreshold,
+                               @Value("${library.request-timing.log.allocated-bytes:268435456}") long allocationThreshold) {
+        this.sqlCountThreshold = sqlCountThreshold;
+        this.sqlTimeThresholdNanos = sqlTimeThreshold.toNanos();
+        this.allocationThreshold = allocationThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.start();
+        TimedResponse timed = new TimedResponse(response, timing);
+        try {
+            chain.doFilter(request, timed);
+        } finally {
+            timed.writeHeader(true);
+            timing.finish();
+            logIfExceeded(request, timing);
+        }
+    }
+
+    private void logIfExceeded(HttpServletRequest request, RequestTiming timing) {
+        long allocated = timing.allocated();
+        if (timing.sqlCount() >= sqlCountThreshold || timing.sqlNanos() >= sqlTimeThresholdNanos
+                || allocated >= allocationThreshold) {
+            String query = request.getQueryString();
+            log.warn("{} {}{} : {} requête(s) SQL en {} ms, sérialisation {} ms, total {} ms, {} octets alloués",
+                    request.getMethod(), request.getRequestURI(), query == null ? "" : "?" + query,
+                    timing.sqlCount(), timing.sqlNanos() / 1_000_000, timing.serializationNanos() / 1_000_000,
+                    timing.elapsedNanos() / 1_000_000, allocated);
+        }
+    }
+
+    /**
+     * Réponse qui pose l'en-tête Server-Timing au dernier moment possible avant l'envoi du corps.
+     */
+    private static final class TimedResponse extends HttpServletResponseWrapper {
+
+        private final RequestTiming timing;
+        private boolean headerWritten;
+        private long written;
+        private ServletOutputStream outputStream;
+
+        TimedResponse(HttpServletResponse response, RequestTiming timing) {
+            super(response);
+            this.timing = timing;
+        }
+
+        void writeHeader(boolean complete) {
+            if (!headerWritten && !isCommitted()) {
+                setHeader(HEADER, timing.serverTiming(complete));
+            }
+            headerWritten = true;
+        }
+
+        private void beforeWrite(int length) {
+            written += length;
+            if (!headerWritten && written > getBufferSize()) {
+                writeHeader(false);
+            }
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            writeHeader(true);
+            super.flushBuffer();
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                ServletOutputStream delegate = super.getOutputStream();
+                outputStream = new ServletOutputStream() {
+                    @Override
+                    public void write(int b) throws IOException {
+                        beforeWrite(1);
+                        delegate.write(b);
+                    }
+
+                    @Override
+                    public void write(byte[] b, int off, int len) throws IOException {
+                        beforeWrite(len);
+                        delegate.write(b, off, len);
+                    }
+
+                    @Override
+                    public void flush() throws IOException {
+                        writeHeader(true);
+                        delegate.flush();
+                    }
+
+                    @Override
+                    public void close() throws IOException {
+                        writeHeader(true);
+                        delegate.close();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setWriteListener(WriteListener listener) {
+                        delegate.setWriteListener(listener);
+                    }
+                };
+            }
+            return outputStream;
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package be.condorcet.library.config;
+
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+/**
+ * Propage les mesures de la requête HTTP (RequestTiming) aux tâches qu'elle soumet à un exécuteur :
+ * les requêtes SQL exécutées en parallèle, comme celles du tableau de bord d'un membre, sont comptées
+ * dans l'en-tête Server-Timing de la requête qui les a demandées.
+ *
+ * Spring Boot applique le TaskDecorator du contexte, s'il est unique, à applicationTaskExecutor et aux exécuteurs
+ * construits avec ses builders (voir AsyncExecutorsConfig).
+ */
+@Component
+public class RequestTimingTaskDecorator implements TaskDecorator {
+
+    @Override
+    public Runnable decorate(Runnable runnable) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing == null) {
+            return runnable;
+        }
+        return () -> {
+            RequestTiming previous = RequestTiming.attach(timing);
+            try {
+                runnable.run();
+            } finally {
+                RequestTiming.restore(previous);
+            }
+        };
+    }
+}
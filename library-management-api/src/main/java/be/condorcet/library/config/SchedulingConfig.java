@@ -0,0 +1,12 @@
+package be.condorcet.library.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Active les tâches planifiées (@Scheduled), comme la détection des emprunts en retard.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
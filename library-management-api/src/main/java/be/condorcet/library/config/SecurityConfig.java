@@ -31,6 +31,15 @@ public class SecurityConfig {
         http
             .csrf(AbstractHttpConfigurer::disable)
             .authorizeHttpRequests(authz -> authz
+                // Exports complets (données des membres, volume important) réservés aux ADMIN
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/*/export").hasRole("ADMIN")
+                // Statistiques internes (cache)
+                .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/cache/**").hasRole("ADMIN")
+                // Enregistrement JFR à la demande
+                .requestMatchers("/api/diagnostics/**").hasRole("ADMIN")
+                // Sonde de santé publique, métriques (Prometheus) réservées aux ADMIN
+                .requestMatchers("/actuator/health").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 // Lecture publique
                 .requestMatchers(org.springframework.http.HttpMethod.GET, "/api/**").permitAll()
                 // Écriture réservée aux ADMIN
@@ -0,0 +1,146 @@
+package be.condorcet.library.config;
+
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.sql.DataSource;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.StringJoiner;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Journal des requêtes SQL lentes : SQL, méthode de repository appelante et durée. Les paramètres liés
+ * (e-mails, noms des membres...) ne sont journalisés qu'avec library.slow-query.log-parameters, activé
+ * dans le seul profil dev ; de même pour les plans EXPLAIN, qui affichent les valeurs des paramètres.
+ * Seules les requêtes au-dessus du seuil sont journalisées ; la recherche de l'appelant (parcours de pile)
+ * n'a lieu que pour elles.
+ *
+ * Option explain : le plan (EXPLAIN, sans ANALYZE : la requête n'est pas réexécutée) des SELECT lents
+ * est calculé en arrière-plan, sur une connexion de la DataSource d'origine, avec les mêmes paramètres.
+ * File bornée : si la base rame au point de saturer la file, les plans en trop sont abandonnés.
+ */
+final class SlowQueryLog implements QueryExecutionListener {
+
+    private static final Logger log = LoggerFactory.getLogger(SlowQueryLog.class);
+
+    private static final int MAX_VALUE_LENGTH = 100;
+    private static final String REPOSITORY_PACKAGE = "be.condorcet.library.repository.";
+    private static final String APPLICATION_PACKAGE = "be.condorcet.library.";
+
+    private static final StackWalker STACK = StackWalker.getInstance(StackWalker.Option.RETAIN_CLASS_REFERENCE);
+
+    private final long thresholdMillis;
+    private final boolean logParameters;
+    private final DataSource explainDataSource;
+    private final ExecutorService explainExecutor;
+
+    /**
+     * @param explainDataSource la DataSource non instrumentée pour les EXPLAIN, ou null pour ne pas les capturer
+     */
+    SlowQueryLog(Duration threshold, boolean logParameters, DataSource explainDataSource) {
+        this.thresholdMillis = threshold.toMillis();
+        this.logParameters = logParameters;
+        this.explainDataSource = explainDataSource;
+        this.explainExecutor = explainDataSource == null ? null : new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(100), r -> {
+                    Thread thread = new Thread(r, "slow-query-explain");
+                    thread.setDaemon(true);
+                    return thread;
+                }, new ThreadPoolExecutor.DiscardPolicy());
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        if (execInfo.getElapsedTime() < thresholdMillis || queryInfoList.isEmpty()) {
+            return;
+        }
+        QueryInfo query = queryInfoList.get(0);
+        List<ParameterSetOperation> parameters = query.getParametersList().isEmpty()
+                ? List.of() : query.getParametersList().get(0);
+        String batch = execInfo.isBatch() ? " (lot de " + execInfo.getBatchSize() + ")" : "";
+        log.warn("Requête lente : {} ms{} depuis {} : {}{}", execInfo.getElapsedTime(), batch, caller(),
+                query.getQuery(), logParameters && !parameters.isEmpty() ? " ; paramètres " + format(parameters) : "");
+
+        if (explainExecutor != null && isSelect(query.getQuery())) {
+            explainExecutor.execute(() -> explain(query.getQuery(), parameters));
+        }
+    }
+
+    /**
+     * Méthode de repository à l'origine de la requête (proxy Spring Data dans la pile),
+     * à défaut la première méthode de l'application.
+     */
+    private static String caller() {
+        return STACK.walk(frames -> {
+            String application = null;
+            for (StackWalker.StackFrame frame : (Iterable<StackWalker.StackFrame>) frames::iterator) {
+                Class<?> type = frame.getDeclaringClass();
+                if (Proxy.isProxyClass(type)) {
+                    for (Class<?> contract : type.getInterfaces()) {
+                        if (contract.getName().startsWith(REPOSITORY_PACKAGE)) {
+                            return contract.getSimpleName() + "." + frame.getMethodName();
+                        }
+                    }
+                } else if (application == null && type.getName().startsWith(APPLICATION_PACKAGE)
+                        && type != SlowQueryLog.class && !type.getName().contains("$$")) {
+                    application = type.getSimpleName() + "." + frame.getMethodName();
+                }
+            }
+            return application != null ? application : "?";
+        });
+    }
+
+    private static String format(List<ParameterSetOperation> parameters) {
+        StringJoiner joiner = new StringJoiner(", ", "[", "]");
+        for (ParameterSetOperation operation : parameters) {
+            Object[] args = operation.getArgs();
+            Object value = ParameterSetOperation.isSetNullParameterOperation(operation) ? null : args[1];
+            String text = value instanceof CharSequence ? "'" + value + "'" : String.valueOf(value);
+            if (text.length() > MAX_VALUE_LENGTH) {
+                text = text.substring(0, MAX_VALUE_LENGTH) + "…";
+            }
+            joiner.add(args[0] + "=" + text);
+        }
+        return joiner.toString();
+    }
+
+    private static boolean isSelect(String sql) {
+        String start = sql.stripLeading().toLowerCase(Locale.ROOT);
+        return start.startsWith("select") || start.startsWith("with");
+    }
+
+    private void explain(String sql, List<ParameterSetOperation> parameters) {
+        try (Connection connection = explainDataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement("EXPLAIN " + sql)) {
+            for (ParameterSetOperation operation : parameters) {
+                operation.getMethod().invoke(statement, operation.getArgs());
+            }
+            StringJoiner plan = new StringJoiner("\n");
+            try (ResultSet rows = statement.executeQuery()) {
+                while (rows.next()) {
+                    plan.add(rows.getString(1));
+                }
+            }
+            log.warn("Plan de la requête lente : {}\n{}", sql, plan);
+        } catch (Exception e) {
+            log.debug("EXPLAIN impossible pour {}", sql, e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package be.condorcet.library.controller;
 
+import be.condorcet.library.dto.CursorPage;
 import be.condorcet.library.model.Author;
 import be.condorcet.library.service.AuthorService;
 import jakarta.validation.Valid;
@@ -24,11 +25,12 @@ public class AuthorController {
     }
 
     /**
-     * GET /api/authors - Récupère tous les auteurs
+     * GET /api/authors?after=...&limit=20 - Récupère les auteurs page par page
      */
     @GetMapping
-    public ResponseEntity<List<Author>> getAllAuthors() {
-        List<Author> authors = authorService.getAllAuthors();
+    public ResponseEntity<CursorPage<Author>> getAllAuthors(@RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) Integer limit) {
+        CursorPage<Author> authors = authorService.getAllAuthors(after, limit);
         return ResponseEntity.ok(authors);
     }
 
@@ -69,20 +71,23 @@ public class AuthorController {
     }
 
     /**
-     * GET /api/authors/search/lastname?lastName=Dupont - Recherche par nom de famille
+     * GET /api/authors/search/lastname?lastName=Dupont - Recherche par nom de famille (partiel, sans accents)
      */
     @GetMapping("/search/lastname")
-    public ResponseEntity<List<Author>> searchByLastName(@RequestParam String lastName) {
-        List<Author> authors = authorService.searchByLastName(lastName);
+    public ResponseEntity<List<Author>> searchByLastName(@RequestParam String lastName,
+                                                         @RequestParam(required = false) Integer limit) {
+        List<Author> authors = authorService.searchByLastName(lastName, limit);
         return ResponseEntity.ok(authors);
     }
 
     /**
-     * GET /api/authors/search/nationality?nationality=France - Recherche par nationalité
+     * GET /api/authors/search/nationality?nationality=France&after=...&limit=20 - Recherche par nationalité, page par page
      */
     @GetMapping("/search/nationality")
-    public ResponseEntity<List<Author>> searchByNationality(@RequestParam String nationality) {
-        List<Author> authors = authorService.searchByNationality(nationality);
+    public ResponseEntity<CursorPage<Author>> searchByNationality(@RequestParam String nationality,
+                                                                  @RequestParam(required = false) String after,
+                                                                  @RequestParam(required = false) Integer limit) {
+        CursorPage<Author> authors = authorService.searchByNationality(nationality, after, limit);
         return ResponseEntity.ok(authors);
     }
 }
@@ -1,12 +1,22 @@
 package be.condorcet.library.controller;
 
+import be.condorcet.library.dto.BookImportReport;
+import be.condorcet.library.dto.BookSuggestion;
+import be.condorcet.library.dto.BookView;
+import be.condorcet.library.dto.CursorPage;
 import be.condorcet.library.model.Book;
+import be.condorcet.library.service.BookImportService;
 import be.condorcet.library.service.BookService;
+import be.condorcet.library.service.ExportService;
 import jakarta.validation.Valid;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
 import java.util.List;
 
 /**
@@ -18,26 +28,40 @@ import java.util.List;
 public class BookController {
 
     private final BookService bookService;
+    private final BookImportService bookImportService;
+    private final ExportService exportService;
 
-    public BookController(BookService bookService) {
+    public BookController(BookService bookService, BookImportService bookImportService, ExportService exportService) {
         this.bookService = bookService;
+        this.bookImportService = bookImportService;
+        this.exportService = exportService;
     }
 
     /**
-     * GET /api/books - Récupère tous les livres
+     * GET /api/books?after=...&limit=20 - Récupère les livres page par page
      */
     @GetMapping
-    public ResponseEntity<List<Book>> getAllBooks() {
-        List<Book> books = bookService.getAllBooks();
+    public ResponseEntity<CursorPage<BookView>> getAllBooks(@RequestParam(required = false) String after,
+                                                        @RequestParam(required = false) Integer limit) {
+        CursorPage<BookView> books = bookService.getAllBooks(after, limit);
         return ResponseEntity.ok(books);
     }
 
+    /**
+     * GET /api/books/export - Export NDJSON de tout le catalogue (écrit en flux)
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportBooks() {
+        StreamingResponseBody body = exportService::exportBooks;
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     /**
      * GET /api/books/{id} - Récupère un livre par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Book> getBookById(@PathVariable Long id) {
-        Book book = bookService.getBookById(id);
+    public ResponseEntity<BookView> getBookById(@PathVariable Long id) {
+        BookView book = bookService.getBookView(id);
         return ResponseEntity.ok(book);
     }
 
@@ -45,17 +69,32 @@ public class BookController {
      * POST /api/books - Crée un nouveau livre
      */
     @PostMapping
-    public ResponseEntity<Book> createBook(@Valid @RequestBody Book book) {
-        Book createdBook = bookService.createBook(book);
+    public ResponseEntity<BookView> createBook(@Valid @RequestBody Book book) {
+        BookView createdBook = bookService.createBook(book);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdBook);
     }
 
+    /**
+     * POST /api/books/import - Import en masse du catalogue (corps CSV ou NDJSON, lu en flux)
+     *
+     * Exemple : curl -u admin:admin -H "Content-Type: text/csv" --data-binary @livres.csv .../api/books/import
+     */
+    @PostMapping(value = "/import", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<BookImportReport> importBooks(@RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                        InputStream body) {
+        BookImportService.Format format = contentType.isCompatibleWith(MediaType.parseMediaType("text/csv"))
+                ? BookImportService.Format.CSV
+                : BookImportService.Format.NDJSON;
+        BookImportReport report = bookImportService.importBooks(body, format);
+        return ResponseEntity.ok(report);
+    }
+
     /**
      * PUT /api/books/{id} - Met à jour un livre existant
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Book> updateBook(@PathVariable Long id, @Valid @RequestBody Book bookDetails) {
-        Book updatedBook = bookService.updateBook(id, bookDetails);
+    public ResponseEntity<BookView> updateBook(@PathVariable Long id, @Valid @RequestBody Book bookDetails) {
+        BookView updatedBook = bookService.updateBook(id, bookDetails);
         return ResponseEntity.ok(updatedBook);
     }
 
@@ -72,53 +111,78 @@ public class BookController {
      * GET /api/books/search/isbn?isbn=978-3-16-148410-0 - Recherche par ISBN
      */
     @GetMapping("/search/isbn")
-    public ResponseEntity<Book> searchByIsbn(@RequestParam String isbn) {
-        Book book = bookService.getBookByIsbn(isbn);
+    public ResponseEntity<BookView> searchByIsbn(@RequestParam String isbn) {
+        BookView book = bookService.getBookByIsbn(isbn);
         return ResponseEntity.ok(book);
     }
 
     /**
-     * GET /api/books/search/title?title=Harry - Recherche par titre (partiel)
+     * GET /api/books/search/title?title=Harry&limit=20 - Recherche par mots du titre ou de l'auteur, par pertinence
      */
     @GetMapping("/search/title")
-    public ResponseEntity<List<Book>> searchByTitle(@RequestParam String title) {
-        List<Book> books = bookService.searchByTitle(title);
+    public ResponseEntity<List<BookView>> searchByTitle(@RequestParam String title,
+                                                    @RequestParam(required = false) Integer limit) {
+        List<BookView> books = bookService.searchByTitle(title, limit);
         return ResponseEntity.ok(books);
     }
 
     /**
-     * GET /api/books/author/{authorId} - Récupère les livres d'un auteur
+     * GET /api/books/search/text?q=eleve - Recherche approchée par titre en base (sans accents, fautes tolérées)
+     */
+    @GetMapping("/search/text")
+    public ResponseEntity<List<BookView>> searchByText(@RequestParam String q,
+                                                   @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.searchByText(q, limit));
+    }
+
+    /**
+     * GET /api/books/suggest?q=vin&limit=5 - Saisie semi-automatique (titres et auteurs, les plus empruntés d'abord)
+     */
+    @GetMapping("/suggest")
+    public ResponseEntity<List<BookSuggestion>> suggest(@RequestParam String q,
+                                                        @RequestParam(required = false) Integer limit) {
+        return ResponseEntity.ok(bookService.suggest(q, limit));
+    }
+
+    /**
+     * GET /api/books/author/{authorId}?after=...&limit=20 - Récupère les livres d'un auteur page par page
      */
     @GetMapping("/author/{authorId}")
-    public ResponseEntity<List<Book>> getBooksByAuthor(@PathVariable Long authorId) {
-        List<Book> books = bookService.getBooksByAuthor(authorId);
+    public ResponseEntity<CursorPage<BookView>> getBooksByAuthor(@PathVariable Long authorId,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(required = false) Integer limit) {
+        CursorPage<BookView> books = bookService.getBooksByAuthor(authorId, after, limit);
         return ResponseEntity.ok(books);
     }
 
     /**
-     * GET /api/books/category/{categoryId} - Récupère les livres d'une catégorie
+     * GET /api/books/category/{categoryId}?after=...&limit=20 - Récupère les livres d'une catégorie page par page
      */
     @GetMapping("/category/{categoryId}")
-    public ResponseEntity<List<Book>> getBooksByCategory(@PathVariable Long categoryId) {
-        List<Book> books = bookService.getBooksByCategory(categoryId);
+    public ResponseEntity<CursorPage<BookView>> getBooksByCategory(@PathVariable Long categoryId,
+                                                               @RequestParam(required = false) String after,
+                                                               @RequestParam(required = false) Integer limit) {
+        CursorPage<BookView> books = bookService.getBooksByCategory(categoryId, after, limit);
         return ResponseEntity.ok(books);
     }
 
     /**
-     * GET /api/books/available - Récupère les livres disponibles
+     * GET /api/books/available?after=...&limit=20 - Récupère les livres disponibles page par page
      */
     @GetMapping("/available")
-    public ResponseEntity<List<Book>> getAvailableBooks() {
-        List<Book> books = bookService.getAvailableBooks();
+    public ResponseEntity<CursorPage<BookView>> getAvailableBooks(@RequestParam(required = false) String after,
+                                                              @RequestParam(required = false) Integer limit) {
+        CursorPage<BookView> books = bookService.getAvailableBooks(after, limit);
         return ResponseEntity.ok(books);
     }
 
     /**
-     * GET /api/books/unavailable - Récupère les livres indisponibles
+     * GET /api/books/unavailable?after=...&limit=20 - Récupère les livres indisponibles page par page
      */
     @GetMapping("/unavailable")
-    public ResponseEntity<List<Book>> getUnavailableBooks() {
-        List<Book> books = bookService.getUnavailableBooks();
+    public ResponseEntity<CursorPage<BookView>> getUnavailableBooks(@RequestParam(required = false) String after,
+                                                                @RequestParam(required = false) Integer limit) {
+        CursorPage<BookView> books = bookService.getUnavailableBooks(after, limit);
         return ResponseEntity.ok(books);
     }
 
@@ -135,8 +199,8 @@ public class BookController {
      * POST /api/books/{bookId}/category/{categoryId} - Ajoute une catégorie à un livre
      */
     @PostMapping("/{bookId}/category/{categoryId}")
-    public ResponseEntity<Book> addCategoryToBook(@PathVariable Long bookId, @PathVariable Long categoryId) {
-        Book book = bookService.addCategoryToBook(bookId, categoryId);
+    public ResponseEntity<BookView> addCategoryToBook(@PathVariable Long bookId, @PathVariable Long categoryId) {
+        BookView book = bookService.addCategoryToBook(bookId, categoryId);
         return ResponseEntity.ok(book);
     }
 
@@ -144,17 +208,20 @@ public class BookController {
      * DELETE /api/books/{bookId}/category/{categoryId} - Retire une catégorie d'un livre
      */
     @DeleteMapping("/{bookId}/category/{categoryId}")
-    public ResponseEntity<Book> removeCategoryFromBook(@PathVariable Long bookId, @PathVariable Long categoryId) {
-        Book book = bookService.removeCategoryFromBook(bookId, categoryId);
+    public ResponseEntity<BookView> removeCategoryFromBook(@PathVariable Long bookId, @PathVariable Long categoryId) {
+        BookView book = bookService.removeCategoryFromBook(bookId, categoryId);
         return ResponseEntity.ok(book);
     }
 
     /**
-     * GET /api/books/available/category?categoryName=Science-Fiction - Récupère les livres disponibles d'une catégorie
+     * GET /api/books/available/category?categoryName=Science-Fiction&after=...&limit=20 - Récupère les livres
+     * disponibles d'une catégorie page par page
      */
     @GetMapping("/available/category")
-    public ResponseEntity<List<Book>> getAvailableBooksByCategory(@RequestParam String categoryName) {
-        List<Book> books = bookService.getAvailableBooksByCategory(categoryName);
+    public ResponseEntity<CursorPage<BookView>> getAvailableBooksByCategory(@RequestParam String categoryName,
+                                                                        @RequestParam(required = false) String after,
+                                                                        @RequestParam(required = false) Integer limit) {
+        CursorPage<BookView> books = bookService.getAvailableBooksByCategory(categoryName, after, limit);
         return ResponseEntity.ok(books);
     }
 }
@@ -0,0 +1,42 @@
+package be.condorcet.library.controller;
+
+import be.condorcet.library.dto.CacheRegionStats;
+import be.condorcet.library.dto.UniquenessFilterStats;
+import be.condorcet.library.service.CacheStatisticsService;
+import be.condorcet.library.service.UniquenessFilters;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Contrôleur REST d'observation des caches et filtres en mémoire (réservé aux administrateurs).
+ */
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final CacheStatisticsService cacheStatisticsService;
+    private final UniquenessFilters uniquenessFilters;
+
+    public CacheController(CacheStatisticsService cacheStatisticsService, UniquenessFilters uniquenessFilters) {
+        this.cacheStatisticsService = cacheStatisticsService;
+        this.uniquenessFilters = uniquenessFilters;
+    }
+
+    /**
+     * GET /api/cache/stats - Succès, échecs et taux de succès par région du cache
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheRegionStats>> getStats() {
+        return ResponseEntity.ok(cacheStatisticsService.getRegionStats());
+    }
+
+    /**
+     * GET /api/cache/uniqueness-filters - Requêtes évitées et taux de faux positifs des filtres d'unicité
+     */
+    @GetMapping("/uniqueness-filters")
+    public ResponseEntity<List<UniquenessFilterStats>> getUniquenessFilterStats() {
+        return ResponseEntity.ok(uniquenessFilters.getStats());
+    }
+}
@@ -1,5 +1,6 @@
 package be.condorcet.library.controller;
 
+import be.condorcet.library.dto.CursorPage;
 import be.condorcet.library.model.Category;
 import be.condorcet.library.service.CategoryService;
 import jakarta.validation.Valid;
@@ -24,11 +25,12 @@ public class CategoryController {
     }
 
     /**
-     * GET /api/categories - Récupère toutes les catégories
+     * GET /api/categories?after=...&limit=20 - Récupère les catégories page par page
      */
     @GetMapping
-    public ResponseEntity<List<Category>> getAllCategories() {
-        List<Category> categories = categoryService.getAllCategories();
+    public ResponseEntity<CursorPage<Category>> getAllCategories(@RequestParam(required = false) String after,
+                                                                 @RequestParam(required = false) Integer limit) {
+        CursorPage<Category> categories = categoryService.getAllCategories(after, limit);
         return ResponseEntity.ok(categories);
     }
 
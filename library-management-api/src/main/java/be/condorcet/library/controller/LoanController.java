@@ -1,11 +1,18 @@
 package be.condorcet.library.controller;
 
-import be.condorcet.library.model.Loan;
+import be.condorcet.library.dto.BorrowQuota;
+import be.condorcet.library.dto.CheckoutRequest;
+import be.condorcet.library.dto.CursorPage;
+import be.condorcet.library.dto.LoanView;
+import be.condorcet.library.dto.OverdueSweepResult;
+import be.condorcet.library.service.ExportService;
 import be.condorcet.library.service.LoanService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.time.LocalDate;
 import java.util.HashMap;
@@ -23,26 +30,38 @@ import java.util.Map;
 public class LoanController {
 
     private final LoanService loanService;
+    private final ExportService exportService;
 
-    public LoanController(LoanService loanService) {
+    public LoanController(LoanService loanService, ExportService exportService) {
         this.loanService = loanService;
+        this.exportService = exportService;
     }
 
     /**
-     * GET /api/loans - Récupère tous les emprunts
+     * GET /api/loans?after=...&limit=20 - Récupère les emprunts page par page
      */
     @GetMapping
-    public ResponseEntity<List<Loan>> getAllLoans() {
-        List<Loan> loans = loanService.getAllLoans();
+    public ResponseEntity<CursorPage<LoanView>> getAllLoans(@RequestParam(required = false) String after,
+                                                        @RequestParam(required = false) Integer limit) {
+        CursorPage<LoanView> loans = loanService.getAllLoans(after, limit);
         return ResponseEntity.ok(loans);
     }
 
+    /**
+     * GET /api/loans/export - Export NDJSON de tous les emprunts (écrit en flux)
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportLoans() {
+        StreamingResponseBody body = exportService::exportLoans;
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType("application/x-ndjson")).body(body);
+    }
+
     /**
      * GET /api/loans/{id} - Récupère un emprunt par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Loan> getLoanById(@PathVariable Long id) {
-        Loan loan = loanService.getLoanById(id);
+    public ResponseEntity<LoanView> getLoanById(@PathVariable Long id) {
+        LoanView loan = loanService.getLoanView(id);
         return ResponseEntity.ok(loan);
     }
 
@@ -69,7 +88,7 @@ public class LoanController {
             @RequestParam Long bookId,
             @RequestParam LocalDate dueDate) {
         try {
-            Loan createdLoan = loanService.createLoan(memberId, bookId, dueDate);
+            LoanView createdLoan = loanService.createLoan(memberId, bookId, dueDate);
             return ResponseEntity.status(HttpStatus.CREATED).body(createdLoan);
         } catch (Exception e) {
             Map<String, String> error = new HashMap<>();
@@ -78,51 +97,83 @@ public class LoanController {
         }
     }
 
+    /**
+     * POST /api/loans/batch - Emprunt de plusieurs livres en une fois (tout ou rien)
+     *
+     * Body JSON attendu :
+     * {
+     *   "memberId": 1,
+     *   "bookIds": [2, 5],
+     *   "dueDate": "2025-12-31"
+     * }
+     */
+    @PostMapping("/batch")
+    public ResponseEntity<List<LoanView>> createLoans(@Valid @RequestBody CheckoutRequest request) {
+        List<LoanView> createdLoans = loanService.createLoans(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(createdLoans);
+    }
+
     /**
      * POST /api/loans/{id}/return - Retourne un livre (enregistre le retour)
      */
     @PostMapping("/{id}/return")
-    public ResponseEntity<Loan> returnBook(@PathVariable Long id) {
-        Loan returnedLoan = loanService.returnBook(id);
+    public ResponseEntity<LoanView> returnBook(@PathVariable Long id) {
+        LoanView returnedLoan = loanService.returnBook(id);
         return ResponseEntity.ok(returnedLoan);
     }
 
     /**
-     * GET /api/loans/member/{memberId} - Récupère tous les emprunts d'un membre
+     * GET /api/loans/member/{memberId}?after=...&limit=20 - Récupère les emprunts d'un membre (plus récents d'abord)
      */
     @GetMapping("/member/{memberId}")
-    public ResponseEntity<List<Loan>> getLoansByMember(@PathVariable Long memberId) {
-        List<Loan> loans = loanService.getLoansByMember(memberId);
+    public ResponseEntity<CursorPage<LoanView>> getLoansByMember(@PathVariable Long memberId,
+                                                             @RequestParam(required = false) String after,
+                                                             @RequestParam(required = false) Integer limit) {
+        CursorPage<LoanView> loans = loanService.getLoansByMember(memberId, after, limit);
         return ResponseEntity.ok(loans);
     }
 
     /**
-     * GET /api/loans/member/{memberId}/active - Récupère les emprunts actifs d'un membre
+     * GET /api/loans/member/{memberId}/active?after=...&limit=20 - Récupère les emprunts en cours (même en retard) d'un membre page par page
      */
     @GetMapping("/member/{memberId}/active")
-    public ResponseEntity<List<Loan>> getActiveLoansByMember(@PathVariable Long memberId) {
-        List<Loan> loans = loanService.getActiveLoansByMember(memberId);
+    public ResponseEntity<CursorPage<LoanView>> getActiveLoansByMember(@PathVariable Long memberId,
+                                                                   @RequestParam(required = false) String after,
+                                                                   @RequestParam(required = false) Integer limit) {
+        CursorPage<LoanView> loans = loanService.getActiveLoansByMember(memberId, after, limit);
         return ResponseEntity.ok(loans);
     }
 
     /**
-     * GET /api/loans/book/{bookId} - Récupère tous les emprunts d'un livre
+     * GET /api/loans/book/{bookId}?after=...&limit=20 - Récupère les emprunts d'un livre page par page
      */
     @GetMapping("/book/{bookId}")
-    public ResponseEntity<List<Loan>> getLoansByBook(@PathVariable Long bookId) {
-        List<Loan> loans = loanService.getLoansByBook(bookId);
+    public ResponseEntity<CursorPage<LoanView>> getLoansByBook(@PathVariable Long bookId,
+                                                           @RequestParam(required = false) String after,
+                                                           @RequestParam(required = false) Integer limit) {
+        CursorPage<LoanView> loans = loanService.getLoansByBook(bookId, after, limit);
         return ResponseEntity.ok(loans);
     }
 
     /**
-     * GET /api/loans/overdue - Récupère tous les emprunts en retard
+     * GET /api/loans/overdue?after=...&limit=20 - Récupère les emprunts en retard page par page
      */
     @GetMapping("/overdue")
-    public ResponseEntity<List<Loan>> getOverdueLoans() {
-        List<Loan> loans = loanService.getOverdueLoans();
+    public ResponseEntity<CursorPage<LoanView>> getOverdueLoans(@RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) Integer limit) {
+        CursorPage<LoanView> loans = loanService.getOverdueLoans(after, limit);
         return ResponseEntity.ok(loans);
     }
 
+    /**
+     * POST /api/loans/overdue/sweep - Déclenche la détection des retards (ACTIVE → OVERDUE)
+     */
+    @PostMapping("/overdue/sweep")
+    public ResponseEntity<OverdueSweepResult> sweepOverdueLoans() {
+        OverdueSweepResult result = loanService.updateOverdueLoans();
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * GET /api/loans/stats/member/{memberId}/active-count - Compte les emprunts actifs d'un membre
      */
@@ -146,16 +197,8 @@ public class LoanController {
      * (combien de livres il peut encore emprunter avant d'atteindre la limite de 3)
      */
     @GetMapping("/quota/member/{memberId}")
-    public ResponseEntity<Map<String, Object>> getRemainingBorrowQuota(@PathVariable Long memberId) {
-        int remainingQuota = loanService.getRemainingBorrowQuota(memberId);
-        boolean canBorrow = loanService.canMemberBorrow(memberId);
-        
-        Map<String, Object> response = new HashMap<>();
-        response.put("memberId", memberId);
-        response.put("remainingQuota", remainingQuota);
-        response.put("canBorrow", canBorrow);
-        response.put("maxLoansPerMember", 3);
-        
-        return ResponseEntity.ok(response);
+    public ResponseEntity<BorrowQuota> getRemainingBorrowQuota(@PathVariable Long memberId) {
+        BorrowQuota quota = loanService.getBorrowQuota(memberId);
+        return ResponseEntity.ok(quota);
     }
 }
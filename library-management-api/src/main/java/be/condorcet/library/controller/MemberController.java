@@ -1,6 +1,11 @@
 package be.condorcet.library.controller;
 
+import be.condorcet.library.dto.CursorPage;
+import be.condorcet.library.dto.LoanCounterReconciliationResult;
+import be.condorcet.library.dto.MemberDashboard;
+import be.condorcet.library.dto.MemberSummary;
 import be.condorcet.library.model.Member;
+import be.condorcet.library.service.MemberDashboardService;
 import be.condorcet.library.service.MemberService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
@@ -18,17 +23,20 @@ import java.util.List;
 public class MemberController {
 
     private final MemberService memberService;
+    private final MemberDashboardService memberDashboardService;
 
-    public MemberController(MemberService memberService) {
+    public MemberController(MemberService memberService, MemberDashboardService memberDashboardService) {
         this.memberService = memberService;
+        this.memberDashboardService = memberDashboardService;
     }
 
     /**
-     * GET /api/members - Récupère tous les membres
+     * GET /api/members?after=...&limit=20 - Récupère les membres page par page
      */
     @GetMapping
-    public ResponseEntity<List<Member>> getAllMembers() {
-        List<Member> members = memberService.getAllMembers();
+    public ResponseEntity<CursorPage<MemberSummary>> getAllMembers(@RequestParam(required = false) String after,
+                                                            @RequestParam(required = false) Integer limit) {
+        CursorPage<MemberSummary> members = memberService.getAllMembers(after, limit);
         return ResponseEntity.ok(members);
     }
 
@@ -36,17 +44,26 @@ public class MemberController {
      * GET /api/members/{id} - Récupère un membre par ID
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Member> getMemberById(@PathVariable Long id) {
-        Member member = memberService.getMemberById(id);
+    public ResponseEntity<MemberSummary> getMemberById(@PathVariable Long id) {
+        MemberSummary member = memberService.getMemberSummary(id);
         return ResponseEntity.ok(member);
     }
 
+    /**
+     * GET /api/members/{id}/dashboard - Tableau de bord d'un membre (profil, emprunts en cours, quota)
+     */
+    @GetMapping("/{id}/dashboard")
+    public ResponseEntity<MemberDashboard> getMemberDashboard(@PathVariable Long id) {
+        MemberDashboard dashboard = memberDashboardService.getDashboard(id);
+        return ResponseEntity.ok(dashboard);
+    }
+
     /**
      * POST /api/members - Crée un nouveau membre
      */
     @PostMapping
-    public ResponseEntity<Member> createMember(@Valid @RequestBody Member member) {
-        Member createdMember = memberService.createMember(member);
+    public ResponseEntity<MemberSummary> createMember(@Valid @RequestBody Member member) {
+        MemberSummary createdMember = memberService.createMember(member);
         return ResponseEntity.status(HttpStatus.CREATED).body(createdMember);
     }
 
@@ -54,8 +71,8 @@ public class MemberController {
      * PUT /api/members/{id} - Met à jour un membre existant
      */
     @PutMapping("/{id}")
-    public ResponseEntity<Member> updateMember(@PathVariable Long id, @Valid @RequestBody Member memberDetails) {
-        Member updatedMember = memberService.updateMember(id, memberDetails);
+    public ResponseEntity<MemberSummary> updateMember(@PathVariable Long id, @Valid @RequestBody Member memberDetails) {
+        MemberSummary updatedMember = memberService.updateMember(id, memberDetails);
         return ResponseEntity.ok(updatedMember);
     }
 
@@ -72,17 +89,28 @@ public class MemberController {
      * GET /api/members/search/email?email=jean@example.com - Recherche par email
      */
     @GetMapping("/search/email")
-    public ResponseEntity<Member> searchByEmail(@RequestParam String email) {
-        Member member = memberService.getMemberByEmail(email);
+    public ResponseEntity<MemberSummary> searchByEmail(@RequestParam String email) {
+        MemberSummary member = memberService.getMemberByEmail(email);
         return ResponseEntity.ok(member);
     }
 
     /**
-     * GET /api/members/active - Récupère tous les membres actifs
+     * GET /api/members/search/lastname?lastName=lefevre - Recherche par nom de famille (partiel, sans accents)
+     */
+    @GetMapping("/search/lastname")
+    public ResponseEntity<List<MemberSummary>> searchByLastName(@RequestParam String lastName,
+                                                         @RequestParam(required = false) Integer limit) {
+        List<MemberSummary> members = memberService.searchByLastName(lastName, limit);
+        return ResponseEntity.ok(members);
+    }
+
+    /**
+     * GET /api/members/status/active?after=...&limit=20 - Récupère les membres actifs page par page
      */
     @GetMapping("/status/active")
-    public ResponseEntity<List<Member>> getActiveMembers() {
-        List<Member> activeMembers = memberService.getActiveMembers();
+    public ResponseEntity<CursorPage<MemberSummary>> getActiveMembers(@RequestParam(required = false) String after,
+                                                               @RequestParam(required = false) Integer limit) {
+        CursorPage<MemberSummary> activeMembers = memberService.getActiveMembers(after, limit);
         return ResponseEntity.ok(activeMembers);
     }
 
@@ -90,8 +118,8 @@ public class MemberController {
      * POST /api/members/{id}/suspend - Suspend un compte membre
      */
     @PostMapping("/{id}/suspend")
-    public ResponseEntity<Member> suspendMember(@PathVariable Long id) {
-        Member suspendedMember = memberService.suspendMember(id);
+    public ResponseEntity<MemberSummary> suspendMember(@PathVariable Long id) {
+        MemberSummary suspendedMember = memberService.suspendMember(id);
         return ResponseEntity.ok(suspendedMember);
     }
 
@@ -99,8 +127,8 @@ public class MemberController {
      * POST /api/members/{id}/activate - Réactive un compte membre
      */
     @PostMapping("/{id}/activate")
-    public ResponseEntity<Member> activateMember(@PathVariable Long id) {
-        Member activatedMember = memberService.activateMember(id);
+    public ResponseEntity<MemberSummary> activateMember(@PathVariable Long id) {
+        MemberSummary activatedMember = memberService.activateMember(id);
         return ResponseEntity.ok(activatedMember);
     }
 
@@ -112,4 +140,13 @@ public class MemberController {
         long count = memberService.countActiveMembers();
         return ResponseEntity.ok(count);
     }
+
+    /**
+     * POST /api/members/loan-counters/reconcile - Recalcule les compteurs d'emprunts des membres
+     */
+    @PostMapping("/loan-counters/reconcile")
+    public ResponseEntity<LoanCounterReconciliationResult> reconcileLoanCounters() {
+        LoanCounterReconciliationResult result = memberService.reconcileLoanCounters();
+        return ResponseEntity.ok(result);
+    }
 }
@@ -0,0 +1,78 @@
+package be.condorcet.library.controller;
+
+import be.condorcet.library.dto.RecordingStatus;
+import be.condorcet.library.service.FlightRecordingService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DurationFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Contrôleur REST de l'enregistrement JDK Flight Recorder à la demande (réservé aux administrateurs).
+ * Permet de profiler le circuit de prêt en production sans redémarrer la JVM ni y attacher d'outil.
+ */
+@RestController
+@RequestMapping("/api/diagnostics/recording")
+public class RecordingController {
+
+    private final FlightRecordingService flightRecordingService;
+
+    public RecordingController(FlightRecordingService flightRecordingService) {
+        this.flightRecordingService = flightRecordingService;
+    }
+
+    /**
+     * POST /api/diagnostics/recording?settings=profile&duration=5m - Démarre un enregistrement borné
+     */
+    @PostMapping
+    public ResponseEntity<RecordingStatus> start(@RequestParam(defaultValue = "default") String settings,
+                                                 @RequestParam(required = false)
+                                                 @DurationFormat(style = DurationFormat.Style.COMPOSITE) Duration duration) {
+        return ResponseEntity.ok(flightRecordingService.start(settings, duration));
+    }
+
+    /**
+     * GET /api/diagnostics/recording - État de l'enregistrement courant
+     */
+    @GetMapping
+    public ResponseEntity<RecordingStatus> status() {
+        return ResponseEntity.ok(flightRecordingService.status());
+    }
+
+    /**
+     * POST /api/diagnostics/recording/stop - Arrête l'enregistrement (les données restent téléchargeables)
+     */
+    @PostMapping("/stop")
+    public ResponseEntity<RecordingStatus> stop() {
+        return ResponseEntity.ok(flightRecordingService.stop());
+    }
+
+    /**
+     * GET /api/diagnostics/recording/file - Télécharge le fichier .jfr (à ouvrir avec JDK Mission Control ou jfr print)
+     */
+    @GetMapping("/file")
+    public ResponseEntity<Resource> download() {
+        Path file = flightRecordingService.dump();
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        ContentDisposition.attachment().filename(file.getFileName().toString()).build().toString())
+                .body(new FileSystemResource(file));
+    }
+
+    /**
+     * DELETE /api/diagnostics/recording - Ferme l'enregistrement et supprime ses données
+     */
+    @DeleteMapping
+    public ResponseEntity<Void> discard() {
+        flightRecordingService.discard();
+        return ResponseEntity.noContent().build();
+    }
+}
@@ -0,0 +1,415 @@
+package be.condorcet.library.dataset;
+
+import be.condorcet.library.common.Zipf;
+import be.condorcet.library.model.enums.LoanStatus;
+import be.condorcet.library.service.LoanService;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.SplittableRandom;
+
+/**
+ * Générateur de jeu de données de test à l'échelle de la production (profil {@code dataset}).
+ *
+ * Remplace tout le contenu de la base par des auteurs, catégories, membres, livres et emprunts générés
+ * (graine fixe, reproductible), chargés par {@code COPY ... FROM STDIN} dans une seule transaction,
+ * puis arrête l'application. L'activité suit des lois de Zipf : les membres et les livres d'IDs bas
+ * concentrent les emprunts, comme dans le générateur de charge (--members / --books = tailles générées).
+ *
+ * Les invariants de l'API sont respectés : au plus 3 emprunts en cours par membre actif, jamais deux fois
+ * le même livre, exemplaires disponibles = total - emprunts en cours, compteurs des membres à jour.
+ * Les emprunts en cours ont entre 0 et 41 jours : environ la moitié sont échus (statut ACTIVE, la tâche
+ * de détection des retards les passe en OVERDUE en mode STORED).
+ */
+@Component
+@Profile("dataset")
+public class DatasetGenerator implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(DatasetGenerator.class);
+
+    /** Mots des titres, tirés eux aussi selon une loi de Zipf (recherches plus ou moins sélectives). */
+    private static final String[] TITLE_WORDS = {
+            "Voyage", "Nuit", "Étoile", "Mer", "Forêt", "Château", "Été", "Hiver", "Cœur", "Rêve",
+            "Île", "Mémoire", "Théâtre", "Légende", "Jardin", "Rivière", "Histoire", "Secret", "Ombre", "Lumière",
+            "Chemin", "Roi", "Frère", "Prière", "Fenêtre", "Épée", "Ville", "Guerre", "Silence", "Saison",
+            "Monde", "Désert", "Montagne", "Enfance", "Passion", "Orage", "Miroir", "Promesse", "Exil", "Printemps"};
+    private static final String[] TITLE_LINKS = {" de ", " et ", " sans ", " sous ", " pour "};
+    private static final String[] FIRST_NAMES = {
+            "Jules", "Victor", "Émile", "Marguerite", "George", "Albert", "Colette", "Honoré", "Gustave", "Simone",
+            "Alice", "Bob", "Carol", "Léa", "Hugo", "Chloé", "Louis", "Inès", "Nathan", "Camille",
+            "Zoé", "Lucas", "Manon", "Théo", "Sarah", "Noah", "Jeanne", "Arthur", "Élise", "Maxime"};
+    private static final String[] LAST_NAMES = {
+            "Verne", "Hugo", "Zola", "Duras", "Sand", "Camus", "Balzac", "Flaubert", "Beauvoir", "Orwell",
+            "Shelley", "Durand", "Martin", "Leroy", "Dubois", "Lefèvre", "Moreau", "Laurent", "Simon", "Michel",
+            "Garcia", "Bernard", "Thomas", "Petit", "Robert", "Richard", "Dupont", "Lambert", "Fontaine", "Rousseau",
+            "Vincent", "Muller", "Faure", "André", "Mercier", "Blanc", "Guérin", "Boyer", "Chevalier", "Peeters"};
+    private static final String[] NATIONALITIES = {"France", "Belgique", "Suisse", "Canada", "UK", "USA", "Italie", "Espagne"};
+    private static final String[] GENRES = {
+            "Roman", "Policier", "Science-Fiction", "Fantasy", "Histoire", "Biographie", "Poésie", "Théâtre",
+            "Jeunesse", "Bande dessinée", "Philosophie", "Sciences", "Cuisine", "Voyage", "Art", "Musique",
+            "Économie", "Droit", "Informatique", "Santé", "Sport", "Religion", "Psychologie", "Essai",
+            "Horreur", "Dystopie", "Romance", "Aventure", "Humour", "Nature", "Géographie", "Politique",
+            "Éducation", "Manga", "Thriller", "Classique", "Contes", "Mythologie", "Architecture", "Photographie"};
+
+    private static final int LOAN_DAYS = 21;
+    private static final int MAX_RETURN_DAYS = LOAN_DAYS + 14;   // retour au plus tard deux semaines après l'échéance
+    private static final int MAX_OUTSTANDING = LoanService.MAX_ACTIVE_LOANS_PER_MEMBER;
+
+    private final DataSource dataSource;
+    private final ConfigurableApplicationContext context;
+    private final int authors;
+    private final int categories;
+    private final int members;
+    private final int books;
+    private final int loans;
+    private final int activeLoans;
+    private final int historyDays;
+    private final double memberSkew;
+    private final double bookSkew;
+    private final long seed;
+
+    public DatasetGenerator(DataSource dataSource,
+                            ConfigurableApplicationContext context,
+                            @Value("${library.dataset.authors:50000}") int authors,
+                            @Value("${library.dataset.categories:40}") int categories,
+                            @Value("${library.dataset.members:200000}") int members,
+                            @Value("${library.dataset.books:1000000}") int books,
+                            @Value("${library.dataset.loans:5000000}") int loans,
+                            @Value("${library.dataset.active-loans:100000}") int activeLoans,
+                            @Value("${library.dataset.history-days:1095}") int historyDays,
+                            @Value("${library.dataset.member-skew:0.8}") double memberSkew,
+                            @Value("${library.dataset.book-skew:0.9}") double bookSkew,
+                            @Value("${library.dataset.seed:42}") long seed) {
+        if (authors < 1 || categories < 1 || members < 1 || books < 1 || loans < 0 || activeLoans < 0 || historyDays < 1) {
+            throw new IllegalArgumentException("library.dataset : tailles positives attendues");
+        }
+        this.dataSource = dataSource;
+        this.context = context;
+        this.authors = authors;
+        this.categories = categories;
+        this.members = members;
+        this.books = books;
+        this.loans = loans;
+        this.activeLoans = activeLoans;
+        this.historyDays = historyDays;
+        this.memberSkew = memberSkew;
+        this.bookSkew = bookSkew;
+        this.seed = seed;
+    }
+
+    /**
+     * Génère le jeu de données puis arrête l'application (code de sortie 0, ou 1 en cas d'échec).
+     */
+    @Override
+    public void run(ApplicationArguments args) {
+        int exitCode = 0;
+        try {
+            generate();
+        } catch (SQLException e) {
+            log.error("Génération du jeu de données interrompue, base inchangée", e);
+            exitCode = 1;
+        }
+        int code = exitCode;
+        System.exit(SpringApplication.exit(context, () -> code));
+    }
+
+    /**
+     * Prépare les emprunts en cours et les compteurs en mémoire, puis copie les six tables.
+     * Les compteurs étant connus avant la copie, aucune ligne n'est mise à jour après coup.
+     */
+    public void generate() throws SQLException {
+        long start = System.nanoTime();
+        log.info("Jeu de données : {} auteurs, {} catégories, {} membres, {} livres, {} emprunts rendus, "
+                        + "{} en cours (Zipf membres {}, livres {}, graine {})",
+                authors, categories, members, books, loans, activeLoans, memberSkew, bookSkew, seed);
+
+        SplittableRandom root = new SplittableRandom(seed);
+        LocalDate today = LocalDate.now();
+        Zipf memberZipf = new Zipf(members, memberSkew);
+        Zipf bookZipf = new Zipf(books, bookSkew);
+
+        byte[] totalCopies = new byte[books + 1];
+        SplittableRandom copiesRandom = root.split();
+        for (int id = 1; id <= books; id++) {
+            totalCopies[id] = copiesFor(id, copiesRandom);
+        }
+
+        // Emprunts en cours : tirages rejetés tant qu'ils violeraient une règle d'emprunt
+        int[] outstandingMember = new int[activeLoans];
+        int[] outstandingBook = new int[activeLoans];
+        byte[] memberOutstanding = new byte[members + 1];
+        byte[] bookOutstanding = new byte[books + 1];
+        int[] memberBooks = new int[(members + 1) * MAX_OUTSTANDING];
+        SplittableRandom activeRandom = root.split();
+        int placed = 0;
+        for (long attempt = 0; placed < activeLoans && attempt < 20L * activeLoans; attempt++) {
+            int member = memberZipf.sample(activeRandom);
+            int book = bookZipf.sample(activeRandom);
+            if (!isActive(member) || memberOutstanding[member] >= MAX_OUTSTANDING
+                    || bookOutstanding[book] >= totalCopies[book] || holds(memberBooks, memberOutstanding, member, book)) {
+                continue;
+            }
+            memberBooks[member * MAX_OUTSTANDING + memberOutstanding[member]] = book;
+            memberOutstanding[member]++;
+            bookOutstanding[book]++;
+            outstandingMember[placed] = member;
+            outstandingBook[placed] = book;
+            placed++;
+        }
+        if (placed < activeLoans) {
+            log.warn("Jeu de données : {} emprunts en cours placés sur {} demandés (membres ou exemplaires saturés)",
+                    placed, activeLoans);
+        }
+
+        // Historique : premier passage pour compter les emprunts de chaque membre, le second (même graine) les écrit
+        long historySeed = root.nextLong();
+        int[] memberHistory = new int[members + 1];
+        SplittableRandom countRandom = new SplittableRandom(historySeed);
+        for (int i = 0; i < loans; i++) {
+            memberHistory[memberZipf.sample(countRandom)]++;
+        }
+
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setAutoCommit(false);
+            try {
+                CopyManager copyManager = connection.unwrap(PGConnection.class).getCopyAPI();
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("TRUNCATE book_categories, loans, books, categories, authors, members");
+                }
+
+                SplittableRandom random = root.split();
+                try (CopyWriter copy = new CopyWriter(copyManager, "authors",
+                        "id, first_name, last_name, nationality, birth_year")) {
+                    for (int id = 1; id <= authors; id++) {
+                        copy.add(id).add(pick(FIRST_NAMES, random)).add(pick(LAST_NAMES, random))
+                                .add(pick(NATIONALITIES, random)).add(1750 + random.nextInt(250)).endRow();
+                    }
+                }
+
+                try (CopyWriter copy = new CopyWriter(copyManager, "categories", "id, name, description")) {
+                    for (int id = 1; id <= categories; id++) {
+                        String genre = GENRES[(id - 1) % GENRES.length];
+                        String name = id <= GENRES.length ? genre : genre + " " + ((id - 1) / GENRES.length + 1);
+                        copy.add(id).add(name).add("Catégorie générée : " + name).endRow();
+                    }
+                }
+
+                try (CopyWriter copy = new CopyWriter(copyManager, "members",
+                        "id, email, first_name, last_name, membership_date, active, active_loan_count, total_loan_count")) {
+                    for (int id = 1; id <= members; id++) {
+                        copy.add(id).add("membre" + id + "@example.com")
+                                .add(pick(FIRST_NAMES, random)).add(pick(LAST_NAMES, random))
+                                .add(today.minusDays(random.nextInt(3650)))
+                                .add(isActive(id) ? "t" : "f")
+                                .add(memberOutstanding[id]).add(memberHistory[id] + memberOutstanding[id]).endRow();
+                    }
+                }
+
+                // Auteurs prolifiques (IDs bas) et titres faits de mots courants
+                Zipf authorZipf = new Zipf(authors, 1.0);
+                Zipf wordZipf = new Zipf(TITLE_WORDS.length, 0.8);
+                try (CopyWriter copy = new CopyWriter(copyManager, "books",
+                        "id, isbn, title, publication_year, available_copies, total_copies, author_id")) {
+                    for (int id = 1; id <= books; id++) {
+                        copy.add(id).add(isbn(id)).add(title(wordZipf, random))
+                                .add(2025 - (int) (Math.pow(random.nextDouble(), 3) * 225))
+                                .add(totalCopies[id] - bookOutstanding[id]).add(totalCopies[id])
+                                .add(authorZipf.sample(random)).endRow();
+                    }
+                }
+
+                Zipf categoryZipf = new Zipf(categories, 0.8);
+                try (CopyWriter copy = new CopyWriter(copyManager, "book_categories", "book_id, category_id")) {
+                    for (int id = 1; id <= books; id++) {
+                        int first = categoryZipf.sample(random);
+                        copy.add(id).add(first).endRow();
+                        int second = categoryZipf.sample(random);
+                        if (second != first && random.nextInt(10) < 4) {
+                            copy.add(id).add(second).endRow();
+                        }
+                    }
+                }
+
+                // Historique en ordre chronologique (les IDs croissent avec la date), quelques retours en retard ;
+                // la fenêtre se termine assez tôt pour que tous les retours soient passés (au plus tard hier)
+                LocalDate historyStart = today.minusDays((long) historyDays + MAX_RETURN_DAYS);
+                SplittableRandom historyRandom = new SplittableRandom(historySeed);
+                try (CopyWriter copy = new CopyWriter(copyManager, "loans",
+                        "id, loan_date, due_date, return_date, status, member_id, book_id")) {
+                    for (int i = 0; i < loans; i++) {
+                        int member = memberZipf.sample(historyRandom);
+                        LocalDate loanDate = historyStart.plusDays((long) i * historyDays / Math.max(1, loans));
+                        LocalDate returnDate = loanDate.plusDays(1 + random.nextInt(MAX_RETURN_DAYS));
+                        copy.add(i + 1).add(loanDate).add(loanDate.plusDays(LOAN_DAYS)).add(returnDate)
+                                .add(LoanStatus.RETURNED.name()).add(member).add(bookZipf.sample(random)).endRow();
+                    }
+                    for (int i = 0; i < placed; i++) {
+                        LocalDate loanDate = today.minusDays(random.nextInt(2 * LOAN_DAYS));
+                        copy.add(loans + i + 1).add(loanDate).add(loanDate.plusDays(LOAN_DAYS)).addNull()
+                                .add(LoanStatus.ACTIVE.name()).add(outstandingMember[i]).add(outstandingBook[i]).endRow();
+                    }
+                }
+
+                try (Statement statement = connection.createStatement()) {
+                    setSequence(statement, "authors_seq", authors);
+                    setSequence(statement, "categories_seq", categories);
+                    setSequence(statement, "members_seq", members);
+                    setSequence(statement, "books_seq", books);
+                    setSequence(statement, "loans_seq", (long) loans + placed);
+                    statement.execute("ANALYZE authors, categories, members, books, book_categories, loans");
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+        log.info("Jeu de données généré en {} s", (System.nanoTime() - start) / 1_000_000_000);
+    }
+
+    /** Livres populaires (IDs bas) en plusieurs exemplaires, les autres en 1 à 3. */
+    private byte copiesFor(int id, SplittableRandom random) {
+        if (id <= Math.max(1, books / 1000)) {
+            return (byte) (8 + random.nextInt(5));
+        }
+        if (id <= books / 50) {
+            return (byte) (3 + random.nextInt(3));
+        }
+        return (byte) (1 + random.nextInt(3));
+    }
+
+    /** Un membre sur 25 est inactif et n'a aucun emprunt en cours. */
+    private static boolean isActive(int memberId) {
+        return memberId % 25 != 0;
+    }
+
+    private static boolean holds(int[] memberBooks, byte[] memberOutstanding, int member, int book) {
+        for (int k = 0; k < memberOutstanding[member]; k++) {
+            if (memberBooks[member * MAX_OUTSTANDING + k] == book) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String pick(String[] values, SplittableRandom random) {
+        return values[random.nextInt(values.length)];
+    }
+
+    private static String title(Zipf wordZipf, SplittableRandom random) {
+        String title = TITLE_WORDS[wordZipf.sample(random) - 1];
+        if (random.nextInt(10) < 7) {
+            title += pick(TITLE_LINKS, random) + TITLE_WORDS[wordZipf.sample(random) - 1].toLowerCase(Locale.ROOT);
+        }
+        if (random.nextInt(10) == 0) {
+            title += ", tome " + (2 + random.nextInt(8));
+        }
+        return title;
+    }
+
+    /** ISBN-13 valide (préfixe 979, clé de contrôle calculée), unique par livre. */
+    static String isbn(int id) {
+        String digits = String.format("979%09d", id);
+        int sum = 0;
+        for (int i = 0; i < 12; i++) {
+            sum += (digits.charAt(i) - '0') * (i % 2 == 0 ? 1 : 3);
+        }
+        return "979-" + digits.substring(3) + "-" + (10 - sum % 10) % 10;
+    }
+
+    /** Séquence « pooled » placée au-delà du dernier ID généré (voir db/identity-to-sequences.sql). */
+    private static void setSequence(Statement statement, String sequence, long maxId) throws SQLException {
+        statement.execute("SELECT setval('" + sequence + "', " + (maxId + 50) + ")");
+    }
+
+    /**
+     * Flux COPY d'une table, au format texte (tabulations, \N pour NULL), envoyé par blocs d'environ 1 Mo.
+     * FREEZE : la table vient d'être vidée dans la même transaction, les lignes sont écrites déjà gelées
+     * (pas de réécriture par le premier VACUUM). Les valeurs générées ne contiennent ni tabulation ni antislash.
+     */
+    private static final class CopyWriter implements AutoCloseable {
+
+        private static final int FLUSH_CHARS = 1 << 20;
+
+        private final CopyIn copy;
+        private final String table;
+        private final StringBuilder buffer = new StringBuilder(FLUSH_CHARS + 4096);
+        private final long start = System.nanoTime();
+        private boolean rowStarted;
+
+        CopyWriter(CopyManager copyManager, String table, String columns) throws SQLException {
+            this.table = table;
+            this.copy = copyManager.copyIn("COPY " + table + " (" + columns + ") FROM STDIN WITH (FREEZE)");
+        }
+
+        CopyWriter add(long value) {
+            separator();
+            buffer.append(value);
+            return this;
+        }
+
+        CopyWriter add(Object value) {
+            separator();
+            buffer.append(value);
+            return this;
+        }
+
+        CopyWriter addNull() {
+            separator();
+            buffer.append("\\N");
+            return this;
+        }
+
+        void endRow() throws SQLException {
+            buffer.append('\n');
+            rowStarted = false;
+            if (buffer.length() >= FLUSH_CHARS) {
+                flush();
+            }
+        }
+
+        private void separator() {
+            if (rowStarted) {
+                buffer.append('\t');
+            }
+            rowStarted = true;
+        }
+
+        private void flush() throws SQLException {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copy.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+
+        @Override
+        public void close() throws SQLException {
+            try {
+                flush();
+                long rows = copy.endCopy();
+                log.info("Jeu de données : {} ligne(s) copiée(s) dans {} en {} ms",
+                        rows, table, (System.nanoTime() - start) / 1_000_000);
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+        }
+    }
+}
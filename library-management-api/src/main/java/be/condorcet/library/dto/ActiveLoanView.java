@@ -0,0 +1,23 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.model.enums.LoanStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Projection d'un emprunt en cours avec le titre du livre, pour l'écran d'un membre.
+ * Le statut est le statut effectif : un emprunt ACTIVE échu est présenté comme OVERDUE.
+ */
+public record ActiveLoanView(Long loanId,
+                             Long bookId,
+                             String bookTitle,
+                             LocalDate loanDate,
+                             LocalDate dueDate,
+                             LoanStatus status) {
+
+    public ActiveLoanView {
+        if (status == LoanStatus.ACTIVE && LocalDate.now().isAfter(dueDate)) {
+            status = LoanStatus.OVERDUE;
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.model.Author;
+
+/**
+ * Auteur tel qu'il apparaît dans la représentation d'un livre.
+ */
+public record AuthorSummary(Long id,
+                            String firstName,
+                            String lastName,
+                            String nationality,
+                            Integer birthYear) {
+
+    public static AuthorSummary of(Author author) {
+        return new AuthorSummary(author.getId(), author.getFirstName(), author.getLastName(),
+                author.getNationality(), author.getBirthYear());
+    }
+}
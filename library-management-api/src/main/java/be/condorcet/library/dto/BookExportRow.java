@@ -0,0 +1,15 @@
+package be.condorcet.library.dto;
+
+/**
+ * Ligne plate de l'export du catalogue (un livre et son auteur, sans les catégories).
+ */
+public record BookExportRow(Long id,
+                            String isbn,
+                            String title,
+                            Integer publicationYear,
+                            Integer totalCopies,
+                            Integer availableCopies,
+                            Long authorId,
+                            String authorFirstName,
+                            String authorLastName) {
+}
@@ -0,0 +1,31 @@
+package be.condorcet.library.dto;
+
+import java.util.List;
+
+/**
+ * Bilan d'un import de catalogue.
+ *
+ * @param rowsRead le nombre de lignes de données lues
+ * @param imported le nombre de livres créés
+ * @param rejected le nombre de lignes rejetées
+ * @param errors le détail des lignes rejetées (limité aux premières erreurs)
+ * @param errorsTruncated true si des erreurs ont été omises du détail
+ * @param durationMs la durée totale en millisecondes
+ */
+public record BookImportReport(long rowsRead,
+                               long imported,
+                               long rejected,
+                               List<RowError> errors,
+                               boolean errorsTruncated,
+                               long durationMs) {
+
+    /**
+     * Erreur sur une ligne du fichier.
+     *
+     * @param line le numéro de ligne dans le fichier
+     * @param isbn l'ISBN de la ligne (s'il a pu être lu)
+     * @param message la raison du rejet
+     */
+    public record RowError(long line, String isbn, String message) {
+    }
+}
@@ -0,0 +1,16 @@
+package be.condorcet.library.dto;
+
+import java.util.List;
+
+/**
+ * Ligne d'un fichier d'import de catalogue (CSV ou NDJSON).
+ * L'auteur et les catégories sont désignés par leur nom : ils sont créés s'ils n'existent pas.
+ */
+public record BookImportRow(String isbn,
+                            String title,
+                            Integer publicationYear,
+                            Integer totalCopies,
+                            String authorFirstName,
+                            String authorLastName,
+                            List<String> categories) {
+}
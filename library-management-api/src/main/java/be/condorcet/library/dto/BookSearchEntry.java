@@ -0,0 +1,7 @@
+package be.condorcet.library.dto;
+
+/**
+ * Projection minimale d'un livre pour l'index de recherche en mémoire.
+ */
+public record BookSearchEntry(Long id, String title, Long authorId, String authorFirstName, String authorLastName) {
+}
@@ -0,0 +1,15 @@
+package be.condorcet.library.dto;
+
+/**
+ * Suggestion de la saisie semi-automatique : un titre de livre ou un nom d'auteur.
+ *
+ * @param text le texte à afficher
+ * @param type TITLE ou AUTHOR
+ */
+public record BookSuggestion(String text, Type type) {
+
+    public enum Type {
+        TITLE,
+        AUTHOR
+    }
+}
@@ -0,0 +1,46 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.model.Book;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Représentation d'un livre renvoyée par l'API, construite dans la transaction du service.
+ *
+ * @param categories les catégories triées par ID (absentes quand le livre est imbriqué dans un emprunt)
+ */
+public record BookView(Long id,
+                       String isbn,
+                       String title,
+                       Integer publicationYear,
+                       Integer availableCopies,
+                       Integer totalCopies,
+                       AuthorSummary author,
+                       @JsonInclude(JsonInclude.Include.NON_NULL) List<CategorySummary> categories) {
+
+    /**
+     * Livre complet, avec son auteur et ses catégories.
+     */
+    public static BookView of(Book book) {
+        List<CategorySummary> categories = book.getCategories().stream()
+                .map(CategorySummary::of)
+                .sorted(Comparator.comparing(CategorySummary::id))
+                .toList();
+        return new BookView(book.getId(), book.getIsbn(), book.getTitle(), book.getPublicationYear(),
+                book.getAvailableCopies(), book.getTotalCopies(), author(book), categories);
+    }
+
+    /**
+     * Livre sans ses catégories (représentation imbriquée dans un emprunt).
+     */
+    public static BookView withoutCategories(Book book) {
+        return new BookView(book.getId(), book.getIsbn(), book.getTitle(), book.getPublicationYear(),
+                book.getAvailableCopies(), book.getTotalCopies(), author(book), null);
+    }
+
+    private static AuthorSummary author(Book book) {
+        return book.getAuthor() == null ? null : AuthorSummary.of(book.getAuthor());
+    }
+}
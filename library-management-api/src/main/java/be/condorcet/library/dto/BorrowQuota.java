@@ -0,0 +1,20 @@
+package be.condorcet.library.dto;
+
+/**
+ * Quota d'emprunt d'un membre.
+ *
+ * @param memberId l'ID du membre
+ * @param remainingQuota le nombre de livres que le membre peut encore emprunter
+ * @param canBorrow true si le membre peut emprunter au moins un livre
+ * @param maxLoansPerMember la limite d'emprunts simultanés
+ */
+public record BorrowQuota(Long memberId, int remainingQuota, boolean canBorrow, int maxLoansPerMember) {
+
+    /**
+     * Calcule le quota à partir du nombre d'emprunts en cours du membre.
+     */
+    public static BorrowQuota of(Long memberId, int activeLoans, int maxLoansPerMember) {
+        int remaining = Math.max(0, maxLoansPerMember - activeLoans);
+        return new BorrowQuota(memberId, remaining, remaining > 0, maxLoansPerMember);
+    }
+}
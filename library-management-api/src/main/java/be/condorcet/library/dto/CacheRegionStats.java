@@ -0,0 +1,18 @@
+package be.condorcet.library.dto;
+
+/**
+ * Statistiques d'une région du cache de second niveau Hibernate.
+ *
+ * @param region le nom de la région (voir ehcache.xml)
+ * @param hits les lectures servies par le cache
+ * @param misses les lectures absentes du cache (parties en base)
+ * @param puts les entrées ajoutées au cache
+ * @param hitRatio hits / (hits + misses), 0 si aucune lecture
+ */
+public record CacheRegionStats(String region, long hits, long misses, long puts, double hitRatio) {
+
+    public static CacheRegionStats of(String region, long hits, long misses, long puts) {
+        long reads = hits + misses;
+        return new CacheRegionStats(region, hits, misses, puts, reads == 0 ? 0 : (double) hits / reads);
+    }
+}
@@ -0,0 +1,13 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.model.Category;
+
+/**
+ * Catégorie telle qu'elle apparaît dans la représentation d'un livre.
+ */
+public record CategorySummary(Long id, String name, String description) {
+
+    public static CategorySummary of(Category category) {
+        return new CategorySummary(category.getId(), category.getName(), category.getDescription());
+    }
+}
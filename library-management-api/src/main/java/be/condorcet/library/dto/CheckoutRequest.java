@@ -0,0 +1,25 @@
+package be.condorcet.library.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Demande d'emprunt de plusieurs livres en une fois (panier du guichet).
+ *
+ * @param memberId l'ID du membre
+ * @param bookIds les IDs des livres à emprunter
+ * @param dueDate la date de retour prévue, commune à tous les livres
+ */
+public record CheckoutRequest(
+        @NotNull(message = "L'ID du membre est obligatoire")
+        Long memberId,
+
+        @NotEmpty(message = "Le panier doit contenir au moins un livre")
+        List<@NotNull Long> bookIds,
+
+        @NotNull(message = "La date de retour prévue est obligatoire")
+        LocalDate dueDate) {
+}
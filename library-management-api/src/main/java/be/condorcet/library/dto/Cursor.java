@@ -0,0 +1,94 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.exception.BusinessException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Base64;
+
+/**
+ * Encodage et décodage des curseurs de pagination.
+ * Un curseur est la clé du dernier élément lu (id, ou date + id), encodée en Base64 URL-safe
+ * pour rester opaque côté client.
+ */
+public final class Cursor {
+
+    /** Taille de page par défaut. */
+    public static final int DEFAULT_LIMIT = 20;
+
+    /** Taille de page maximale acceptée. */
+    public static final int MAX_LIMIT = 100;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private Cursor() {
+    }
+
+    /**
+     * Clé composite (date, id) pour les listes triées par date.
+     */
+    public record DateKey(LocalDate date, Long id) {
+    }
+
+    /**
+     * Ramène la taille de page demandée dans l'intervalle [1, MAX_LIMIT].
+     */
+    public static int limit(Integer requested) {
+        if (requested == null) {
+            return DEFAULT_LIMIT;
+        }
+        return Math.max(1, Math.min(requested, MAX_LIMIT));
+    }
+
+    /**
+     * Encode un curseur basé sur l'id.
+     */
+    public static String ofId(Long id) {
+        return encode(String.valueOf(id));
+    }
+
+    /**
+     * Décode un curseur basé sur l'id (0 si aucun curseur : première page).
+     */
+    public static long id(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            return Long.parseLong(decode(cursor));
+        } catch (IllegalArgumentException e) {
+            throw new BusinessException("Curseur de pagination invalide : " + cursor, e);
+        }
+    }
+
+    /**
+     * Encode un curseur composite (date, id).
+     */
+    public static String ofDate(LocalDate date, Long id) {
+        return encode(date + ":" + id);
+    }
+
+    /**
+     * Décode un curseur composite (null si aucun curseur : première page).
+     */
+    public static DateKey date(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String[] parts = decode(cursor).split(":", 2);
+            return new DateKey(LocalDate.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException e) {
+            throw new BusinessException("Curseur de pagination invalide : " + cursor, e);
+        }
+    }
+
+    private static String encode(String raw) {
+        return ENCODER.encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decode(String cursor) {
+        return new String(DECODER.decode(cursor), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,37 @@
+package be.condorcet.library.dto;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Page de résultats obtenue par pagination « keyset » (curseur).
+ * Le client renvoie {@code nextCursor} dans le paramètre {@code after} pour obtenir la page suivante.
+ *
+ * @param items les éléments de la page
+ * @param nextCursor le curseur opaque de la page suivante (null s'il n'y en a pas)
+ * @param hasMore true s'il reste des éléments après cette page
+ */
+public record CursorPage<T>(List<T> items, String nextCursor, boolean hasMore) {
+
+    /**
+     * Construit une page à partir des lignes lues en base.
+     * Le repository doit lire {@code limit + 1} lignes : la ligne en trop indique seulement qu'il existe une suite.
+     *
+     * @param fetched les lignes lues (au plus limit + 1)
+     * @param limit la taille de page demandée
+     * @param cursorOf calcule le curseur à partir du dernier élément retourné
+     */
+    public static <T> CursorPage<T> of(List<T> fetched, int limit, Function<T, String> cursorOf) {
+        boolean hasMore = fetched.size() > limit;
+        List<T> items = hasMore ? fetched.subList(0, limit) : fetched;
+        String nextCursor = hasMore ? cursorOf.apply(items.get(items.size() - 1)) : null;
+        return new CursorPage<>(List.copyOf(items), nextCursor, hasMore);
+    }
+
+    /**
+     * Transforme les éléments de la page (entités vers représentations), en gardant le curseur.
+     */
+    public <R> CursorPage<R> map(Function<T, R> mapper) {
+        return new CursorPage<>(items.stream().map(mapper).toList(), nextCursor, hasMore);
+    }
+}
@@ -0,0 +1,11 @@
+package be.condorcet.library.dto;
+
+/**
+ * Bilan d'un passage de la réconciliation des compteurs d'emprunts des membres.
+ *
+ * @param repairedMembers le nombre de membres dont les compteurs ont été corrigés
+ * @param chunks le nombre de tranches (transactions) exécutées
+ * @param durationMs la durée totale en millisecondes
+ */
+public record LoanCounterReconciliationResult(int repairedMembers, int chunks, long durationMs) {
+}
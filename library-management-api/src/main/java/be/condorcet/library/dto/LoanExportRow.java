@@ -0,0 +1,21 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.model.enums.LoanStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Ligne plate de l'export des emprunts (l'emprunt, le membre et le livre concernés).
+ * Le statut est celui stocké en base.
+ */
+public record LoanExportRow(Long id,
+                            LocalDate loanDate,
+                            LocalDate dueDate,
+                            LocalDate returnDate,
+                            LoanStatus status,
+                            Long memberId,
+                            String memberEmail,
+                            Long bookId,
+                            String bookIsbn,
+                            String bookTitle) {
+}
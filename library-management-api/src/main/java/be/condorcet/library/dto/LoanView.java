@@ -0,0 +1,47 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.model.Loan;
+import be.condorcet.library.model.enums.LoanStatus;
+
+import java.time.LocalDate;
+
+/**
+ * Représentation d'un emprunt renvoyée par l'API, avec le membre et le livre (sans ses catégories).
+ * Construite depuis l'entité pour les listes (chargées avec leur graphe), ou projetée en une requête
+ * pour un emprunt seul (LoanRepository.findViewById).
+ *
+ * @param status le statut effectif : un emprunt ACTIVE échu est présenté comme OVERDUE
+ */
+public record LoanView(Long id,
+                       LocalDate loanDate,
+                       LocalDate dueDate,
+                       LocalDate returnDate,
+                       LoanStatus status,
+                       MemberSummary member,
+                       BookView book) {
+
+    /**
+     * Constructeur de projection JPQL : colonnes de l'emprunt, du membre, du livre et de son auteur.
+     */
+    public LoanView(Long id, LocalDate loanDate, LocalDate dueDate, LocalDate returnDate, LoanStatus status,
+                    Long memberId, String email, String firstName, String lastName, LocalDate membershipDate,
+                    Boolean active, Integer activeLoanCount, Integer totalLoanCount,
+                    Long bookId, String isbn, String title, Integer publicationYear,
+                    Integer availableCopies, Integer totalCopies,
+                    Long authorId, String authorFirstName, String authorLastName,
+                    String authorNationality, Integer authorBirthYear) {
+        this(id, loanDate, dueDate, returnDate,
+                status == LoanStatus.ACTIVE && returnDate == null && LocalDate.now().isAfter(dueDate)
+                        ? LoanStatus.OVERDUE : status,
+                new MemberSummary(memberId, email, firstName, lastName, membershipDate, active,
+                        activeLoanCount, totalLoanCount),
+                new BookView(bookId, isbn, title, publicationYear, availableCopies, totalCopies,
+                        new AuthorSummary(authorId, authorFirstName, authorLastName,
+                                authorNationality, authorBirthYear), null));
+    }
+
+    public static LoanView of(Loan loan) {
+        return new LoanView(loan.getId(), loan.getLoanDate(), loan.getDueDate(), loan.getReturnDate(),
+                loan.getEffectiveStatus(), MemberSummary.of(loan.getMember()), BookView.withoutCategories(loan.getBook()));
+    }
+}
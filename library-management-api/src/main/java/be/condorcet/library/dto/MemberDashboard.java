@@ -0,0 +1,9 @@
+package be.condorcet.library.dto;
+
+import java.util.List;
+
+/**
+ * Tableau de bord d'un membre : profil, emprunts en cours et quota, assemblés en une seule réponse.
+ */
+public record MemberDashboard(MemberSummary member, List<ActiveLoanView> activeLoans, BorrowQuota quota) {
+}
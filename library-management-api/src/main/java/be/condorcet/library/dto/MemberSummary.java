@@ -0,0 +1,23 @@
+package be.condorcet.library.dto;
+
+import be.condorcet.library.model.Member;
+
+import java.time.LocalDate;
+
+/**
+ * Projection du profil d'un membre, avec ses compteurs d'emprunts.
+ */
+public record MemberSummary(Long id,
+                            String email,
+                            String firstName,
+                            String lastName,
+                            LocalDate membershipDate,
+                            Boolean active,
+                            Integer activeLoanCount,
+                            Integer totalLoanCount) {
+
+    public static MemberSummary of(Member member) {
+        return new MemberSummary(member.getId(), member.getEmail(), member.getFirstName(), member.getLastName(),
+                member.getMembershipDate(), member.getActive(), member.getActiveLoanCount(), member.getTotalLoanCount());
+    }
+}
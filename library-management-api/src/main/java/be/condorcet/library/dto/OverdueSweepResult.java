@@ -0,0 +1,11 @@
+package be.condorcet.library.dto;
+
+/**
+ * Bilan d'un passage de la tâche de détection des retards.
+ *
+ * @param updatedLoans le nombre d'emprunts passés de ACTIVE à OVERDUE
+ * @param chunks le nombre de lots (transactions) exécutés
+ * @param durationMs la durée totale en millisecondes
+ */
+public record OverdueSweepResult(int updatedLoans, int chunks, long durationMs) {
+}
@@ -0,0 +1,31 @@
+package be.condorcet.library.dto;
+
+import jdk.jfr.Recording;
+
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ * État de l'enregistrement JDK Flight Recorder à la demande.
+ *
+ * @param id l'identifiant de l'enregistrement dans la JVM
+ * @param state NEW, RUNNING, STOPPED ou CLOSED
+ * @param settings la configuration JFR utilisée (default ou profile)
+ * @param startTime le début de l'enregistrement (null s'il n'a pas démarré)
+ * @param stopTime la fin effective ou prévue (null si aucune durée n'est fixée)
+ * @param maxSizeBytes la taille maximale conservée sur disque
+ * @param sizeBytes la taille actuelle des données enregistrées
+ */
+public record RecordingStatus(long id, String state, String settings, Instant startTime, Instant stopTime,
+                              long maxSizeBytes, long sizeBytes) {
+
+    public static RecordingStatus of(Recording recording, String settings) {
+        Instant stopTime = recording.getStopTime();
+        Duration duration = recording.getDuration();
+        if (stopTime == null && duration != null && recording.getStartTime() != null) {
+            stopTime = recording.getStartTime().plus(duration);
+        }
+        return new RecordingStatus(recording.getId(), recording.getState().name(), settings,
+                recording.getStartTime(), stopTime, recording.getMaxSize(), recording.getSize());
+    }
+}
@@ -0,0 +1,18 @@
+package be.condorcet.library.dto;
+
+/**
+ * Statistiques d'un filtre de Bloom placé devant une vérification d'unicité.
+ *
+ * @param name la valeur contrôlée (isbn, email, author)
+ * @param ready false tant que le filtre est en construction (toutes les vérifications partent en base)
+ * @param checks le nombre de vérifications
+ * @param skippedQueries les vérifications tranchées par le filtre (absent à coup sûr), sans requête
+ * @param falsePositives les « peut-être présent » que la base a démentis
+ * @param observedFalsePositiveRate falsePositives / (falsePositives + skippedQueries) : part des valeurs
+ *                                  nouvelles qui ont quand même coûté une requête
+ * @param expectedFalsePositiveRate le taux théorique d'après le remplissage du filtre
+ */
+public record UniquenessFilterStats(String name, boolean ready, long checks, long skippedQueries,
+                                    long falsePositives, double observedFalsePositiveRate,
+                                    double expectedFalsePositiveRate) {
+}
@@ -6,11 +6,34 @@ package be.condorcet.library.exception;
  */
 public class BusinessException extends RuntimeException {
 
+    /**
+     * Règle d'emprunt violée (étiquette de la métrique library.loans.rejected).
+     */
+    public enum Rule {
+        QUOTA,      // limite d'emprunts simultanés atteinte
+        NO_COPIES,  // plus d'exemplaire disponible
+        SUSPENDED,  // compte du membre suspendu
+        DUPLICATE,  // livre déjà emprunté par le membre (ou présent deux fois dans le panier)
+        OTHER
+    }
+
+    private final Rule rule;
+
     public BusinessException(String message) {
+        this(Rule.OTHER, message);
+    }
+
+    public BusinessException(Rule rule, String message) {
         super(message);
+        this.rule = rule;
     }
 
     public BusinessException(String message, Throwable cause) {
         super(message, cause);
+        this.rule = Rule.OTHER;
+    }
+
+    public Rule getRule() {
+        return rule;
     }
 }
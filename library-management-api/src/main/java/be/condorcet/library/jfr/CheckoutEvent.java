@@ -0,0 +1,21 @@
+package be.condorcet.library.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Emprunt d'un ou plusieurs livres (POST /api/loans et panier du guichet).
+ */
+@Name("be.condorcet.library.Checkout")
+@Label("Checkout")
+public class CheckoutEvent extends CirculationEvent {
+
+    @Label("Member Id")
+    public long memberId;
+
+    @Label("Book Ids")
+    public String bookIds;
+
+    @Label("Book Count")
+    public int bookCount;
+}
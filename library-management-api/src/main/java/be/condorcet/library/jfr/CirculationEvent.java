@@ -0,0 +1,34 @@
+package be.condorcet.library.jfr;
+
+import be.condorcet.library.exception.BusinessException;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Base des événements JDK Flight Recorder du circuit de prêt.
+ *
+ * Chaque opération ouvre son événement avec {@link #begin()} et le valide dans un bloc finally :
+ * la durée est mesurée par JFR, le résultat vaut OK sauf si l'opération lève une exception.
+ * La durée couvre l'appel de service, pas la validation de la transaction qui l'entoure.
+ * Hors enregistrement, {@code commit()} ne coûte presque rien (événement désactivé).
+ */
+@Category({"Library", "Circulation"})
+@StackTrace(false)
+public abstract class CirculationEvent extends Event {
+
+    public static final String OK = "OK";
+
+    @Label("Outcome")
+    @Description("OK, ou la règle métier / l'exception qui a fait échouer l'opération")
+    public String outcome = OK;
+
+    /**
+     * Enregistre l'échec de l'opération : la règle métier violée, sinon le type d'exception.
+     */
+    public void fail(RuntimeException e) {
+        outcome = e instanceof BusinessException business ? business.getRule().name() : e.getClass().getSimpleName();
+    }
+}
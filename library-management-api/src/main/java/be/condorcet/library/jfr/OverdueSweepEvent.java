@@ -0,0 +1,21 @@
+package be.condorcet.library.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Passage de la tâche de détection des retards (planifié ou déclenché à la demande).
+ */
+@Name("be.condorcet.library.OverdueSweep")
+@Label("Overdue Sweep")
+public class OverdueSweepEvent extends CirculationEvent {
+
+    @Label("Mode")
+    public String mode;
+
+    @Label("Updated Loans")
+    public int updatedLoans;
+
+    @Label("Chunks")
+    public int chunks;
+}
@@ -0,0 +1,21 @@
+package be.condorcet.library.jfr;
+
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Retour d'un emprunt. Membre et livre ne sont connus qu'une fois l'emprunt lu (0 sinon).
+ */
+@Name("be.condorcet.library.Return")
+@Label("Return")
+public class ReturnEvent extends CirculationEvent {
+
+    @Label("Loan Id")
+    public long loanId;
+
+    @Label("Member Id")
+    public long memberId;
+
+    @Label("Book Id")
+    public long bookId;
+}
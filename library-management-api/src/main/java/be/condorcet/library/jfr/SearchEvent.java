@@ -0,0 +1,26 @@
+package be.condorcet.library.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recherche dans le catalogue : index en mémoire (title), base (text) ou suggestions (suggest).
+ */
+@Name("be.condorcet.library.Search")
+@Category({"Library", "Catalogue"})
+@Label("Search")
+public class SearchEvent extends CirculationEvent {
+
+    @Label("Kind")
+    public String kind;
+
+    @Label("Query")
+    public String query;
+
+    @Label("Limit")
+    public int limit;
+
+    @Label("Results")
+    public int results;
+}
@@ -2,6 +2,9 @@ package be.condorcet.library.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.DynamicUpdate;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Min;
@@ -21,11 +24,24 @@ import java.util.Set;
  */
 @Entity
 @Table(name = "books")
+@NamedEntityGraph(name = Book.WITH_AUTHOR, attributeNodes = @NamedAttributeNode("author"))
+@NamedEntityGraph(name = Book.WITH_AUTHOR_AND_CATEGORIES,
+        attributeNodes = {@NamedAttributeNode("author"), @NamedAttributeNode("categories")})
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books")
+// UPDATE limité aux colonnes modifiées : une modification du livre ne réécrit pas availableCopies,
+// tenu par les UPDATE conditionnels de BookRepository, avec une valeur lue avant un emprunt concurrent
+@DynamicUpdate
 @JsonIgnoreProperties({"hibernateLazyInitializer", "handler"})
 public class Book {
 
+    // Graphes de chargement des listes : tout ce que la sérialisation JSON lit, en une requête
+    public static final String WITH_AUTHOR = "Book.withAuthor";
+    public static final String WITH_AUTHOR_AND_CATEGORIES = "Book.withAuthorAndCategories";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "books_seq")
+    @SequenceGenerator(name = "books_seq", sequenceName = "books_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "L'ISBN est obligatoire")
@@ -63,6 +79,7 @@ public class Book {
         inverseJoinColumns = @JoinColumn(name = "category_id")
     )
     @JsonIgnoreProperties({"books"})
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "books.categories")
     private Set<Category> categories = new HashSet<>();
 
     // Relation OneToMany avec Loan
@@ -1,6 +1,8 @@
 package be.condorcet.library.model;
 
 import be.condorcet.library.model.enums.LoanStatus;
+import com.fasterxml.jackson.annotation.JsonGetter;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotNull;
@@ -14,11 +16,26 @@ import java.time.LocalDate;
  * - ManyToOne avec Book (un emprunt concerne un livre)
  */
 @Entity
-@Table(name = "loans")
+@Table(name = "loans", indexes = {
+    // Index des paginations par curseur (emprunts d'un membre par date, emprunts d'un livre)
+    @Index(name = "idx_loans_member_date", columnList = "member_id, loan_date, id"),
+    @Index(name = "idx_loans_book", columnList = "book_id, id"),
+    // Index de la détection des retards (statut + date de retour prévue)
+    @Index(name = "idx_loans_status_due", columnList = "status, due_date")
+})
+@NamedEntityGraph(name = Loan.WITH_MEMBER_AND_BOOK,
+        attributeNodes = {@NamedAttributeNode("member"), @NamedAttributeNode(value = "book", subgraph = "book")},
+        subgraphs = @NamedSubgraph(name = "book", attributeNodes = @NamedAttributeNode("author")))
 public class Loan {
 
+    // Graphe de chargement des listes : membre, livre et auteur du livre, lus par la sérialisation JSON
+    public static final String WITH_MEMBER_AND_BOOK = "Loan.withMemberAndBook";
+
+    // Séquence « pooled » : Hibernate réserve 50 IDs par appel à la séquence,
+    // ce qui permet de regrouper les INSERT en lots JDBC (impossible avec IDENTITY)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loans_seq")
+    @SequenceGenerator(name = "loans_seq", sequenceName = "loans_seq", allocationSize = 50)
     private Long id;
 
     @NotNull(message = "La date d'emprunt est obligatoire")
@@ -94,6 +111,7 @@ public class Loan {
         this.returnDate = returnDate;
     }
 
+    @JsonIgnore // la représentation JSON expose le statut effectif (voir getEffectiveStatus)
     public LoanStatus getStatus() {
         return status;
     }
@@ -127,4 +145,17 @@ public class Loan {
     public boolean isOverdue() {
         return returnDate == null && LocalDate.now().isAfter(dueDate);
     }
+
+    /**
+     * Statut effectif de l'emprunt, calculé à la lecture : un emprunt ACTIVE dont la date
+     * de retour prévue est dépassée est présenté comme OVERDUE, même si la tâche de détection
+     * des retards n'est pas encore passée (ou est désactivée).
+     */
+    @JsonGetter("status")
+    public LoanStatus getEffectiveStatus() {
+        if (status == LoanStatus.ACTIVE && isOverdue()) {
+            return LoanStatus.OVERDUE;
+        }
+        return status;
+    }
 }
@@ -2,10 +2,12 @@ package be.condorcet.library.model;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -20,7 +22,8 @@ import java.util.List;
 public class Member {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "members_seq")
+    @SequenceGenerator(name = "members_seq", sequenceName = "members_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "L'email est obligatoire")
@@ -43,6 +46,20 @@ public class Member {
     @Column(nullable = false)
     private Boolean active = true;
 
+    // Compteurs dénormalisés, maintenus par LoanService (emprunt/retour) et réconciliés chaque nuit.
+    // Le quota se lit ainsi sur la ligne du membre, sans COUNT sur la table loans.
+    // Non modifiables par l'entité : seuls les UPDATE conditionnels de MemberRepository les écrivent,
+    // sinon l'enregistrement d'un membre modifié réécrirait des valeurs lues avant un emprunt concurrent.
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer activeLoanCount = 0;
+
+    @Column(nullable = false, updatable = false)
+    @ColumnDefault("0")
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Integer totalLoanCount = 0;
+
     // Relation OneToMany avec Loan
     @OneToMany(mappedBy = "member", cascade = CascadeType.ALL, orphanRemoval = true)
     @JsonIgnore // éviter la sérialisation de la collection (lazy)
@@ -109,6 +126,22 @@ public class Member {
         this.active = active;
     }
 
+    public Integer getActiveLoanCount() {
+        return activeLoanCount;
+    }
+
+    public void setActiveLoanCount(Integer activeLoanCount) {
+        this.activeLoanCount = activeLoanCount;
+    }
+
+    public Integer getTotalLoanCount() {
+        return totalLoanCount;
+    }
+
+    public void setTotalLoanCount(Integer totalLoanCount) {
+        this.totalLoanCount = totalLoanCount;
+    }
+
     public List<Loan> getLoans() {
         return loans;
     }
@@ -1,5 +1,9 @@
 package be.condorcet.library.model.enums;
 
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.Set;
+
 /**
  * Énumération représentant les différents statuts d'un emprunt.
  */
@@ -17,5 +21,10 @@ public enum LoanStatus {
     /**
      * Emprunt en retard (la date de retour prévue est dépassée et le livre n'est pas encore retourné)
      */
-    OVERDUE
+    OVERDUE;
+
+    /**
+     * Statuts d'un emprunt non encore rendu (le livre est toujours chez le membre).
+     */
+    public static final Set<LoanStatus> OUTSTANDING = Collections.unmodifiableSet(EnumSet.of(ACTIVE, OVERDUE));
 }
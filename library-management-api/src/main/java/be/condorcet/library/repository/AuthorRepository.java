@@ -1,11 +1,15 @@
 package be.condorcet.library.repository;
 
 import be.condorcet.library.model.Author;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository pour gérer les opérations CRUD sur les auteurs.
@@ -21,6 +25,28 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
      */
     List<Author> findByLastName(String lastName);
 
+    /**
+     * Lit les noms de tous les auteurs en flux (curseur).
+     * Doit être appelé dans une transaction et le flux doit être fermé.
+     * @return des paires [prénom, nom]
+     */
+    @Query("SELECT a.firstName, a.lastName FROM Author a")
+    Stream<Object[]> streamAllNames();
+
+    /**
+     * Recherche approchée des auteurs par nom de famille (même principe que BookRepository.searchByTitleText,
+     * sur la colonne last_name_search).
+     * @param text le nom (ou partie du nom), avec ou sans accents
+     * @param limit le nombre maximum d'auteurs
+     */
+    @Query(value = "SELECT a.* FROM authors a " +
+                   "WHERE a.last_name_search LIKE '%' || library_unaccent(:text) || '%' " +
+                   "   OR library_unaccent(:text) <% a.last_name_search " +
+                   "ORDER BY library_unaccent(:text) <<-> a.last_name_search, a.id " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<Author> searchByLastNameText(@Param("text") String text, @Param("limit") int limit);
+
     /**
      * Recherche un auteur par prénom ET nom de famille.
      * @param firstName le prénom
@@ -30,11 +56,13 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
     Optional<Author> findByFirstNameAndLastName(String firstName, String lastName);
 
     /**
-     * Recherche les auteurs par nationalité.
+     * Pagination par curseur des auteurs d'une nationalité, triés par ID.
      * @param nationality la nationalité
-     * @return une liste d'auteurs de cette nationalité
+     * @param id l'ID du dernier auteur de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante d'auteurs de cette nationalité
      */
-    List<Author> findByNationality(String nationality);
+    List<Author> findByNationalityAndIdGreaterThanOrderByIdAsc(String nationality, Long id, Limit limit);
 
     /**
      * Vérifie si un auteur existe avec ce nom et prénom.
@@ -43,4 +71,12 @@ public interface AuthorRepository extends JpaRepository<Author, Long> {
      * @return true si existe, false sinon
      */
     boolean existsByFirstNameAndLastName(String firstName, String lastName);
+
+    /**
+     * Pagination par curseur : auteurs dont l'ID est supérieur au curseur, triés par ID.
+     * @param id l'ID du dernier élément de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de auteurs
+     */
+    List<Author> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -1,15 +1,24 @@
 package be.condorcet.library.repository;
 
+import be.condorcet.library.dto.BookExportRow;
+import be.condorcet.library.dto.BookSearchEntry;
 import be.condorcet.library.model.Book;
 import be.condorcet.library.model.Author;
 import be.condorcet.library.model.Category;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository pour gérer les opérations CRUD sur les livres.
@@ -18,11 +27,21 @@ import java.util.Optional;
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
 
+    /**
+     * Charge des livres par IDs (résultats de la recherche en mémoire), avec auteur et catégories.
+     * @param ids les IDs des livres
+     * @return les livres trouvés, dans un ordre quelconque
+     */
+    @Override
+    @EntityGraph(Book.WITH_AUTHOR_AND_CATEGORIES)
+    List<Book> findAllById(Iterable<Long> ids);
+
     /**
      * Recherche un livre par son ISBN (unique).
      * @param isbn l'ISBN du livre
      * @return le livre trouvé, ou vide si non trouvé
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Book> findByIsbn(String isbn);
 
     /**
@@ -33,37 +52,65 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     boolean existsByIsbn(String isbn);
 
     /**
-     * Recherche les livres par titre (recherche partielle).
-     * @param title le titre (ou partie du titre)
-     * @return une liste de livres correspondant au titre
+     * Lit tous les ISBN du catalogue en flux (curseur), sans charger les livres.
+     * Doit être appelé dans une transaction et le flux doit être fermé.
+     * @return le flux des ISBN
+     */
+    @Query("SELECT b.isbn FROM Book b")
+    Stream<String> streamAllIsbns();
+
+    /**
+     * Recherche des livres par titre, sans accents ni casse : sous-chaîne (LIKE) ou mot ressemblant
+     * (opérateur {@code <%} de pg_trgm, tolère les fautes de frappe), les plus proches d'abord.
+     * Les deux conditions sont servies par l'index trigramme de la colonne générée title_search
+     * (voir db/search-schema.sql).
+     * @param text le texte recherché
+     * @param limit le nombre maximum de livres
      */
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    @Query(value = "SELECT b.* FROM books b " +
+                   "WHERE b.title_search LIKE '%' || library_unaccent(:text) || '%' " +
+                   "   OR library_unaccent(:text) <% b.title_search " +
+                   "ORDER BY library_unaccent(:text) <<-> b.title_search, b.id " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<Book> searchByTitleText(@Param("text") String text, @Param("limit") int limit);
 
     /**
-     * Recherche les livres d'un auteur.
+     * Pagination par curseur des livres d'un auteur, triés par ID.
      * @param author l'auteur
-     * @return une liste de livres de cet auteur
+     * @param id l'ID du dernier livre de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de livres de cet auteur
      */
-    List<Book> findByAuthor(Author author);
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findByAuthorAndIdGreaterThanOrderByIdAsc(Author author, Long id, Limit limit);
 
     /**
-     * Recherche les livres d'une catégorie.
+     * Pagination par curseur des livres d'une catégorie, triés par ID.
      * @param category la catégorie
-     * @return une liste de livres de cette catégorie
+     * @param id l'ID du dernier livre de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de livres de cette catégorie
      */
-    List<Book> findByCategories(Category category);
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findByCategoriesAndIdGreaterThanOrderByIdAsc(Category category, Long id, Limit limit);
 
     /**
      * Recherche les livres disponibles (au moins 1 exemplaire disponible).
      * @return une liste de livres disponibles
      */
+    @EntityGraph(Book.WITH_AUTHOR_AND_CATEGORIES)
     List<Book> findByAvailableCopiesGreaterThan(int minAvailable);
 
     /**
-     * Recherche les livres avec aucun exemplaire disponible.
-     * @return une liste de livres indisponibles
+     * Pagination par curseur des livres ayant un nombre donné d'exemplaires disponibles (0 : indisponibles), triés par ID.
+     * @param copies le nombre d'exemplaires disponibles
+     * @param id l'ID du dernier livre de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de livres
      */
-    List<Book> findByAvailableCopies(int copies);
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findByAvailableCopiesAndIdGreaterThanOrderByIdAsc(int copies, Long id, Limit limit);
 
     /**
      * Compte le nombre de livres disponibles.
@@ -76,16 +123,92 @@ public interface BookRepository extends JpaRepository<Book, Long> {
      * @param year l'année
      * @return une liste de livres publiés après cette année
      */
+    @EntityGraph(Book.WITH_AUTHOR_AND_CATEGORIES)
     List<Book> findByPublicationYearGreaterThanEqual(Integer year);
 
     /**
-     * Requête personnalisée pour rechercher les livres disponibles d'une catégorie.
+     * Pagination par curseur des livres disponibles d'une catégorie, triés par ID.
+     * Le nom de catégorie est unique : la jointure donne au plus une ligne par livre.
      * @param categoryName le nom de la catégorie
-     * @return une liste de livres disponibles de cette catégorie
+     * @param id l'ID du dernier livre de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de livres disponibles de cette catégorie
      */
-    @Query("SELECT DISTINCT b FROM Book b " +
+    @Query("SELECT b FROM Book b " +
            "JOIN b.categories c " +
-           "WHERE c.name = :categoryName AND b.availableCopies > 0 " +
-           "ORDER BY b.title")
-    List<Book> findAvailableBooksByCategory(@Param("categoryName") String categoryName);
+           "WHERE c.name = :categoryName AND b.availableCopies > 0 AND b.id > :id " +
+           "ORDER BY b.id")
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findAvailableBooksByCategoryAfter(@Param("categoryName") String categoryName,
+                                                 @Param("id") Long id, Limit limit);
+
+    /**
+     * Pagination par curseur : livres dont l'ID est supérieur au curseur, triés par ID.
+     * Seul l'auteur est joint : joindre les catégories ferait appliquer la limite en mémoire.
+     * Les catégories de la page sont chargées ensuite par lot (BookService).
+     * @param id l'ID du dernier élément de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de livres
+     */
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Pagination par curseur des livres disponibles, triés par ID.
+     * @param minAvailable le nombre minimum d'exemplaires disponibles (exclu)
+     * @param id l'ID du dernier livre de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de livres disponibles
+     */
+    @EntityGraph(Book.WITH_AUTHOR)
+    List<Book> findByAvailableCopiesGreaterThanAndIdGreaterThanOrderByIdAsc(int minAvailable, Long id, Limit limit);
+
+    /**
+     * Décrémente atomiquement le nombre d'exemplaires disponibles, uniquement s'il en reste.
+     * La condition dans l'UPDATE évite les pertes de mise à jour entre emprunts concurrents.
+     *
+     * Requête native déclarée sur un espace de synchronisation propre (book_copies) : une mise à jour
+     * en masse JPQL viderait toute la région « books » du cache de second niveau à chaque emprunt.
+     * L'appelant retire lui-même ce livre du cache (BookService).
+     * @param id l'ID du livre
+     * @return 1 si un exemplaire a été réservé, 0 si le livre n'existe pas ou n'a plus d'exemplaire
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_copies"))
+    @Query(value = "UPDATE books SET available_copies = available_copies - 1 " +
+                   "WHERE id = :id AND available_copies > 0",
+           nativeQuery = true)
+    int decrementAvailableCopies(@Param("id") Long id);
+
+    /**
+     * Incrémente atomiquement le nombre d'exemplaires disponibles (sans dépasser le total).
+     * @param id l'ID du livre
+     * @return 1 si l'exemplaire a été remis en rayon, 0 sinon
+     */
+    @Modifying(flushAutomatically = true)
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_NATIVE_SPACES, value = "book_copies"))
+    @Query(value = "UPDATE books SET available_copies = available_copies + 1 " +
+                   "WHERE id = :id AND available_copies < total_copies",
+           nativeQuery = true)
+    int incrementAvailableCopies(@Param("id") Long id);
+
+    /**
+     * Lit tout le catalogue en flux pour l'export (projection plate, curseur serveur de 1000 lignes).
+     * Doit être appelé dans une transaction et le flux doit être fermé.
+     * @return le flux des lignes d'export, triées par ID
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new be.condorcet.library.dto.BookExportRow(b.id, b.isbn, b.title, b.publicationYear, " +
+           "b.totalCopies, b.availableCopies, a.id, a.firstName, a.lastName) " +
+           "FROM Book b JOIN b.author a ORDER BY b.id")
+    Stream<BookExportRow> streamBookExport();
+
+    /**
+     * Lit tout le catalogue en flux pour construire l'index de recherche en mémoire, par IDs croissants
+     * (les listes de l'index se remplissent par la fin). Doit être appelé dans une transaction et le flux doit être fermé.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new be.condorcet.library.dto.BookSearchEntry(b.id, b.title, a.id, a.firstName, a.lastName) " +
+           "FROM Book b LEFT JOIN b.author a ORDER BY b.id")
+    Stream<BookSearchEntry> streamSearchEntries();
 }
@@ -1,9 +1,14 @@
 package be.condorcet.library.repository;
 
 import be.condorcet.library.model.Category;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -18,6 +23,7 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @param name le nom de la catégorie
      * @return la catégorie trouvée, ou vide si non trouvée
      */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     Optional<Category> findByName(String name);
 
     /**
@@ -26,4 +32,12 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
      * @return true si existe, false sinon
      */
     boolean existsByName(String name);
+
+    /**
+     * Pagination par curseur : catégories dont l'ID est supérieur au curseur, triés par ID.
+     * @param id l'ID du dernier élément de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de catégories
+     */
+    List<Category> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
 }
@@ -1,17 +1,28 @@
 package be.condorcet.library.repository;
 
+import be.condorcet.library.dto.ActiveLoanView;
+import be.condorcet.library.dto.LoanExportRow;
+import be.condorcet.library.dto.LoanView;
 import be.condorcet.library.model.Loan;
 import be.condorcet.library.model.Member;
 import be.condorcet.library.model.Book;
 import be.condorcet.library.model.enums.LoanStatus;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository pour gérer les opérations CRUD sur les emprunts.
@@ -22,11 +33,15 @@ import java.util.Optional;
 public interface LoanRepository extends JpaRepository<Loan, Long> {
 
     /**
-     * Recherche tous les emprunts actifs d'un membre.
+     * Pagination par curseur des emprunts d'un membre ayant l'un des statuts donnés, triés par ID.
      * @param member le membre
-     * @return une liste d'emprunts actifs de ce membre
+     * @param statuses les statuts recherchés
+     * @param id l'ID du dernier emprunt de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante d'emprunts de ce membre
      */
-    List<Loan> findByMemberAndStatus(Member member, LoanStatus status);
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
+    List<Loan> findByMemberAndStatusInAndIdGreaterThanOrderByIdAsc(Member member, Collection<LoanStatus> statuses, Long id, Limit limit);
 
     /**
      * Compte le nombre d'emprunts actifs d'un membre.
@@ -41,6 +56,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param member le membre
      * @return une liste de tous les emprunts du membre
      */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
     List<Loan> findByMember(Member member);
 
     /**
@@ -48,6 +64,7 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param book le livre
      * @return une liste d'emprunts de ce livre
      */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
     List<Loan> findByBook(Book book);
 
     /**
@@ -55,21 +72,65 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
      * @param book le livre
      * @return une liste d'emprunts actifs de ce livre
      */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
     List<Loan> findByBookAndStatus(Book book, LoanStatus status);
 
     /**
-     * Recherche les emprunts en retard (status OVERDUE).
-     * @return une liste d'emprunts en retard
+     * Pagination par curseur des emprunts ayant un statut donné (OVERDUE : retards marqués), triés par ID.
+     * @param status le statut recherché
+     * @param id l'ID du dernier emprunt de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante d'emprunts
      */
-    List<Loan> findByStatus(LoanStatus status);
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
+    List<Loan> findByStatusAndIdGreaterThanOrderByIdAsc(LoanStatus status, Long id, Limit limit);
 
     /**
      * Recherche les emprunts dont la date de retour prévue est dépassée et statut actif.
      * @param today la date du jour
      * @return une liste d'emprunts en retard
      */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
     List<Loan> findByDueDateBeforeAndStatus(LocalDate today, LoanStatus status);
 
+    /**
+     * Pagination par curseur des emprunts échus parmi plusieurs statuts (retard calculé à la lecture), triés par ID.
+     * @param today la date du jour
+     * @param statuses les statuts d'emprunts non rendus (ACTIVE, OVERDUE)
+     * @param id l'ID du dernier emprunt de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante d'emprunts en retard
+     */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
+    List<Loan> findByDueDateBeforeAndStatusInAndIdGreaterThanOrderByIdAsc(LocalDate today, Collection<LoanStatus> statuses,
+                                                                          Long id, Limit limit);
+
+    /**
+     * Même critère que findByDueDateBeforeAndStatus, mais ne lit que les IDs, par lot.
+     * @param today la date du jour
+     * @param status le statut recherché
+     * @param limit la taille du lot
+     * @return les IDs des emprunts échus, triés par ID
+     */
+    @Query("SELECT l.id FROM Loan l WHERE l.dueDate < :today AND l.status = :status ORDER BY l.id")
+    List<Long> findIdsByDueDateBeforeAndStatus(@Param("today") LocalDate today,
+                                               @Param("status") LoanStatus status,
+                                               Limit limit);
+
+    /**
+     * Change le statut d'un lot d'emprunts en un seul UPDATE.
+     * Seuls les emprunts encore au statut attendu sont modifiés (un retour concurrent n'est pas écrasé).
+     * @param ids les IDs des emprunts
+     * @param status le statut actuel attendu
+     * @param newStatus le nouveau statut
+     * @return le nombre d'emprunts modifiés
+     */
+    @Modifying
+    @Query("UPDATE Loan l SET l.status = :newStatus WHERE l.id IN :ids AND l.status = :status")
+    int updateStatusByIds(@Param("ids") List<Long> ids,
+                          @Param("status") LoanStatus status,
+                          @Param("newStatus") LoanStatus newStatus);
+
     /**
      * Vérifie si un emprunt actif existe pour un livre et un membre.
      * @param member le membre
@@ -95,11 +156,114 @@ public interface LoanRepository extends JpaRepository<Loan, Long> {
     @Query("SELECT COUNT(l) FROM Loan l WHERE l.member.id = :memberId")
     long countTotalLoansByMember(@Param("memberId") Long memberId);
 
+    /**
+     * Nombre total d'emprunts par livre (popularité des suggestions).
+     * @return des paires [ID du livre, nombre d'emprunts]
+     */
+    @Query("SELECT l.book.id, COUNT(l) FROM Loan l GROUP BY l.book.id")
+    List<Object[]> countLoansPerBook();
+
     /**
      * Requête personnalisée pour obtenir les emprunts d'un membre triés par date.
      * @param member le membre
      * @return une liste d'emprunts triés par date de prêt décroissante
      */
     @Query("SELECT l FROM Loan l WHERE l.member = :member ORDER BY l.loanDate DESC")
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
     List<Loan> findLoansByMemberOrderByDate(@Param("member") Member member);
+
+    /**
+     * Pagination par curseur : emprunts dont l'ID est supérieur au curseur, triés par ID.
+     * @param id l'ID du dernier élément de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de emprunts
+     */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
+    List<Loan> findByIdGreaterThanOrderByIdAsc(Long id, Limit limit);
+
+    /**
+     * Pagination par curseur des emprunts d'un livre, triés par ID.
+     * @param book le livre
+     * @param id l'ID du dernier emprunt de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante d'emprunts de ce livre
+     */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
+    List<Loan> findByBookAndIdGreaterThanOrderByIdAsc(Book book, Long id, Limit limit);
+
+    /**
+     * Première page des emprunts d'un membre, du plus récent au plus ancien.
+     * @param member le membre
+     * @param limit le nombre maximum de résultats
+     * @return les emprunts les plus récents du membre
+     */
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
+    List<Loan> findByMemberOrderByLoanDateDescIdDesc(Member member, Limit limit);
+
+    /**
+     * Pages suivantes des emprunts d'un membre : emprunts strictement antérieurs au curseur (date, id).
+     * @param member le membre
+     * @param loanDate la date d'emprunt du dernier élément de la page précédente
+     * @param id l'ID du dernier élément de la page précédente
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante d'emprunts triés par date décroissante
+     */
+    @Query("SELECT l FROM Loan l WHERE l.member = :member " +
+           "AND (l.loanDate < :loanDate OR (l.loanDate = :loanDate AND l.id < :id)) " +
+           "ORDER BY l.loanDate DESC, l.id DESC")
+    @EntityGraph(Loan.WITH_MEMBER_AND_BOOK)
+    List<Loan> findLoansByMemberBefore(@Param("member") Member member,
+                                       @Param("loanDate") LocalDate loanDate,
+                                       @Param("id") Long id,
+                                       Limit limit);
+
+    /**
+     * Projection des emprunts d'un membre avec le titre du livre, en une seule requête (jointure).
+     * @param memberId l'ID du membre
+     * @param statuses les statuts recherchés (emprunts non rendus)
+     * @return les emprunts triés par date de retour prévue
+     */
+    @Query("SELECT new be.condorcet.library.dto.ActiveLoanView(l.id, b.id, b.title, l.loanDate, l.dueDate, l.status) " +
+           "FROM Loan l JOIN l.book b " +
+           "WHERE l.member.id = :memberId AND l.status IN :statuses " +
+           "ORDER BY l.dueDate, l.id")
+    List<ActiveLoanView> findLoanViewsByMember(@Param("memberId") Long memberId,
+                                               @Param("statuses") Collection<LoanStatus> statuses);
+
+    /**
+     * Projection d'un emprunt avec son membre, son livre et l'auteur du livre, en une seule requête.
+     * Lit les valeurs en base : les compteurs modifiés par les UPDATE conditionnels de la transaction
+     * y sont déjà, et un emprunt créé ou modifié dans la transaction est écrit avant la lecture.
+     * @param id l'ID de l'emprunt
+     * @return la représentation de l'emprunt, ou vide s'il n'existe pas
+     */
+    @Query("SELECT new be.condorcet.library.dto.LoanView(l.id, l.loanDate, l.dueDate, l.returnDate, l.status, " +
+           "m.id, m.email, m.firstName, m.lastName, m.membershipDate, m.active, m.activeLoanCount, m.totalLoanCount, " +
+           "b.id, b.isbn, b.title, b.publicationYear, b.availableCopies, b.totalCopies, " +
+           "a.id, a.firstName, a.lastName, a.nationality, a.birthYear) " +
+           "FROM Loan l JOIN l.member m JOIN l.book b JOIN b.author a WHERE l.id = :id")
+    Optional<LoanView> findViewById(@Param("id") Long id);
+
+    /**
+     * Projection de plusieurs emprunts (panier du guichet), comme {@link #findViewById}, en une seule requête.
+     * @param ids les IDs des emprunts
+     * @return les représentations des emprunts, triées par ID de livre
+     */
+    @Query("SELECT new be.condorcet.library.dto.LoanView(l.id, l.loanDate, l.dueDate, l.returnDate, l.status, " +
+           "m.id, m.email, m.firstName, m.lastName, m.membershipDate, m.active, m.activeLoanCount, m.totalLoanCount, " +
+           "b.id, b.isbn, b.title, b.publicationYear, b.availableCopies, b.totalCopies, " +
+           "a.id, a.firstName, a.lastName, a.nationality, a.birthYear) " +
+           "FROM Loan l JOIN l.member m JOIN l.book b JOIN b.author a WHERE l.id IN :ids ORDER BY b.id")
+    List<LoanView> findViewsByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lit tous les emprunts en flux pour l'export (projection plate, curseur serveur de 1000 lignes).
+     * Doit être appelé dans une transaction et le flux doit être fermé.
+     * @return le flux des lignes d'export, triées par ID
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("SELECT new be.condorcet.library.dto.LoanExportRow(l.id, l.loanDate, l.dueDate, l.returnDate, l.status, " +
+           "m.id, m.email, b.id, b.isbn, b.title) " +
+           "FROM Loan l JOIN l.member m JOIN l.book b ORDER BY l.id")
+    Stream<LoanExportRow> streamLoanExport();
 }
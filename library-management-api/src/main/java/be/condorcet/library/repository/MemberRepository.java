@@ -1,10 +1,19 @@
 package be.condorcet.library.repository;
 
+import be.condorcet.library.dto.MemberSummary;
 import be.condorcet.library.model.Member;
+import be.condorcet.library.model.enums.LoanStatus;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository pour gérer les opérations CRUD sur les membres.
@@ -14,11 +23,19 @@ import java.util.Optional;
 public interface MemberRepository extends JpaRepository<Member, Long> {
 
     /**
-     * Recherche un membre par son email (unique).
+     * Début des requêtes de projection du profil (MemberSummary) : seules les colonnes exposées
+     * par l'API sont lues, sans entité à gérer dans le contexte de persistance.
+     */
+    String SUMMARY = "SELECT new be.condorcet.library.dto.MemberSummary(m.id, m.email, m.firstName, m.lastName, " +
+                     "m.membershipDate, m.active, m.activeLoanCount, m.totalLoanCount) FROM Member m ";
+
+    /**
+     * Recherche le profil d'un membre par son email (unique).
      * @param email l'email du membre
-     * @return le membre trouvé, ou vide si non trouvé
+     * @return le profil trouvé, ou vide si non trouvé
      */
-    Optional<Member> findByEmail(String email);
+    @Query(SUMMARY + "WHERE m.email = :email")
+    Optional<MemberSummary> findSummaryByEmail(@Param("email") String email);
 
     /**
      * Vérifie si un membre existe avec cet email.
@@ -27,6 +44,27 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
      */
     boolean existsByEmail(String email);
 
+    /**
+     * Lit tous les emails en flux (curseur), sans charger les membres.
+     * Doit être appelé dans une transaction et le flux doit être fermé.
+     * @return le flux des emails
+     */
+    @Query("SELECT m.email FROM Member m")
+    Stream<String> streamAllEmails();
+
+    /**
+     * Recherche approchée des membres par nom de famille, pour le guichet (colonne last_name_search).
+     * @param text le nom (ou partie du nom), avec ou sans accents
+     * @param limit le nombre maximum de membres
+     */
+    @Query(value = "SELECT m.* FROM members m " +
+                   "WHERE m.last_name_search LIKE '%' || library_unaccent(:text) || '%' " +
+                   "   OR library_unaccent(:text) <% m.last_name_search " +
+                   "ORDER BY library_unaccent(:text) <<-> m.last_name_search, m.id " +
+                   "LIMIT :limit",
+           nativeQuery = true)
+    List<Member> searchByLastNameText(@Param("text") String text, @Param("limit") int limit);
+
     /**
      * Compte le nombre de membres actifs.
      * @return le nombre de membres avec active = true
@@ -34,10 +72,13 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
     long countByActiveTrue();
 
     /**
-     * Recherche tous les membres actifs.
-     * @return une liste de membres actifs
+     * Pagination par curseur : profils des membres actifs dont l'ID est supérieur au curseur, triés par ID.
+     * @param id l'ID du dernier élément de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de membres actifs
      */
-    java.util.List<Member> findByActiveTrue();
+    @Query(SUMMARY + "WHERE m.active = true AND m.id > :id ORDER BY m.id")
+    List<MemberSummary> findActiveSummariesAfter(@Param("id") Long id, Limit limit);
 
     /**
      * Recherche un membre par son prénom et nom.
@@ -46,4 +87,99 @@ public interface MemberRepository extends JpaRepository<Member, Long> {
      * @return le membre trouvé, ou vide si non trouvé
      */
     Optional<Member> findByFirstNameAndLastName(String firstName, String lastName);
+
+    /**
+     * Pagination par curseur : profils des membres dont l'ID est supérieur au curseur, triés par ID.
+     * @param id l'ID du dernier élément de la page précédente (0 pour la première page)
+     * @param limit le nombre maximum de résultats
+     * @return la page suivante de membres
+     */
+    @Query(SUMMARY + "WHERE m.id > :id ORDER BY m.id")
+    List<MemberSummary> findSummariesAfter(@Param("id") Long id, Limit limit);
+
+    /**
+     * Enregistre de nouveaux emprunts sur les compteurs du membre, en une seule requête conditionnelle.
+     * La mise à jour n'a lieu que si le membre est actif, reste sous le quota et n'a aucun de ces
+     * livres en cours d'emprunt : le quota ne peut pas être dépassé par deux emprunts simultanés.
+     * La vérification des doublons n'est pas atomique (le second de deux emprunts simultanés du même livre
+     * revérifie avec un instantané antérieur au premier) : l'index unique uk_loans_outstanding_member_book
+     * refuse le doublon à l'insertion.
+     * @param id l'ID du membre
+     * @param bookIds les IDs des livres empruntés
+     * @param count le nombre de livres empruntés
+     * @param maxActiveLoans le nombre maximum d'emprunts en cours
+     * @param outstanding les statuts d'un emprunt non rendu (ACTIVE, OVERDUE)
+     * @return 1 si les emprunts sont acceptés, 0 sinon
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Member m SET m.activeLoanCount = m.activeLoanCount + :count, " +
+           "m.totalLoanCount = m.totalLoanCount + :count " +
+           "WHERE m.id = :id AND m.active = true AND m.activeLoanCount + :count <= :maxActiveLoans " +
+           "AND NOT EXISTS (SELECT 1 FROM Loan l WHERE l.member.id = :id AND l.book.id IN :bookIds " +
+           "AND l.status IN :outstanding)")
+    int incrementLoanCounters(@Param("id") Long id,
+                              @Param("bookIds") Collection<Long> bookIds,
+                              @Param("count") int count,
+                              @Param("maxActiveLoans") int maxActiveLoans,
+                              @Param("outstanding") Collection<LoanStatus> outstanding);
+
+    /**
+     * Enregistre un retour sur le compteur d'emprunts en cours du membre.
+     * @param id l'ID du membre
+     * @return 1 si le compteur a été décrémenté, 0 sinon
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Member m SET m.activeLoanCount = m.activeLoanCount - 1 " +
+           "WHERE m.id = :id AND m.activeLoanCount > 0")
+    int decrementActiveLoanCount(@Param("id") Long id);
+
+    /**
+     * Verrouille une tranche de membres avant la réconciliation de leurs compteurs.
+     * Attend la fin des emprunts et retours en cours sur ces membres (ils modifient d'abord la ligne
+     * du membre) et bloque les suivants jusqu'à la fin de la transaction. FOR NO KEY UPDATE, comme un
+     * UPDATE : les insertions d'emprunts qui référencent le membre ne sont pas bloquées.
+     * @param fromId borne basse (exclue) des IDs de membres
+     * @param toId borne haute (incluse) des IDs de membres
+     * @return les IDs des membres verrouillés
+     */
+    @Query(value = "SELECT id FROM members WHERE id > :fromId AND id <= :toId ORDER BY id FOR NO KEY UPDATE",
+           nativeQuery = true)
+    List<Long> lockRange(@Param("fromId") Long fromId, @Param("toId") Long toId);
+
+    /**
+     * Recalcule les compteurs d'emprunts d'une tranche de membres à partir de la table loans.
+     * Seuls les membres dont les compteurs ont dérivé sont modifiés.
+     * À exécuter après {@link #lockRange}, dans la même transaction : en READ COMMITTED, cette requête
+     * distincte lit les emprunts validés pendant l'attente des verrous, et un membre dont le compteur
+     * a changé entre-temps n'est pas réécrit avec un décompte périmé.
+     * @param fromId borne basse (exclue) des IDs de membres
+     * @param toId borne haute (incluse) des IDs de membres
+     * @param outstanding les statuts d'un emprunt non rendu (ACTIVE, OVERDUE)
+     * @return le nombre de membres corrigés
+     */
+    @Modifying
+    @Query("UPDATE Member m SET " +
+           "m.activeLoanCount = (SELECT COUNT(l) FROM Loan l WHERE l.member = m AND l.status IN :outstanding), " +
+           "m.totalLoanCount = (SELECT COUNT(l) FROM Loan l WHERE l.member = m) " +
+           "WHERE m.id > :fromId AND m.id <= :toId " +
+           "AND (m.activeLoanCount <> (SELECT COUNT(l) FROM Loan l WHERE l.member = m AND l.status IN :outstanding) " +
+           "OR m.totalLoanCount <> (SELECT COUNT(l) FROM Loan l WHERE l.member = m))")
+    int reconcileLoanCounters(@Param("fromId") Long fromId,
+                              @Param("toId") Long toId,
+                              @Param("outstanding") Collection<LoanStatus> outstanding);
+
+    /**
+     * Récupère le plus grand ID de membre (borne de la réconciliation par tranches).
+     * @return le plus grand ID, ou null si la table est vide
+     */
+    @Query("SELECT MAX(m.id) FROM Member m")
+    Long findMaxId();
+
+    /**
+     * Projection du profil d'un membre (sans charger l'entité).
+     * @param id l'ID du membre
+     * @return le profil, ou vide si non trouvé
+     */
+    @Query(SUMMARY + "WHERE m.id = :id")
+    Optional<MemberSummary> findSummaryById(@Param("id") Long id);
 }
@@ -0,0 +1,30 @@
+package be.condorcet.library.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Exécution différée après la validation de la transaction en cours, pour les structures tenues
+ * hors de la base (index en mémoire, cache de second niveau) : une transaction annulée n'y laisse pas de trace.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    /**
+     * Exécute l'action après la validation de la transaction en cours, ou tout de suite s'il n'y en a pas.
+     */
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -3,6 +3,9 @@ package be.condorcet.library.service;
 import be.condorcet.library.model.Author;
 import be.condorcet.library.repository.AuthorRepository;
 import be.condorcet.library.exception.ResourceNotFoundException;
+import be.condorcet.library.dto.Cursor;
+import be.condorcet.library.dto.CursorPage;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -18,16 +21,23 @@ import java.util.Optional;
 public class AuthorService {
 
     private final AuthorRepository authorRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final UniquenessFilters uniquenessFilters;
 
-    public AuthorService(AuthorRepository authorRepository) {
+    public AuthorService(AuthorRepository authorRepository, BookSearchIndex bookSearchIndex,
+                         UniquenessFilters uniquenessFilters) {
         this.authorRepository = authorRepository;
+        this.bookSearchIndex = bookSearchIndex;
+        this.uniquenessFilters = uniquenessFilters;
     }
 
     /**
-     * Récupère tous les auteurs.
+     * Récupère les auteurs page par page (pagination par curseur sur l'ID).
      */
-    public List<Author> getAllAuthors() {
-        return authorRepository.findAll();
+    public CursorPage<Author> getAllAuthors(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Author> rows = authorRepository.findByIdGreaterThanOrderByIdAsc(Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, a -> Cursor.ofId(a.getId()));
     }
 
     /**
@@ -43,11 +53,14 @@ public class AuthorService {
      */
     public Author createAuthor(Author author) {
         // Vérifier que l'auteur n'existe pas déjà
-        if (authorRepository.existsByFirstNameAndLastName(author.getFirstName(), author.getLastName())) {
+        if (uniquenessFilters.authorExists(author.getFirstName(), author.getLastName())) {
             throw new RuntimeException("Un auteur avec le prénom " + author.getFirstName() + 
                     " et le nom " + author.getLastName() + " existe déjà");
         }
-        return authorRepository.save(author);
+        Author saved = authorRepository.save(author);
+        uniquenessFilters.recordAuthor(saved.getFirstName(), saved.getLastName());
+        bookSearchIndex.indexAuthor(saved.getId(), saved.getFirstName(), saved.getLastName());
+        return saved;
     }
 
     /**
@@ -69,7 +82,13 @@ public class AuthorService {
             author.setBirthYear(authorDetails.getBirthYear());
         }
         
-        return authorRepository.save(author);
+        Author saved = authorRepository.save(author);
+        // Le nom de l'auteur fait partie de l'index de recherche des livres
+        if (authorDetails.getFirstName() != null || authorDetails.getLastName() != null) {
+            uniquenessFilters.recordAuthor(saved.getFirstName(), saved.getLastName());
+            bookSearchIndex.updateAuthor(id, saved.getFirstName(), saved.getLastName());
+        }
+        return saved;
     }
 
     /**
@@ -78,26 +97,30 @@ public class AuthorService {
     public void deleteAuthor(Long id) {
         Author author = getAuthorById(id);
         authorRepository.delete(author);
+        bookSearchIndex.removeAuthor(id);
     }
 
     /**
-     * Recherche les auteurs par nom de famille.
+     * Recherche les auteurs par nom de famille (partiel, sans accents, fautes de frappe tolérées).
      */
-    public List<Author> searchByLastName(String lastName) {
-        return authorRepository.findByLastName(lastName);
+    public List<Author> searchByLastName(String lastName, Integer limit) {
+        return authorRepository.searchByLastNameText(lastName, Cursor.limit(limit));
     }
 
     /**
      * Recherche les auteurs par nationalité.
      */
-    public List<Author> searchByNationality(String nationality) {
-        return authorRepository.findByNationality(nationality);
+    public CursorPage<Author> searchByNationality(String nationality, String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Author> rows = authorRepository.findByNationalityAndIdGreaterThanOrderByIdAsc(
+                nationality, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, a -> Cursor.ofId(a.getId()));
     }
 
     /**
      * Vérifie si un auteur existe avec ce prénom et nom.
      */
     public boolean authorExists(String firstName, String lastName) {
-        return authorRepository.existsByFirstNameAndLastName(firstName, lastName);
+        return uniquenessFilters.authorExists(firstName, lastName);
     }
 }
@@ -0,0 +1,379 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.BookImportReport;
+import be.condorcet.library.dto.BookImportRow;
+import be.condorcet.library.dto.BookSearchEntry;
+import be.condorcet.library.exception.BusinessException;
+import be.condorcet.library.model.Author;
+import be.condorcet.library.model.Book;
+import be.condorcet.library.model.Category;
+import be.condorcet.library.repository.AuthorRepository;
+import be.condorcet.library.repository.BookRepository;
+import be.condorcet.library.repository.CategoryRepository;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Import en masse du catalogue à partir d'un flux CSV ou NDJSON (une ligne JSON par livre).
+ *
+ * Le fichier est lu en flux, ligne par ligne : seul un lot de lignes est gardé en mémoire.
+ * Auteurs et catégories sont résolus par nom dans des tables en mémoire chargées au départ
+ * (et créés à la volée s'ils n'existent pas), les ISBN déjà vus sont détectés dans un ensemble
+ * en mémoire, sans requête par ligne. Chaque lot est écrit dans sa propre transaction,
+ * en INSERT groupés (lots JDBC) ; un lot refusé par la base est repris ligne par ligne.
+ *
+ * Format CSV : une ligne d'en-tête avec les colonnes isbn, title, publicationYear, totalCopies,
+ * authorFirstName, authorLastName et categories (noms séparés par « | »).
+ */
+@Service
+public class BookImportService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookImportService.class);
+
+    // Nombre maximum d'erreurs détaillées dans le rapport (les suivantes sont seulement comptées)
+    private static final int MAX_REPORTED_ERRORS = 1000;
+
+    // Fréquence des messages de progression dans les logs
+    private static final int PROGRESS_EVERY_ROWS = 50_000;
+
+    /**
+     * Format du fichier importé.
+     */
+    public enum Format { CSV, NDJSON }
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final CategoryRepository categoryRepository;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final BookSearchIndex bookSearchIndex;
+    private final UniquenessFilters uniquenessFilters;
+    private final int chunkSize;
+
+    public BookImportService(BookRepository bookRepository,
+                             AuthorRepository authorRepository,
+                             CategoryRepository categoryRepository,
+                             EntityManager entityManager,
+                             ObjectMapper objectMapper,
+                             PlatformTransactionManager transactionManager,
+                             BookSearchIndex bookSearchIndex,
+                             UniquenessFilters uniquenessFilters,
+                             @Value("${library.books.import.chunk-size:1000}") int chunkSize) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.categoryRepository = categoryRepository;
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookSearchIndex = bookSearchIndex;
+        this.uniquenessFilters = uniquenessFilters;
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Importe les livres lus dans le flux.
+     */
+    public BookImportReport importBooks(InputStream input, Format format) {
+        ImportRun run = new ImportRun();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String[] header = null;
+            List<Numbered> chunk = new ArrayList<>(chunkSize);
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (format == Format.CSV && header == null) {
+                    header = parseCsvLine(line);
+                    continue;
+                }
+                run.rowsRead++;
+                try {
+                    BookImportRow row = format == Format.CSV ? toRow(header, parseCsvLine(line)) : parseJson(line);
+                    chunk.add(new Numbered(lineNumber, row));
+                } catch (RuntimeException e) {
+                    run.reject(lineNumber, null, "Ligne illisible : " + e.getMessage());
+                }
+                if (chunk.size() == chunkSize) {
+                    writeChunk(chunk, run);
+                    chunk.clear();
+                }
+                if (run.rowsRead % PROGRESS_EVERY_ROWS == 0) {
+                    log.info("Import du catalogue : {} ligne(s) lue(s), {} livre(s) importé(s), {} rejet(s)",
+                            run.rowsRead, run.imported, run.rejected);
+                }
+            }
+            writeChunk(chunk, run);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du fichier d'import impossible", e);
+        }
+
+        long durationMs = (System.nanoTime() - run.start) / 1_000_000;
+        log.info("Import du catalogue terminé : {} ligne(s), {} livre(s) importé(s), {} rejet(s), {} ms",
+                run.rowsRead, run.imported, run.rejected, durationMs);
+        return new BookImportReport(run.rowsRead, run.imported, run.rejected,
+                run.errors, run.rejected > run.errors.size(), durationMs);
+    }
+
+    /**
+     * Écrit un lot dans une transaction. Si le lot échoue à l'écriture (contrainte de la base, ligne trop longue...),
+     * il est repris ligne par ligne, chacune dans sa propre transaction : seules les lignes fautives sont rejetées.
+     */
+    private void writeChunk(List<Numbered> chunk, ImportRun run) {
+        if (chunk.isEmpty()) {
+            return;
+        }
+        run.loadLookups();
+        try {
+            run.imported += writeRows(chunk, run);
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                Numbered numbered = chunk.get(0);
+                run.reject(numbered.line(), numbered.row().isbn(), "Échec de l'écriture : " + e.getMessage());
+                return;
+            }
+            log.warn("Échec d'un lot d'import ({} ligne(s)), reprise ligne par ligne : {}", chunk.size(), e.getMessage());
+            for (Numbered numbered : chunk) {
+                writeChunk(List.of(numbered), run);
+            }
+        }
+    }
+
+    /**
+     * Écrit des lignes dans une transaction et retourne le nombre de livres créés.
+     * Si la transaction échoue, rien n'est gardé de son passage : les rejets de validation ne sont pas
+     * comptés, et les ISBN, auteurs et catégories créés pour elle sont oubliés (annulés avec elle).
+     */
+    private int writeRows(List<Numbered> rows, ImportRun run) {
+        List<String> createdAuthors = new ArrayList<>();
+        List<String> createdCategories = new ArrayList<>();
+        List<String> addedIsbns = new ArrayList<>();
+        List<BookImportReport.RowError> rejections = new ArrayList<>();
+        List<BookSearchEntry> indexed = new ArrayList<>();
+        try {
+            Integer imported = transactionTemplate.execute(status -> {
+                int count = 0;
+                for (Numbered numbered : rows) {
+                    BookImportRow row = numbered.row();
+                    String error = validate(row, run);
+                    if (error != null) {
+                        rejections.add(new BookImportReport.RowError(numbered.line(), row.isbn(), error));
+                        continue;
+                    }
+                    Book book = new Book(row.isbn().trim(), row.title().trim(), row.publicationYear(),
+                            row.totalCopies(), resolveAuthor(row, run, createdAuthors));
+                    if (row.categories() != null) {
+                        for (String name : row.categories()) {
+                            if (name != null && !name.isBlank()) {
+                                book.getCategories().add(resolveCategory(name.trim(), run, createdCategories));
+                            }
+                        }
+                    }
+                    entityManager.persist(book);
+                    run.isbns.add(book.getIsbn());
+                    addedIsbns.add(book.getIsbn());
+                    uniquenessFilters.recordIsbn(book.getIsbn());
+                    indexed.add(new BookSearchEntry(book.getId(), book.getTitle(), book.getAuthor().getId(),
+                            row.authorFirstName().trim(), row.authorLastName().trim()));
+                    count++;
+                }
+                bookSearchIndex.indexAll(indexed);
+                entityManager.flush();
+                entityManager.clear();
+                return count;
+            });
+            rejections.forEach(error -> run.reject(error.line(), error.isbn(), error.message()));
+            return imported;
+        } catch (RuntimeException e) {
+            createdAuthors.forEach(run.authorIds::remove);
+            createdCategories.forEach(run.categoryIds::remove);
+            addedIsbns.forEach(run.isbns::remove);
+            throw e;
+        }
+    }
+
+    /**
+     * Vérifie une ligne ; retourne le message d'erreur, ou null si elle est valide.
+     */
+    private String validate(BookImportRow row, ImportRun run) {
+        if (row.isbn() == null || row.isbn().isBlank()) {
+            return "L'ISBN est obligatoire";
+        }
+        if (row.title() == null || row.title().isBlank()) {
+            return "Le titre est obligatoire";
+        }
+        if (row.totalCopies() == null || row.totalCopies() < 1) {
+            return "Le nombre total d'exemplaires doit être au moins 1";
+        }
+        if (row.publicationYear() != null && row.publicationYear() < 1000) {
+            return "L'année de publication doit être supérieure à 1000";
+        }
+        if (isBlank(row.authorFirstName()) || isBlank(row.authorLastName())) {
+            return "Le prénom et le nom de l'auteur sont obligatoires";
+        }
+        if (run.isbns.contains(row.isbn().trim())) {
+            return "Un livre avec l'ISBN '" + row.isbn().trim() + "' existe déjà";
+        }
+        return null;
+    }
+
+    private Author resolveAuthor(BookImportRow row, ImportRun run, List<String> created) {
+        String firstName = row.authorFirstName().trim();
+        String lastName = row.authorLastName().trim();
+        String key = UniquenessFilters.authorKey(firstName, lastName);
+        Long id = run.authorIds.get(key);
+        if (id == null) {
+            Author author = new Author(firstName, lastName, null, null);
+            entityManager.persist(author);
+            uniquenessFilters.recordAuthor(firstName, lastName);
+            run.authorIds.put(key, author.getId());
+            created.add(key);
+            return author;
+        }
+        return entityManager.getReference(Author.class, id);
+    }
+
+    private Category resolveCategory(String name, ImportRun run, List<String> created) {
+        Long id = run.categoryIds.get(name);
+        if (id == null) {
+            Category category = new Category(name, null);
+            entityManager.persist(category);
+            run.categoryIds.put(name, category.getId());
+            created.add(name);
+            return category;
+        }
+        return entityManager.getReference(Category.class, id);
+    }
+
+    private BookImportRow parseJson(String line) {
+        try {
+            return objectMapper.readValue(line, BookImportRow.class);
+        } catch (JacksonException e) {
+            throw new BusinessException("JSON invalide (" + e.getOriginalMessage() + ")", e);
+        }
+    }
+
+    private static BookImportRow toRow(String[] header, String[] values) {
+        Map<String, String> fields = new HashMap<>();
+        for (int i = 0; i < header.length && i < values.length; i++) {
+            fields.put(header[i].trim(), values[i]);
+        }
+        String categories = fields.get("categories");
+        return new BookImportRow(
+                fields.get("isbn"),
+                fields.get("title"),
+                parseInteger(fields.get("publicationYear")),
+                parseInteger(fields.get("totalCopies")),
+                fields.get("authorFirstName"),
+                fields.get("authorLastName"),
+                isBlank(categories) ? List.of() : Arrays.asList(categories.split("\\|")));
+    }
+
+    private static Integer parseInteger(String value) {
+        return isBlank(value) ? null : Integer.valueOf(value.trim());
+    }
+
+    /**
+     * Découpe une ligne CSV (séparateur virgule, champs entre guillemets avec "" pour un guillemet).
+     */
+    static String[] parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields.toArray(String[]::new);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private record Numbered(long line, BookImportRow row) {
+    }
+
+    /**
+     * État d'un import en cours : compteurs, erreurs et tables de correspondance en mémoire.
+     */
+    private final class ImportRun {
+        final long start = System.nanoTime();
+        final Map<String, Long> authorIds = new HashMap<>();
+        final Map<String, Long> categoryIds = new HashMap<>();
+        final Set<String> isbns = new HashSet<>();
+        final List<BookImportReport.RowError> errors = new ArrayList<>();
+        boolean loaded;
+        long rowsRead;
+        long imported;
+        long rejected;
+
+        /**
+         * Charge une fois les auteurs, catégories et ISBN existants (lecture en flux des ISBN).
+         */
+        void loadLookups() {
+            if (loaded) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                authorRepository.findAll().forEach(a ->
+                        authorIds.put(UniquenessFilters.authorKey(a.getFirstName(), a.getLastName()), a.getId()));
+                categoryRepository.findAll().forEach(c -> categoryIds.put(c.getName(), c.getId()));
+                try (Stream<String> existing = bookRepository.streamAllIsbns()) {
+                    existing.forEach(isbns::add);
+                }
+                entityManager.clear();
+            });
+            loaded = true;
+        }
+
+        void reject(long line, String isbn, String message) {
+            rejected++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(new BookImportReport.RowError(line, isbn, message));
+            }
+        }
+    }
+}
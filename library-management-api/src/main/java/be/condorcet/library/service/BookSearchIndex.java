@@ -0,0 +1,590 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.BookSearchEntry;
+import be.condorcet.library.dto.BookSuggestion;
+import be.condorcet.library.model.Author;
+import be.condorcet.library.model.Book;
+import be.condorcet.library.repository.AuthorRepository;
+import be.condorcet.library.repository.BookRepository;
+import be.condorcet.library.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Index inversé en mémoire des titres de livres et des noms d'auteurs.
+ *
+ * Les textes sont normalisés (minuscules, sans accents) et découpés en mots ; chaque mot pointe vers
+ * les IDs triés des livres qui le contiennent. Une recherche est un ET entre les mots de la requête, chaque mot
+ * pouvant être le début d'un mot indexé (recherche au fil de la frappe). Le classement favorise
+ * les correspondances exactes dans le titre, puis les débuts de mots, puis les noms d'auteurs.
+ *
+ * Prévu pour un million de titres : l'intersection part du mot de la requête qui a le moins de livres
+ * (les autres mots ne font que filtrer ses candidats) et seuls les {@code limit} meilleurs sont triés.
+ *
+ * Le même index tient l'arbre préfixe de la saisie semi-automatique (voir BookSuggestions),
+ * alimenté par les mêmes événements et par les emprunts (popularité). L'arbre a son propre moniteur,
+ * toujours pris après le verrou de l'index, jamais avant.
+ *
+ * L'index est construit au démarrage puis tenu à jour par BookService et AuthorService, après la
+ * validation de leur transaction. Les résultats des requêtes récentes sont gardés dans un cache LRU,
+ * vidé à chaque modification de l'index.
+ */
+@Service
+public class BookSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(BookSearchIndex.class);
+
+    // Poids des correspondances pour le classement
+    private static final int TITLE_EXACT = 4;
+    private static final int TITLE_PREFIX = 2;
+    private static final int AUTHOR_EXACT = 2;
+    private static final int AUTHOR_PREFIX = 1;
+
+    // Longueur minimale d'un mot de requête pour l'étendre aux mots qui commencent par lui
+    private static final int MIN_PREFIX_LENGTH = 2;
+
+    // Longueur du titre gardée dans les entrées des listes (titres en varchar(255))
+    private static final int LENGTH_BITS = 8;
+    private static final int MAX_LENGTH = (1 << LENGTH_BITS) - 1;
+
+    // Nombre maximum de suggestions par réponse de la saisie semi-automatique
+    public static final int MAX_SUGGESTIONS = 10;
+
+    private final BookRepository bookRepository;
+    private final AuthorRepository authorRepository;
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Document> documents = new HashMap<>();
+    private final NavigableMap<String, Postings> titleTerms = new TreeMap<>();
+    private final NavigableMap<String, Postings> authorTerms = new TreeMap<>();
+    private final BookSuggestions suggestions = new BookSuggestions(MAX_SUGGESTIONS);
+
+    private final Map<String, List<Long>> recentQueries;
+
+    public BookSearchIndex(BookRepository bookRepository,
+                           AuthorRepository authorRepository,
+                           LoanRepository loanRepository,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${library.books.search.query-cache-size:1000}") int cacheSize) {
+        this.bookRepository = bookRepository;
+        this.authorRepository = authorRepository;
+        this.loanRepository = loanRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.recentQueries = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, List<Long>> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Document indexé : son entrée dans les listes et les mots du titre et de l'auteur, gardés pour
+     * pouvoir le désindexer. Les mots sont les clés de l'index : une seule copie de chaque mot en mémoire.
+     */
+    private record Document(long posting, Long authorId, String[] titleTokens, String[] authorTokens) {
+        long id() {
+            return posting >>> LENGTH_BITS;
+        }
+    }
+
+    /**
+     * Livres d'un mot indexé, de poids donné (mot exact ou début de mot, titre ou auteur).
+     */
+    private record Match(Postings postings, int weight) {
+    }
+
+    /**
+     * Entrée d'une liste : ID du livre et longueur de son titre (départage du classement) dans un seul long.
+     * Triées par entrée, les listes sont triées par ID.
+     */
+    private static long posting(long id, String title) {
+        return id << LENGTH_BITS | Math.min(title == null ? 0 : title.length(), MAX_LENGTH);
+    }
+
+    /**
+     * Livres qui contiennent un mot, en entrées triées dans un tableau de long : 8 octets par livre,
+     * au lieu d'un Long et d'une entrée de HashSet, et une intersection par fusion ou par dichotomie.
+     */
+    private static final class Postings {
+        private long[] entries = new long[1];
+        private int size;
+
+        void add(long posting) {
+            // Le plus souvent en fin de tableau : l'index est construit par IDs croissants
+            int at = size == 0 || entries[size - 1] < posting ? size : Arrays.binarySearch(entries, 0, size, posting);
+            if (at >= 0 && at < size) {
+                return;
+            }
+            at = at < 0 ? -at - 1 : at;
+            if (size == entries.length) {
+                entries = Arrays.copyOf(entries, size * 2);
+            }
+            System.arraycopy(entries, at, entries, at + 1, size - at);
+            entries[at] = posting;
+            size++;
+        }
+
+        boolean remove(long posting) {
+            int at = Arrays.binarySearch(entries, 0, size, posting);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(entries, at + 1, entries, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /**
+     * Livres candidats d'une recherche (entrées triées), avec leur score cumulé.
+     */
+    private static final class Candidates {
+        private final long[] entries;
+        private final int[] scores;
+        private int size;
+
+        /**
+         * Candidats du premier mot : ses listes fusionnées, chaque livre avec son meilleur poids.
+         */
+        Candidates(List<Match> matches) {
+            // Entrée et poids (au plus 7) dans un seul long : un tri de primitifs, sans table de hachage
+            long[] keys = new long[(int) count(matches)];
+            int n = 0;
+            for (Match match : matches) {
+                Postings postings = match.postings();
+                for (int i = 0; i < postings.size; i++) {
+                    keys[n++] = postings.entries[i] << 3 | match.weight();
+                }
+            }
+            Arrays.sort(keys);
+            entries = new long[n];
+            scores = new int[n];
+            for (int i = 0; i < n; i++) {
+                long posting = keys[i] >>> 3;
+                if (size > 0 && entries[size - 1] == posting) {
+                    size--;   // même livre, poids plus fort (trié après)
+                }
+                entries[size] = posting;
+                scores[size] = (int) (keys[i] & 7);
+                size++;
+            }
+        }
+
+        /**
+         * ET avec un mot suivant : garde les candidats présents dans une de ses listes et ajoute leur meilleur poids.
+         */
+        void retain(List<Match> matches) {
+            int[] tokenScores = new int[size];
+            for (Match match : matches) {
+                Postings postings = match.postings();
+                if (postings.size > 16L * size) {
+                    // Liste bien plus longue que les candidats : dichotomie, en repartant de la dernière position
+                    int from = 0;
+                    for (int i = 0; i < size && from < postings.size; i++) {
+                        int at = Arrays.binarySearch(postings.entries, from, postings.size, entries[i]);
+                        if (at >= 0) {
+                            tokenScores[i] = Math.max(tokenScores[i], match.weight());
+                            from = at + 1;
+                        } else {
+                            from = -at - 1;
+                        }
+                    }
+                } else {
+                    for (int i = 0, j = 0; i < size && j < postings.size; ) {
+                        long candidate = entries[i];
+                        long posted = postings.entries[j];
+                        if (candidate == posted) {
+                            tokenScores[i] = Math.max(tokenScores[i], match.weight());
+                            i++;
+                            j++;
+                        } else if (candidate < posted) {
+                            i++;
+                        } else {
+                            j++;
+                        }
+                    }
+                }
+            }
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                if (tokenScores[i] > 0) {
+                    entries[kept] = entries[i];
+                    scores[kept] = scores[i] + tokenScores[i];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+
+        /**
+         * Les {@code limit} meilleurs candidats, dans l'ordre du classement, sans trier tous les candidats.
+         * Tas des meilleurs rencontrés, le moins bon en tête : la plupart des candidats sont écartés
+         * après une seule comparaison avec lui.
+         */
+        List<Long> top(int limit) {
+            int[] heap = new int[Math.min(limit, size)];
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (n < heap.length) {
+                    heap[n] = i;
+                    siftUp(heap, n++);
+                } else if (n > 0 && ranksBefore(i, heap[0])) {
+                    heap[0] = i;
+                    siftDown(heap, n);
+                }
+            }
+            Long[] result = new Long[n];
+            for (int k = n - 1; k >= 0; k--) {
+                result[k] = entries[heap[0]] >>> LENGTH_BITS;
+                heap[0] = heap[k];
+                siftDown(heap, k);
+            }
+            return List.of(result);
+        }
+
+        /**
+         * Classement : score le plus haut, puis titre le plus court, puis ID le plus petit.
+         */
+        private boolean ranksBefore(int a, int b) {
+            if (scores[a] != scores[b]) {
+                return scores[a] > scores[b];
+            }
+            long lengthA = entries[a] & MAX_LENGTH;
+            long lengthB = entries[b] & MAX_LENGTH;
+            if (lengthA != lengthB) {
+                return lengthA < lengthB;
+            }
+            return entries[a] < entries[b];
+        }
+
+        private void siftUp(int[] heap, int k) {
+            while (k > 0) {
+                int parent = (k - 1) / 2;
+                if (!ranksBefore(heap[parent], heap[k])) {
+                    return;
+                }
+                swap(heap, parent, k);
+                k = parent;
+            }
+        }
+
+        private void siftDown(int[] heap, int n) {
+            int k = 0;
+            while (2 * k + 1 < n) {
+                int child = 2 * k + 1;
+                if (child + 1 < n && ranksBefore(heap[child], heap[child + 1])) {
+                    child++;
+                }
+                if (!ranksBefore(heap[k], heap[child])) {
+                    return;
+                }
+                swap(heap, k, child);
+                k = child;
+            }
+        }
+
+        private static void swap(int[] heap, int i, int j) {
+            int t = heap[i];
+            heap[i] = heap[j];
+            heap[j] = t;
+        }
+    }
+
+    /**
+     * Construit l'index à partir de la base (au démarrage).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.nanoTime();
+        Integer count = readOnlyTransaction.execute(status -> {
+            lock.writeLock().lock();
+            Map<Long, Long> loansPerBook = new HashMap<>();
+            for (Object[] row : loanRepository.countLoansPerBook()) {
+                loansPerBook.put((Long) row[0], (Long) row[1]);
+            }
+            try (Stream<BookSearchEntry> entries = bookRepository.streamSearchEntries()) {
+                documents.clear();
+                titleTerms.clear();
+                authorTerms.clear();
+                suggestions.clear();
+                entries.forEach(entry -> {
+                    add(entry);
+                    suggestions.loadBook(entry, loansPerBook.getOrDefault(entry.id(), 0L));
+                });
+                // Les auteurs sans livre sont aussi proposés
+                authorRepository.findAll().forEach(author ->
+                        suggestions.loadAuthor(author.getId(), author.getFirstName(), author.getLastName()));
+                suggestions.finishLoad();
+                return documents.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+        recentQueries.clear();
+        log.info("Index de recherche construit : {} livre(s) en {} ms", count, (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Recherche les livres correspondant à la requête, du plus pertinent au moins pertinent.
+     * @return les IDs des livres trouvés (au plus {@code limit})
+     */
+    public List<Long> search(String query, int limit) {
+        List<String> tokens = TextNormalizer.tokens(query);
+        if (tokens.isEmpty()) {
+            return List.of();
+        }
+        String cacheKey = String.join(" ", tokens) + '|' + limit;
+        List<Long> cached = recentQueries.get(cacheKey);
+        if (cached != null) {
+            return cached;
+        }
+
+        List<Long> result;
+        lock.readLock().lock();
+        try {
+            // Le mot le plus rare d'abord : ses livres sont les seuls candidats, les suivants ne font que filtrer
+            List<List<Match>> matches = tokens.stream()
+                    .map(this::matches)
+                    .sorted(Comparator.comparingLong(BookSearchIndex::count))
+                    .toList();
+            Candidates candidates = new Candidates(matches.get(0));
+            for (int t = 1; t < matches.size() && candidates.size > 0; t++) {
+                // ET entre les mots : on ne garde que les livres qui correspondent aussi à ce mot
+                candidates.retain(matches.get(t));
+            }
+            result = candidates.top(limit);
+            // Mis en cache sous le verrou de lecture : une modification de l'index ne peut pas s'intercaler
+            // entre le calcul et l'insertion, et le cache qu'elle vide ensuite ne garde pas un résultat périmé
+            recentQueries.put(cacheKey, result);
+        } finally {
+            lock.readLock().unlock();
+        }
+        return result;
+    }
+
+    /**
+     * Suggestions de titres et d'auteurs commençant par le préfixe saisi, les plus empruntés d'abord.
+     * Ne prend pas le verrou : l'arbre des suggestions se lit sans verrou.
+     */
+    public List<BookSuggestion> suggest(String prefix, int limit) {
+        return suggestions.suggest(prefix, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    /**
+     * Indexe (ou réindexe) un livre après la validation de la transaction en cours.
+     */
+    public void index(Book book) {
+        Author author = book.getAuthor();
+        BookSearchEntry entry = new BookSearchEntry(book.getId(), book.getTitle(),
+                author != null ? author.getId() : null,
+                author != null ? author.getFirstName() : null,
+                author != null ? author.getLastName() : null);
+        index(entry);
+    }
+
+    /**
+     * Indexe (ou réindexe) une entrée après la validation de la transaction en cours.
+     */
+    public void index(BookSearchEntry entry) {
+        AfterCommit.run(() -> write(() -> {
+            removeDocument(entry.id());
+            add(entry);
+            suggestions.putBook(entry);
+        }));
+    }
+
+    /**
+     * Indexe un lot de livres (import en masse) après la validation de la transaction en cours.
+     */
+    public void indexAll(List<BookSearchEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<BookSearchEntry> copy = List.copyOf(entries);
+        AfterCommit.run(() -> write(() -> copy.forEach(entry -> {
+            removeDocument(entry.id());
+            add(entry);
+            suggestions.putBook(entry);
+        })));
+    }
+
+    /**
+     * Retire un livre de l'index après la validation de la transaction en cours.
+     */
+    public void remove(Long bookId) {
+        AfterCommit.run(() -> write(() -> {
+            removeDocument(bookId);
+            suggestions.removeBook(bookId);
+        }));
+    }
+
+    /**
+     * Ajoute un nouvel auteur aux suggestions après la validation de la transaction en cours.
+     */
+    public void indexAuthor(Long authorId, String firstName, String lastName) {
+        AfterCommit.run(() -> write(() -> suggestions.putAuthor(authorId, firstName, lastName)));
+    }
+
+    /**
+     * Compte un emprunt dans la popularité des suggestions, après la validation de la transaction en cours.
+     * Ne prend pas le verrou de l'index : seules les suggestions changent, sous leur propre moniteur.
+     */
+    public void recordLoan(Long bookId) {
+        AfterCommit.run(() -> suggestions.recordLoan(bookId));
+    }
+
+    /**
+     * Met à jour le nom d'un auteur dans tous ses livres indexés.
+     */
+    public void updateAuthor(Long authorId, String firstName, String lastName) {
+        Set<String> tokens = authorTokens(firstName, lastName);
+        AfterCommit.run(() -> write(() -> {
+            for (Document document : new ArrayList<>(documents.values())) {
+                if (authorId.equals(document.authorId())) {
+                    unpost(authorTerms, document.authorTokens(), document.posting());
+                    documents.put(document.id(), new Document(document.posting(), authorId,
+                            document.titleTokens(), post(authorTerms, tokens, document.posting())));
+                }
+            }
+            suggestions.putAuthor(authorId, firstName, lastName);
+        }));
+    }
+
+    /**
+     * Retire de l'index tous les livres d'un auteur (supprimés en cascade avec lui).
+     */
+    public void removeAuthor(Long authorId) {
+        AfterCommit.run(() -> write(() -> {
+            for (Document document : new ArrayList<>(documents.values())) {
+                if (authorId.equals(document.authorId())) {
+                    removeDocument(document.id());
+                    suggestions.removeBook(document.id());
+                }
+            }
+            suggestions.removeAuthor(authorId);
+        }));
+    }
+
+    /**
+     * Listes des livres d'un mot de la requête : mot exact et mots qui commencent par lui, titres et auteurs.
+     */
+    private List<Match> matches(String token) {
+        List<Match> matches = new ArrayList<>();
+        collect(titleTerms, token, TITLE_EXACT, TITLE_PREFIX, matches);
+        collect(authorTerms, token, AUTHOR_EXACT, AUTHOR_PREFIX, matches);
+        return matches;
+    }
+
+    private static void collect(NavigableMap<String, Postings> terms, String token,
+                                int exactWeight, int prefixWeight, List<Match> matches) {
+        Postings exact = terms.get(token);
+        if (exact != null) {
+            matches.add(new Match(exact, exactWeight));
+        }
+        if (token.length() >= MIN_PREFIX_LENGTH) {
+            for (Postings postings : terms.subMap(token, false, token + Character.MAX_VALUE, false).values()) {
+                matches.add(new Match(postings, prefixWeight));
+            }
+        }
+    }
+
+    /**
+     * Nombre d'entrées des listes d'un mot (un livre peut y figurer plusieurs fois).
+     */
+    private static long count(List<Match> matches) {
+        long count = 0;
+        for (Match match : matches) {
+            count += match.postings().size;
+        }
+        return count;
+    }
+
+    private void add(BookSearchEntry entry) {
+        long posting = posting(entry.id(), entry.title());
+        String[] titleTokens = post(titleTerms, new HashSet<>(TextNormalizer.tokens(entry.title())), posting);
+        String[] authors = post(authorTerms, authorTokens(entry.authorFirstName(), entry.authorLastName()), posting);
+        documents.put(entry.id(), new Document(posting, entry.authorId(), titleTokens, authors));
+    }
+
+    private void removeDocument(Long bookId) {
+        Document document = documents.remove(bookId);
+        if (document != null) {
+            unpost(titleTerms, document.titleTokens(), document.posting());
+            unpost(authorTerms, document.authorTokens(), document.posting());
+        }
+    }
+
+    private static Set<String> authorTokens(String firstName, String lastName) {
+        Set<String> tokens = new HashSet<>(TextNormalizer.tokens(firstName));
+        tokens.addAll(TextNormalizer.tokens(lastName));
+        return tokens;
+    }
+
+    /**
+     * Ajoute une entrée aux listes de ses mots.
+     * @return les mots, sous la forme des clés de l'index
+     */
+    private static String[] post(NavigableMap<String, Postings> terms, Set<String> tokens, long posting) {
+        String[] posted = new String[tokens.size()];
+        int n = 0;
+        for (String token : tokens) {
+            String key = terms.ceilingKey(token);
+            if (!token.equals(key)) {
+                key = token;
+                terms.put(key, new Postings());
+            }
+            terms.get(key).add(posting);
+            posted[n++] = key;
+        }
+        return posted;
+    }
+
+    private static void unpost(Map<String, Postings> terms, String[] tokens, long posting) {
+        for (String token : tokens) {
+            Postings postings = terms.get(token);
+            if (postings != null && postings.remove(posting) && postings.isEmpty()) {
+                terms.remove(token);
+            }
+        }
+    }
+
+    private void write(Runnable change) {
+        lock.writeLock().lock();
+        try {
+            change.run();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        recentQueries.clear();
+    }
+}
@@ -5,34 +5,75 @@ import be.condorcet.library.model.Author;
 import be.condorcet.library.model.Category;
 import be.condorcet.library.repository.BookRepository;
 import be.condorcet.library.exception.ResourceNotFoundException;
+import be.condorcet.library.exception.BusinessException;
+import be.condorcet.library.dto.BookSuggestion;
+import be.condorcet.library.dto.BookView;
+import be.condorcet.library.dto.Cursor;
+import be.condorcet.library.dto.CursorPage;
+import be.condorcet.library.jfr.SearchEvent;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 /**
  * Service pour gérer les livres du catalogue.
  * Contient la logique métier liée aux livres et au catalogue.
+ *
+ * Les méthodes appelées par les contrôleurs renvoient des {@link BookView} construites dans la transaction :
+ * auteur et catégories sont lus (par lots) avant que la connexion ne retourne au pool, et la sérialisation
+ * JSON ne touche plus la base. Les méthodes qui renvoient l'entité servent aux autres services.
  */
 @Service
 @Transactional
+@Timed(value = "library.service", histogram = true)
 public class BookService {
 
     private final BookRepository bookRepository;
     private final AuthorService authorService;
     private final CategoryService categoryService;
+    private final BookSearchIndex bookSearchIndex;
+    private final Cache secondLevelCache;
+    private final UniquenessFilters uniquenessFilters;
+    private final LoanRejections loanRejections;
 
-    public BookService(BookRepository bookRepository, AuthorService authorService, CategoryService categoryService) {
+    public BookService(BookRepository bookRepository, AuthorService authorService, CategoryService categoryService,
+                       BookSearchIndex bookSearchIndex, EntityManagerFactory entityManagerFactory,
+                       UniquenessFilters uniquenessFilters, LoanRejections loanRejections) {
         this.bookRepository = bookRepository;
         this.authorService = authorService;
         this.categoryService = categoryService;
+        this.bookSearchIndex = bookSearchIndex;
+        this.secondLevelCache = entityManagerFactory.getCache();
+        this.uniquenessFilters = uniquenessFilters;
+        this.loanRejections = loanRejections;
     }
 
     /**
-     * Récupère tous les livres.
+     * Récupère les livres page par page (pagination par curseur sur l'ID).
      */
-    public List<Book> getAllBooks() {
-        return bookRepository.findAll();
+    public CursorPage<BookView> getAllBooks(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Book> rows = bookRepository.findByIdGreaterThanOrderByIdAsc(Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, b -> Cursor.ofId(b.getId())).map(BookView::of);
+    }
+
+    /**
+     * Construit les représentations d'une liste de livres. Les associations encore paresseuses
+     * (catégories des pages, auteurs des requêtes natives) sont chargées par lots de
+     * hibernate.default_batch_fetch_size dès le premier livre, tant que la transaction est ouverte.
+     */
+    private static List<BookView> toViews(List<Book> books) {
+        return books.stream().map(BookView::of).toList();
     }
 
     /**
@@ -43,12 +84,19 @@ public class BookService {
                 .orElseThrow(() -> new ResourceNotFoundException("Livre avec l'ID " + id + " non trouvé"));
     }
 
+    /**
+     * Récupère la représentation d'un livre par son ID.
+     */
+    public BookView getBookView(Long id) {
+        return BookView.of(getBookById(id));
+    }
+
     /**
      * Crée un nouveau livre.
      */
-    public Book createBook(Book book) {
+    public BookView createBook(Book book) {
         // Vérifier que l'ISBN n'existe pas déjà
-        if (bookRepository.existsByIsbn(book.getIsbn())) {
+        if (uniquenessFilters.isbnExists(book.getIsbn())) {
             throw new RuntimeException("Un livre avec l'ISBN '" + book.getIsbn() + "' existe déjà");
         }
         
@@ -63,22 +111,26 @@ public class BookService {
             book.setAvailableCopies(book.getTotalCopies());
         }
         
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        uniquenessFilters.recordIsbn(saved.getIsbn());
+        bookSearchIndex.index(saved);
+        return BookView.of(saved);
     }
 
     /**
      * Met à jour un livre existant.
      */
-    public Book updateBook(Long id, Book bookDetails) {
+    public BookView updateBook(Long id, Book bookDetails) {
         Book book = getBookById(id);
         
         if (bookDetails.getIsbn() != null) {
             // Vérifier que le nouvel ISBN n'existe pas déjà (sauf si c'est le même)
             if (!bookDetails.getIsbn().equals(book.getIsbn()) && 
-                bookRepository.existsByIsbn(bookDetails.getIsbn())) {
+                uniquenessFilters.isbnExists(bookDetails.getIsbn())) {
                 throw new RuntimeException("Un livre avec l'ISBN '" + bookDetails.getIsbn() + "' existe déjà");
             }
             book.setIsbn(bookDetails.getIsbn());
+            uniquenessFilters.recordIsbn(book.getIsbn());
         }
         if (bookDetails.getTitle() != null) {
             book.setTitle(bookDetails.getTitle());
@@ -93,7 +145,46 @@ public class BookService {
             book.setAvailableCopies(bookDetails.getAvailableCopies());
         }
         
-        return bookRepository.save(book);
+        Book saved = bookRepository.save(book);
+        if (bookDetails.getTitle() != null) {
+            bookSearchIndex.index(saved);
+        }
+        return BookView.of(saved);
+    }
+
+    /**
+     * Réserve un exemplaire d'un livre pour un emprunt.
+     * Une seule requête UPDATE conditionnelle (availableCopies > 0) : le livre n'est relu
+     * que si la réservation échoue, pour produire le bon message d'erreur.
+     * @return une référence (non chargée) vers le livre
+     */
+    public Book reserveCopy(Long bookId) {
+        if (bookRepository.decrementAvailableCopies(bookId) == 0) {
+            Book book = getBookById(bookId);
+            throw loanRejections.reject(BusinessException.Rule.NO_COPIES,
+                    "Aucun exemplaire disponible pour le livre '" + book.getTitle() + "'");
+        }
+        evictCachedCopies(bookId);
+        bookSearchIndex.recordLoan(bookId);
+        return bookRepository.getReferenceById(bookId);
+    }
+
+    /**
+     * Remet un exemplaire d'un livre en rayon (retour d'emprunt).
+     */
+    public void releaseCopy(Long bookId) {
+        bookRepository.incrementAvailableCopies(bookId);
+        evictCachedCopies(bookId);
+    }
+
+    /**
+     * Retire un livre du cache de second niveau après une mise à jour SQL de ses exemplaires,
+     * que Hibernate ne voit pas. Retiré tout de suite pour la suite de la transaction, puis de nouveau
+     * après la validation : entre-temps, une autre transaction a pu remettre en cache l'ancienne valeur.
+     */
+    private void evictCachedCopies(Long bookId) {
+        secondLevelCache.evict(Book.class, bookId);
+        AfterCommit.run(() -> secondLevelCache.evict(Book.class, bookId));
     }
 
     /**
@@ -102,51 +193,112 @@ public class BookService {
     public void deleteBook(Long id) {
         Book book = getBookById(id);
         bookRepository.delete(book);
+        bookSearchIndex.remove(id);
     }
 
     /**
      * Recherche un livre par son ISBN.
      */
-    public Book getBookByIsbn(String isbn) {
+    public BookView getBookByIsbn(String isbn) {
         return bookRepository.findByIsbn(isbn)
+                .map(BookView::of)
                 .orElseThrow(() -> new ResourceNotFoundException("Livre avec l'ISBN '" + isbn + "' non trouvé"));
     }
 
     /**
-     * Recherche les livres par titre (recherche partielle).
+     * Recherche les livres par mots du titre ou du nom de l'auteur, sans tenir compte
+     * des accents ni de la casse, les plus pertinents d'abord (index en mémoire).
+     */
+    public List<BookView> searchByTitle(String title, Integer limit) {
+        int size = Cursor.limit(limit);
+        return recordSearch("title", title, size, () -> {
+            List<Long> ids = bookSearchIndex.search(title, size);
+            if (ids.isEmpty()) {
+                return List.of();
+            }
+            // Une seule requête pour charger les livres, remis ensuite dans l'ordre du classement
+            Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                    .collect(Collectors.toMap(Book::getId, Function.identity()));
+            return ids.stream().map(books::get).filter(Objects::nonNull).map(BookView::of).toList();
+        });
+    }
+
+    /**
+     * Recherche approchée par titre en base (sous-chaîne sans accents, fautes de frappe tolérées).
      */
-    public List<Book> searchByTitle(String title) {
-        return bookRepository.findByTitleContainingIgnoreCase(title);
+    public List<BookView> searchByText(String text, Integer limit) {
+        int size = Cursor.limit(limit);
+        return recordSearch("text", text, size, () -> toViews(bookRepository.searchByTitleText(text, size)));
+    }
+
+    /**
+     * Suggestions de titres et d'auteurs pour la saisie semi-automatique.
+     */
+    public List<BookSuggestion> suggest(String prefix, Integer limit) {
+        int size = limit != null && limit > 0 ? limit : BookSearchIndex.MAX_SUGGESTIONS;
+        return recordSearch("suggest", prefix, size, () -> bookSearchIndex.suggest(prefix, size));
+    }
+
+    /**
+     * Exécute une recherche en émettant un événement JFR (type, texte, nombre de résultats, durée).
+     */
+    private static <T> List<T> recordSearch(String kind, String query, int limit, Supplier<List<T>> search) {
+        SearchEvent event = new SearchEvent();
+        event.begin();
+        event.kind = kind;
+        event.query = query;
+        event.limit = limit;
+        try {
+            List<T> results = search.get();
+            event.results = results.size();
+            return results;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     /**
      * Récupère les livres d'un auteur.
      */
-    public List<Book> getBooksByAuthor(Long authorId) {
+    public CursorPage<BookView> getBooksByAuthor(Long authorId, String after, Integer limit) {
         Author author = authorService.getAuthorById(authorId);
-        return bookRepository.findByAuthor(author);
+        int size = Cursor.limit(limit);
+        List<Book> rows = bookRepository.findByAuthorAndIdGreaterThanOrderByIdAsc(author, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, b -> Cursor.ofId(b.getId())).map(BookView::of);
     }
 
     /**
      * Récupère les livres d'une catégorie.
      */
-    public List<Book> getBooksByCategory(Long categoryId) {
+    public CursorPage<BookView> getBooksByCategory(Long categoryId, String after, Integer limit) {
         Category category = categoryService.getCategoryById(categoryId);
-        return bookRepository.findByCategories(category);
+        int size = Cursor.limit(limit);
+        List<Book> rows = bookRepository.findByCategoriesAndIdGreaterThanOrderByIdAsc(
+                category, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, b -> Cursor.ofId(b.getId())).map(BookView::of);
     }
 
     /**
-     * Récupère les livres disponibles (au moins 1 exemplaire).
+     * Récupère les livres disponibles (au moins 1 exemplaire), page par page.
      */
-    public List<Book> getAvailableBooks() {
-        return bookRepository.findByAvailableCopiesGreaterThan(0);
+    public CursorPage<BookView> getAvailableBooks(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Book> rows = bookRepository.findByAvailableCopiesGreaterThanAndIdGreaterThanOrderByIdAsc(
+                0, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, b -> Cursor.ofId(b.getId())).map(BookView::of);
     }
 
     /**
      * Récupère les livres indisponibles.
      */
-    public List<Book> getUnavailableBooks() {
-        return bookRepository.findByAvailableCopies(0);
+    public CursorPage<BookView> getUnavailableBooks(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Book> rows = bookRepository.findByAvailableCopiesAndIdGreaterThanOrderByIdAsc(
+                0, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, b -> Cursor.ofId(b.getId())).map(BookView::of);
     }
 
     /**
@@ -159,36 +311,38 @@ public class BookService {
     /**
      * Ajoute une catégorie à un livre.
      */
-    public Book addCategoryToBook(Long bookId, Long categoryId) {
+    public BookView addCategoryToBook(Long bookId, Long categoryId) {
         Book book = getBookById(bookId);
         Category category = categoryService.getCategoryById(categoryId);
         
         book.addCategory(category);
-        return bookRepository.save(book);
+        return BookView.of(bookRepository.save(book));
     }
 
     /**
      * Retire une catégorie d'un livre.
      */
-    public Book removeCategoryFromBook(Long bookId, Long categoryId) {
+    public BookView removeCategoryFromBook(Long bookId, Long categoryId) {
         Book book = getBookById(bookId);
         Category category = categoryService.getCategoryById(categoryId);
         
         book.removeCategory(category);
-        return bookRepository.save(book);
+        return BookView.of(bookRepository.save(book));
     }
 
     /**
      * Vérifie si un livre existe avec cet ISBN.
      */
     public boolean bookExists(String isbn) {
-        return bookRepository.existsByIsbn(isbn);
+        return uniquenessFilters.isbnExists(isbn);
     }
 
     /**
      * Récupère les livres disponibles d'une catégorie donnée.
      */
-    public List<Book> getAvailableBooksByCategory(String categoryName) {
-        return bookRepository.findAvailableBooksByCategory(categoryName);
+    public CursorPage<BookView> getAvailableBooksByCategory(String categoryName, String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Book> rows = bookRepository.findAvailableBooksByCategoryAfter(categoryName, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, b -> Cursor.ofId(b.getId())).map(BookView::of);
     }
 }
@@ -0,0 +1,462 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.BookSearchEntry;
+import be.condorcet.library.dto.BookSuggestion;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Arbre préfixe (trie) des titres et des noms d'auteurs pour la saisie semi-automatique.
+ *
+ * Chaque nœud garde les meilleures suggestions de son sous-arbre, classées par popularité
+ * (nombre d'emprunts) : une requête descend l'arbre caractère par caractère et renvoie le tableau
+ * du nœud atteint, sans parcourir le sous-arbre. Une modification ne recalcule que les nœuds
+ * du chemin de la clé concernée (les meilleures d'un nœud sont les meilleures parmi ses
+ * suggestions propres et celles de ses enfants).
+ *
+ * Les auteurs sont accessibles par « prénom nom » et par « nom prénom ».
+ *
+ * Les modifications sont synchronisées sur l'arbre lui-même, indépendamment du verrou de l'index
+ * de recherche : un emprunt met à jour la popularité sans bloquer les recherches. Les lectures n'ont
+ * pas besoin de verrou : enfants et meilleures suggestions sont des tableaux remplacés en bloc.
+ */
+final class BookSuggestions {
+
+    // Les clés sont tronquées à cette longueur : au-delà, les candidats sont filtrés à la lecture
+    static final int MAX_KEY_LENGTH = 64;
+
+    private static final Pattern SPACES = Pattern.compile("\\s+");
+
+    private static final Comparator<Entry> RANKING = Comparator
+            .comparingLong((Entry e) -> -e.popularity)
+            .thenComparingInt(e -> e.view.text().length())
+            .thenComparing(e -> e.view.text());
+
+    private static final Node[] NO_CHILDREN = new Node[0];
+    private static final Entry[] NO_ENTRIES = new Entry[0];
+
+    private final int capacity;
+    private final Node root = new Node('\0');
+
+    private final Map<String, Entry> titles = new HashMap<>();
+    private final Map<Long, Entry> authors = new HashMap<>();
+    private final Map<Long, BookRef> books = new HashMap<>();
+
+    /**
+     * @param capacity le nombre de suggestions gardées par nœud (limite haute d'une réponse)
+     */
+    BookSuggestions(int capacity) {
+        this.capacity = capacity;
+    }
+
+    /**
+     * Une suggestion et ses clés dans l'arbre. La popularité est la somme des emprunts
+     * des livres concernés (même titre, ou même auteur).
+     */
+    private static final class Entry {
+        final BookSuggestion view;
+        final String[] keys;
+        long popularity;
+        int references;
+
+        Entry(BookSuggestion view, String... keys) {
+            this.view = view;
+            this.keys = keys;
+        }
+    }
+
+    private static final class BookRef {
+        final Entry title;
+        final Long authorId;
+        long loans;
+
+        BookRef(Entry title, Long authorId, long loans) {
+            this.title = title;
+            this.authorId = authorId;
+            this.loans = loans;
+        }
+    }
+
+    private static final class Node {
+        final char label;
+        // Triés par label ; remplacés en bloc pour les lectures sans verrou
+        volatile Node[] children = NO_CHILDREN;
+        volatile Entry[] top = NO_ENTRIES;
+        // Suggestions dont la clé (tronquée) se termine sur ce nœud ; lues et écrites sous le moniteur de l'arbre
+        Entry[] terminals = NO_ENTRIES;
+
+        Node(char label) {
+            this.label = label;
+        }
+
+        Node child(char c) {
+            Node[] nodes = children;
+            int low = 0;
+            int high = nodes.length - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                char label = nodes[mid].label;
+                if (label < c) {
+                    low = mid + 1;
+                } else if (label > c) {
+                    high = mid - 1;
+                } else {
+                    return nodes[mid];
+                }
+            }
+            return null;
+        }
+    }
+
+    // ---------------------------------------------------------------- lecture
+
+    /**
+     * Les suggestions les plus populaires commençant par le préfixe donné.
+     */
+    List<BookSuggestion> suggest(String query, int limit) {
+        String prefix = asciiKey(query);
+        if (prefix == null) {
+            prefix = key(query);
+        }
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        Node node = root;
+        int depth = Math.min(prefix.length(), MAX_KEY_LENGTH);
+        for (int i = 0; i < depth && node != null; i++) {
+            node = node.child(prefix.charAt(i));
+        }
+        if (node == null) {
+            return List.of();
+        }
+        Entry[] top = node.top;
+        List<BookSuggestion> result = new ArrayList<>(Math.min(limit, top.length));
+        for (int i = 0; i < top.length && result.size() < limit; i++) {
+            if (prefix.length() <= MAX_KEY_LENGTH || matches(top[i], prefix)) {
+                result.add(top[i].view);
+            }
+        }
+        return result;
+    }
+
+    // ---------------------------------------------------------------- chargement initial
+
+    synchronized void clear() {
+        root.children = NO_CHILDREN;
+        root.top = NO_ENTRIES;
+        root.terminals = NO_ENTRIES;
+        titles.clear();
+        authors.clear();
+        books.clear();
+    }
+
+    /**
+     * Ajoute un auteur sans recalculer l'arbre (chargement initial, voir {@link #finishLoad()}).
+     */
+    synchronized void loadAuthor(Long authorId, String firstName, String lastName) {
+        authors.computeIfAbsent(authorId, id -> insert(author(firstName, lastName), false));
+    }
+
+    /**
+     * Ajoute un livre sans recalculer l'arbre (chargement initial, voir {@link #finishLoad()}).
+     */
+    synchronized void loadBook(BookSearchEntry book, long loans) {
+        addBook(book, loans, false);
+    }
+
+    /**
+     * Calcule les meilleures suggestions de tous les nœuds, en un parcours.
+     */
+    synchronized void finishLoad() {
+        computeTops(root);
+    }
+
+    // ---------------------------------------------------------------- mises à jour
+
+    synchronized void putBook(BookSearchEntry book) {
+        BookRef previous = books.get(book.id());
+        long loans = previous != null ? previous.loans : 0;
+        removeBook(book.id());
+        addBook(book, loans, true);
+    }
+
+    synchronized void removeBook(Long bookId) {
+        BookRef ref = books.remove(bookId);
+        if (ref == null) {
+            return;
+        }
+        ref.title.popularity -= ref.loans;
+        if (--ref.title.references == 0) {
+            titles.remove(ref.title.keys[0]);
+            remove(ref.title);
+        } else {
+            refresh(ref.title);
+        }
+        Entry author = authors.get(ref.authorId);
+        if (author != null && ref.loans > 0) {
+            author.popularity -= ref.loans;
+            refresh(author);
+        }
+    }
+
+    synchronized void putAuthor(Long authorId, String firstName, String lastName) {
+        Entry previous = authors.remove(authorId);
+        Entry entry = author(firstName, lastName);
+        if (previous != null) {
+            remove(previous);
+            entry.popularity = previous.popularity;
+        }
+        authors.put(authorId, insert(entry, true));
+    }
+
+    synchronized void removeAuthor(Long authorId) {
+        Entry entry = authors.remove(authorId);
+        if (entry != null) {
+            remove(entry);
+        }
+    }
+
+    /**
+     * Compte un emprunt du livre dans la popularité de son titre et de son auteur.
+     */
+    synchronized void recordLoan(Long bookId) {
+        BookRef ref = books.get(bookId);
+        if (ref == null) {
+            return;
+        }
+        ref.loans++;
+        ref.title.popularity++;
+        refresh(ref.title);
+        Entry author = authors.get(ref.authorId);
+        if (author != null) {
+            author.popularity++;
+            refresh(author);
+        }
+    }
+
+    private void addBook(BookSearchEntry book, long loans, boolean recompute) {
+        String key = key(book.title());
+        if (key.isEmpty()) {
+            return;
+        }
+        Entry title = titles.get(key);
+        if (title == null) {
+            title = insert(new Entry(new BookSuggestion(book.title(), BookSuggestion.Type.TITLE), key), false);
+            titles.put(key, title);
+        }
+        title.references++;
+        title.popularity += loans;
+        books.put(book.id(), new BookRef(title, book.authorId(), loans));
+
+        Entry author = null;
+        if (book.authorId() != null) {
+            author = authors.get(book.authorId());
+            if (author == null) {
+                author = insert(author(book.authorFirstName(), book.authorLastName()), false);
+                authors.put(book.authorId(), author);
+            }
+            author.popularity += loans;
+        }
+        if (recompute) {
+            refresh(title);
+            if (author != null) {
+                refresh(author);
+            }
+        }
+    }
+
+    private static Entry author(String firstName, String lastName) {
+        String first = firstName == null ? "" : firstName.trim();
+        String last = lastName == null ? "" : lastName.trim();
+        String name = (first + " " + last).trim();
+        return new Entry(new BookSuggestion(name, BookSuggestion.Type.AUTHOR),
+                key(first + " " + last), key(last + " " + first));
+    }
+
+    // ---------------------------------------------------------------- arbre
+
+    private Entry insert(Entry entry, boolean recompute) {
+        for (String key : entry.keys) {
+            if (key.isEmpty()) {
+                continue;
+            }
+            Node node = root;
+            for (int i = 0; i < Math.min(key.length(), MAX_KEY_LENGTH); i++) {
+                node = childOrCreate(node, key.charAt(i));
+            }
+            if (!contains(node.terminals, entry)) {
+                node.terminals = append(node.terminals, entry);
+            }
+        }
+        if (recompute) {
+            refresh(entry);
+        }
+        return entry;
+    }
+
+    private void remove(Entry entry) {
+        for (String key : entry.keys) {
+            Node[] path = path(key);
+            if (path == null) {
+                continue;
+            }
+            Node last = path[path.length - 1];
+            last.terminals = Arrays.stream(last.terminals).filter(e -> e != entry).toArray(Entry[]::new);
+            recompute(path, true);
+        }
+    }
+
+    /**
+     * Recalcule les meilleures suggestions le long des chemins d'une suggestion
+     * (après un changement de popularité ou un ajout).
+     */
+    private void refresh(Entry entry) {
+        for (String key : entry.keys) {
+            Node[] path = path(key);
+            if (path != null) {
+                recompute(path, false);
+            }
+        }
+    }
+
+    /**
+     * Les nœuds du chemin d'une clé, racine comprise ; null si la clé n'est pas dans l'arbre.
+     */
+    private Node[] path(String key) {
+        if (key.isEmpty()) {
+            return null;
+        }
+        int depth = Math.min(key.length(), MAX_KEY_LENGTH);
+        Node[] path = new Node[depth + 1];
+        path[0] = root;
+        for (int i = 0; i < depth; i++) {
+            path[i + 1] = path[i].child(key.charAt(i));
+            if (path[i + 1] == null) {
+                return null;
+            }
+        }
+        return path;
+    }
+
+    private void recompute(Node[] path, boolean prune) {
+        for (int i = path.length - 1; i >= 0; i--) {
+            Node node = path[i];
+            if (prune && i > 0 && node.terminals.length == 0 && node.children.length == 0) {
+                Node parent = path[i - 1];
+                parent.children = Arrays.stream(parent.children).filter(n -> n != node).toArray(Node[]::new);
+                continue;
+            }
+            node.top = best(node);
+        }
+    }
+
+    private void computeTops(Node node) {
+        for (Node child : node.children) {
+            computeTops(child);
+        }
+        node.top = best(node);
+    }
+
+    private Entry[] best(Node node) {
+        List<Entry> candidates = new ArrayList<>(Arrays.asList(node.terminals));
+        for (Node child : node.children) {
+            candidates.addAll(Arrays.asList(child.top));
+        }
+        candidates.sort(RANKING);
+        List<Entry> best = new ArrayList<>(Math.min(capacity, candidates.size()));
+        for (Entry entry : candidates) {
+            // Un auteur peut arriver par ses deux clés sous le même nœud
+            if (!best.contains(entry)) {
+                best.add(entry);
+                if (best.size() == capacity) {
+                    break;
+                }
+            }
+        }
+        return best.toArray(NO_ENTRIES);
+    }
+
+    private static Node childOrCreate(Node node, char c) {
+        Node child = node.child(c);
+        if (child != null) {
+            return child;
+        }
+        child = new Node(c);
+        Node[] children = node.children;
+        int index = 0;
+        while (index < children.length && children[index].label < c) {
+            index++;
+        }
+        Node[] copy = new Node[children.length + 1];
+        System.arraycopy(children, 0, copy, 0, index);
+        copy[index] = child;
+        System.arraycopy(children, index, copy, index + 1, children.length - index);
+        node.children = copy;
+        return child;
+    }
+
+    private static boolean contains(Entry[] entries, Entry entry) {
+        for (Entry e : entries) {
+            if (e == entry) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Entry[] append(Entry[] entries, Entry entry) {
+        Entry[] copy = Arrays.copyOf(entries, entries.length + 1);
+        copy[entries.length] = entry;
+        return copy;
+    }
+
+    private static boolean matches(Entry entry, String prefix) {
+        for (String key : entry.keys) {
+            if (key.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ---------------------------------------------------------------- clés
+
+    /**
+     * Clé d'un texte : replié (minuscules, sans accents), espaces normalisés.
+     */
+    static String key(String text) {
+        return SPACES.matcher(TextNormalizer.fold(text).trim()).replaceAll(" ");
+    }
+
+    /**
+     * Chemin rapide pour les requêtes en ASCII sans espaces multiples (le cas courant à la frappe) :
+     * seule la mise en minuscules est nécessaire. Retourne null si la requête demande le chemin complet.
+     */
+    private static String asciiKey(String query) {
+        int start = 0;
+        int end = query.length();
+        while (start < end && query.charAt(start) == ' ') {
+            start++;
+        }
+        while (end > start && query.charAt(end - 1) == ' ') {
+            end--;
+        }
+        boolean lowerCase = true;
+        for (int i = start; i < end; i++) {
+            char c = query.charAt(i);
+            if (c >= 128 || Character.isWhitespace(c) && (c != ' ' || query.charAt(i - 1) == ' ')) {
+                return null;
+            }
+            lowerCase &= c < 'A' || c > 'Z';
+        }
+        String trimmed = query.substring(start, end);
+        return lowerCase ? trimmed : trimmed.toLowerCase(Locale.ROOT);
+    }
+}
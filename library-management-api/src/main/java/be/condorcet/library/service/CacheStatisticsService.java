@@ -0,0 +1,50 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.CacheRegionStats;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Taux de succès du cache de second niveau, par région, à partir des statistiques Hibernate
+ * (hibernate.generate_statistics). Les compteurs partent du démarrage de l'application.
+ */
+@Service
+public class CacheStatisticsService {
+
+    // Régions des entités et collections cachées (voir ehcache.xml)
+    private static final List<String> ENTITY_REGIONS = List.of("authors", "categories", "books", "books.categories");
+
+    // Région des résultats de requêtes (findByIsbn, findByName)
+    private static final String QUERY_REGION = "default-query-results-region";
+
+    private final Statistics statistics;
+
+    public CacheStatisticsService(EntityManagerFactory entityManagerFactory) {
+        this.statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    /**
+     * Statistiques de chaque région, puis du cache de requêtes.
+     */
+    public List<CacheRegionStats> getRegionStats() {
+        List<CacheRegionStats> result = new ArrayList<>();
+        for (String region : ENTITY_REGIONS) {
+            result.add(toStats(region, statistics.getDomainDataRegionStatistics(region)));
+        }
+        result.add(toStats(QUERY_REGION, statistics.getQueryRegionStatistics(QUERY_REGION)));
+        return result;
+    }
+
+    private static CacheRegionStats toStats(String region, CacheRegionStatistics stats) {
+        if (stats == null) {
+            return CacheRegionStats.of(region, 0, 0, 0);
+        }
+        return CacheRegionStats.of(region, stats.getHitCount(), stats.getMissCount(), stats.getPutCount());
+    }
+}
@@ -3,6 +3,9 @@ package be.condorcet.library.service;
 import be.condorcet.library.model.Category;
 import be.condorcet.library.repository.CategoryRepository;
 import be.condorcet.library.exception.ResourceNotFoundException;
+import be.condorcet.library.dto.Cursor;
+import be.condorcet.library.dto.CursorPage;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -23,10 +26,12 @@ public class CategoryService {
     }
 
     /**
-     * Récupère toutes les catégories.
+     * Récupère les catégories page par page (pagination par curseur sur l'ID).
      */
-    public List<Category> getAllCategories() {
-        return categoryRepository.findAll();
+    public CursorPage<Category> getAllCategories(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Category> rows = categoryRepository.findByIdGreaterThanOrderByIdAsc(Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, c -> Cursor.ofId(c.getId()));
     }
 
     /**
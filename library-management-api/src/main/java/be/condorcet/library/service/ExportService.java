@@ -0,0 +1,85 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.repository.BookRepository;
+import be.condorcet.library.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Exports NDJSON (une ligne JSON par enregistrement) des grandes tables, pour l'extraction BI.
+ *
+ * Les lignes sont lues en flux avec un curseur côté serveur (fetch size) sous forme de projections
+ * plates, sans entités ni chargement lazy, et écrites au fur et à mesure dans la réponse :
+ * la mémoire utilisée ne dépend pas de la taille de la table.
+ */
+@Service
+public class ExportService {
+
+    private static final Logger log = LoggerFactory.getLogger(ExportService.class);
+
+    private final BookRepository bookRepository;
+    private final LoanRepository loanRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ExportService(BookRepository bookRepository,
+                         LoanRepository loanRepository,
+                         ObjectMapper objectMapper,
+                         PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.loanRepository = loanRepository;
+        this.objectMapper = objectMapper;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Écrit tout le catalogue en NDJSON.
+     */
+    public long exportBooks(OutputStream out) {
+        return export("livres", bookRepository::streamBookExport, out);
+    }
+
+    /**
+     * Écrit tous les emprunts en NDJSON.
+     */
+    public long exportLoans(OutputStream out) {
+        return export("emprunts", loanRepository::streamLoanExport, out);
+    }
+
+    /**
+     * Parcourt le flux dans une transaction en lecture seule (nécessaire au curseur PostgreSQL)
+     * et écrit chaque ligne suivie d'un retour à la ligne.
+     */
+    private <T> long export(String what, Supplier<Stream<T>> rows, OutputStream out) {
+        long start = System.nanoTime();
+        Long count = readOnlyTransaction.execute(status -> {
+            BufferedOutputStream buffered = new BufferedOutputStream(out, 64 * 1024);
+            long written = 0;
+            try (Stream<T> stream = rows.get()) {
+                for (T row : (Iterable<T>) stream::iterator) {
+                    buffered.write(objectMapper.writeValueAsBytes(row));
+                    buffered.write('\n');
+                    written++;
+                }
+                buffered.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Écriture de l'export interrompue", e);
+            }
+            return written;
+        });
+        log.info("Export NDJSON des {} : {} ligne(s) en {} ms", what, count, (System.nanoTime() - start) / 1_000_000);
+        return count;
+    }
+}
@@ -0,0 +1,148 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.RecordingStatus;
+import be.condorcet.library.exception.BusinessException;
+import be.condorcet.library.exception.ResourceNotFoundException;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.unit.DataSize;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+
+/**
+ * Enregistrement JDK Flight Recorder déclenché à la demande (GET/POST /api/diagnostics/recording).
+ *
+ * Un seul enregistrement à la fois, toujours borné : durée plafonnée par
+ * {@code library.jfr.max-duration}, données sur disque limitées par {@code max-size} et {@code max-age}.
+ * Le fichier .jfr contient les événements de l'application (package jfr) et ceux de la JVM.
+ */
+@Service
+public class FlightRecordingService {
+
+    private static final Logger log = LoggerFactory.getLogger(FlightRecordingService.class);
+
+    private final Duration maxDuration;
+    private final DataSize maxSize;
+    private final Duration maxAge;
+
+    private Recording recording;
+    private String settings;
+    private Path dumpFile;
+
+    public FlightRecordingService(@Value("${library.jfr.max-duration:15m}") Duration maxDuration,
+                                  @Value("${library.jfr.max-size:200MB}") DataSize maxSize,
+                                  @Value("${library.jfr.max-age:30m}") Duration maxAge) {
+        this.maxDuration = maxDuration;
+        this.maxSize = maxSize;
+        this.maxAge = maxAge;
+    }
+
+    /**
+     * Démarre un enregistrement, arrêté automatiquement après {@code duration} (au plus max-duration).
+     * L'enregistrement précédent, s'il est arrêté, est abandonné.
+     * @param settingsName la configuration JFR : default (surcoût ~1 %) ou profile (plus détaillée)
+     * @param duration la durée souhaitée, max-duration si absente
+     */
+    public synchronized RecordingStatus start(String settingsName, Duration duration) {
+        if (recording != null && recording.getState() == RecordingState.RUNNING) {
+            throw new BusinessException("Un enregistrement JFR est déjà en cours (ID " + recording.getId() + ")");
+        }
+        Configuration configuration;
+        try {
+            configuration = Configuration.getConfiguration(settingsName);
+        } catch (IOException | ParseException e) {
+            throw new BusinessException("Configuration JFR inconnue : '" + settingsName + "' (default ou profile)");
+        }
+        discard();
+
+        Recording started = new Recording(configuration);
+        started.setName("library-" + settingsName);
+        started.setToDisk(true);
+        started.setMaxSize(maxSize.toBytes());
+        started.setMaxAge(maxAge);
+        started.setDuration(duration == null || duration.compareTo(maxDuration) > 0 ? maxDuration : duration);
+        started.start();
+        recording = started;
+        settings = settingsName;
+        log.info("Enregistrement JFR {} démarré ({}, durée {})", started.getId(), settingsName, started.getDuration());
+        return RecordingStatus.of(started, settings);
+    }
+
+    /**
+     * Arrête l'enregistrement en cours ; ses données restent téléchargeables.
+     */
+    public synchronized RecordingStatus stop() {
+        Recording current = current();
+        if (current.getState() == RecordingState.RUNNING) {
+            current.stop();
+            log.info("Enregistrement JFR {} arrêté ({} octets)", current.getId(), current.getSize());
+        }
+        return RecordingStatus.of(current, settings);
+    }
+
+    /**
+     * État de l'enregistrement courant.
+     */
+    public synchronized RecordingStatus status() {
+        return RecordingStatus.of(current(), settings);
+    }
+
+    /**
+     * Écrit les données de l'enregistrement (en cours ou arrêté) dans un fichier .jfr temporaire.
+     * Le fichier précédent est supprimé : un seul fichier est conservé sur disque.
+     * @return le chemin du fichier à transmettre
+     */
+    public synchronized Path dump() {
+        Recording current = current();
+        try {
+            deleteDumpFile();
+            dumpFile = Files.createTempFile("library-" + current.getId() + "-", ".jfr");
+            current.dump(dumpFile);
+            return dumpFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Écriture de l'enregistrement JFR impossible", e);
+        }
+    }
+
+    /**
+     * Ferme l'enregistrement et supprime ses données.
+     */
+    @PreDestroy
+    public synchronized void discard() {
+        if (recording != null) {
+            recording.close();
+            recording = null;
+            settings = null;
+        }
+        deleteDumpFile();
+    }
+
+    private Recording current() {
+        if (recording == null) {
+            throw new ResourceNotFoundException("Aucun enregistrement JFR");
+        }
+        return recording;
+    }
+
+    private void deleteDumpFile() {
+        if (dumpFile != null) {
+            try {
+                Files.deleteIfExists(dumpFile);
+            } catch (IOException e) {
+                log.warn("Suppression de {} impossible : {}", dumpFile, e.getMessage());
+            }
+            dumpFile = null;
+        }
+    }
+}
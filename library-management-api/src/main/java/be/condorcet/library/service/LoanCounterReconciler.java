@@ -0,0 +1,99 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.LoanCounterReconciliationResult;
+import be.condorcet.library.model.enums.LoanStatus;
+import be.condorcet.library.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Réconciliation des compteurs d'emprunts des membres (activeLoanCount, totalLoanCount).
+ *
+ * Les compteurs sont maintenus par LoanService ; cette tâche les recalcule à partir de la table loans
+ * pour corriger toute dérive (modification manuelle en base, import, etc.). Elle parcourt les membres
+ * par tranches d'IDs, chaque tranche dans sa propre transaction, et ne réécrit que les membres en écart.
+ * Chaque tranche est d'abord verrouillée, puis recalculée par une seconde requête : le décompte tient
+ * compte des emprunts validés pendant l'attente des verrous, au lieu d'écraser les compteurs avec
+ * un instantané antérieur.
+ * Elle s'exécute au démarrage, en arrière-plan (initialisation des compteurs sur une base existante,
+ * sans retarder la disponibilité de l'API sur une grande base), puis chaque nuit.
+ */
+@Service
+public class LoanCounterReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(LoanCounterReconciler.class);
+
+    private final MemberRepository memberRepository;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final boolean reconcileOnStartup;
+    private final TaskExecutor taskExecutor;
+
+    public LoanCounterReconciler(MemberRepository memberRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 @Value("${library.members.loan-counters.chunk-size:1000}") int chunkSize,
+                                 @Value("${library.members.loan-counters.reconcile-on-startup:true}") boolean reconcileOnStartup,
+                                 @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.memberRepository = memberRepository;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.reconcileOnStartup = reconcileOnStartup;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Exécution au démarrage, sur le pool de tâches de l'application.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconcileOnStartup() {
+        if (reconcileOnStartup) {
+            taskExecutor.execute(this::reconcile);
+        }
+    }
+
+    /**
+     * Exécution planifiée (par défaut chaque nuit à 2h).
+     */
+    @Scheduled(cron = "${library.members.loan-counters.reconcile-cron:0 0 2 * * *}")
+    public void scheduledReconcile() {
+        reconcile();
+    }
+
+    /**
+     * Recalcule les compteurs de tous les membres, tranche par tranche.
+     */
+    public LoanCounterReconciliationResult reconcile() {
+        long start = System.nanoTime();
+        int repaired = 0;
+        int chunks = 0;
+
+        Long maxId = memberRepository.findMaxId();
+        if (maxId != null) {
+            for (long from = 0; from < maxId; from += chunkSize) {
+                long fromId = from;
+                Integer touched = chunkTransaction.execute(status -> {
+                    memberRepository.lockRange(fromId, fromId + chunkSize);
+                    return memberRepository.reconcileLoanCounters(fromId, fromId + chunkSize, LoanStatus.OUTSTANDING);
+                });
+                repaired += touched;
+                chunks++;
+            }
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Réconciliation des compteurs d'emprunts : {} membre(s) corrigé(s) en {} tranche(s), {} ms",
+                repaired, chunks, durationMs);
+        return new LoanCounterReconciliationResult(repaired, chunks, durationMs);
+    }
+}
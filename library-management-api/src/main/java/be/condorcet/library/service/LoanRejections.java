@@ -0,0 +1,37 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.exception.BusinessException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Compte les emprunts refusés par règle métier (métrique library.loans.rejected, étiquette rule).
+ * Les refus sont comptés là où ils sont décidés : POST /api/loans intercepte lui-même
+ * les exceptions, le gestionnaire global ne les voit donc pas toutes.
+ */
+@Component
+public class LoanRejections {
+
+    private final Map<BusinessException.Rule, Counter> counters = new EnumMap<>(BusinessException.Rule.class);
+
+    public LoanRejections(MeterRegistry registry) {
+        for (BusinessException.Rule rule : BusinessException.Rule.values()) {
+            counters.put(rule, Counter.builder("library.loans.rejected")
+                    .description("Emprunts refusés par une règle métier")
+                    .tag("rule", rule.name().toLowerCase())
+                    .register(registry));
+        }
+    }
+
+    /**
+     * Comptabilise un refus et construit l'exception à lever.
+     */
+    public BusinessException reject(BusinessException.Rule rule, String message) {
+        counters.get(rule).increment();
+        return new BusinessException(rule, message);
+    }
+}
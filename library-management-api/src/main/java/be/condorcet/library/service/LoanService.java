@@ -1,5 +1,6 @@
 package be.condorcet.library.service;
 
+import be.condorcet.library.config.OverdueMode;
 import be.condorcet.library.model.Loan;
 import be.condorcet.library.model.Member;
 import be.condorcet.library.model.Book;
@@ -7,10 +8,26 @@ import be.condorcet.library.model.enums.LoanStatus;
 import be.condorcet.library.repository.LoanRepository;
 import be.condorcet.library.exception.ResourceNotFoundException;
 import be.condorcet.library.exception.BusinessException;
+import be.condorcet.library.exception.BusinessException.Rule;
+import be.condorcet.library.dto.Cursor;
+import be.condorcet.library.dto.BorrowQuota;
+import be.condorcet.library.dto.CheckoutRequest;
+import be.condorcet.library.dto.CursorPage;
+import be.condorcet.library.dto.LoanView;
+import be.condorcet.library.dto.OverdueSweepResult;
+import be.condorcet.library.jfr.CheckoutEvent;
+import be.condorcet.library.jfr.ReturnEvent;
+import org.springframework.data.domain.Limit;
+import io.micrometer.core.annotation.Timed;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -21,29 +38,44 @@ import java.util.List;
  * 1. Un membre ne peut pas emprunter plus de 3 livres simultanément
  * 2. On ne peut emprunter que si le livre a des exemplaires disponibles
  * 3. Un emprunt devient OVERDUE si la date limite est dépassée et le livre n'est pas rendu
+ *    (écrit par la tâche planifiée en mode STORED, calculé à la lecture en mode DERIVED)
  */
 @Service
 @Transactional
+@Timed(value = "library.service", histogram = true)
 public class LoanService {
 
     private final LoanRepository loanRepository;
     private final MemberService memberService;
     private final BookService bookService;
+    private final OverdueLoanSweeper overdueLoanSweeper;
+    private final OverdueMode overdueMode;
+    private final LoanRejections loanRejections;
 
     // Constante : limite d'emprunts actifs par membre
-    private static final int MAX_ACTIVE_LOANS_PER_MEMBER = 3;
+    public static final int MAX_ACTIVE_LOANS_PER_MEMBER = 3;
 
-    public LoanService(LoanRepository loanRepository, MemberService memberService, BookService bookService) {
+    // Index unique partiel des emprunts en cours (db/loan-constraints.sql)
+    private static final String OUTSTANDING_LOAN_INDEX = "uk_loans_outstanding_member_book";
+
+    public LoanService(LoanRepository loanRepository, MemberService memberService, BookService bookService,
+                       OverdueLoanSweeper overdueLoanSweeper, LoanRejections loanRejections,
+                       @Value("${library.loans.overdue-mode:STORED}") OverdueMode overdueMode) {
         this.loanRepository = loanRepository;
         this.memberService = memberService;
         this.bookService = bookService;
+        this.overdueLoanSweeper = overdueLoanSweeper;
+        this.overdueMode = overdueMode;
+        this.loanRejections = loanRejections;
     }
 
     /**
-     * Récupère tous les emprunts.
+     * Récupère les emprunts page par page (pagination par curseur sur l'ID).
      */
-    public List<Loan> getAllLoans() {
-        return loanRepository.findAll();
+    public CursorPage<LoanView> getAllLoans(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<Loan> rows = loanRepository.findByIdGreaterThanOrderByIdAsc(Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, l -> Cursor.ofId(l.getId())).map(LoanView::of);
     }
 
     /**
@@ -54,6 +86,14 @@ public class LoanService {
                 .orElseThrow(() -> new ResourceNotFoundException("Emprunt avec l'ID " + id + " non trouvé"));
     }
 
+    /**
+     * Récupère la représentation d'un emprunt par son ID (avec le membre et le livre), en une requête.
+     */
+    public LoanView getLoanView(Long id) {
+        return loanRepository.findViewById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Emprunt avec l'ID " + id + " non trouvé"));
+    }
+
     /**
      * Crée un nouvel emprunt (RÈGLE MÉTIER IMPORTANTE).
      * 
@@ -63,148 +103,262 @@ public class LoanService {
      * - Le livre a des exemplaires disponibles
      * - Le membre n'a pas déjà 3 emprunts actifs
      * - Le membre n'a pas déjà emprunté ce livre (sans l'avoir rendu)
+     *
+     * Budget : 4 requêtes SQL dans le cas nominal (compteurs du membre, réservation d'exemplaire, insertion,
+     * puis lecture projetée de l'emprunt créé), plus l'allocation d'un bloc d'IDs tous les 50 emprunts.
+     * Les deux mises à jour sont des UPDATE conditionnels : deux emprunts simultanés ne peuvent ni
+     * dépasser le quota du membre, ni réserver le même dernier exemplaire d'un titre. Deux emprunts
+     * simultanés du même livre par le même membre passent tous deux la vérification des compteurs
+     * (READ COMMITTED) : c'est l'index unique des emprunts en cours qui refuse le second, à l'insertion.
      */
-    public Loan createLoan(Long memberId, Long bookId, LocalDate dueDate) {
-        // Vérifier que le membre existe et est actif
-        Member member = memberService.getMemberById(memberId);
-        if (!member.getActive()) {
-            throw new BusinessException("Le compte du membre est suspendu. Impossible d'emprunter.");
-        }
+    public LoanView createLoan(Long memberId, Long bookId, LocalDate dueDate) {
+        CheckoutEvent event = new CheckoutEvent();
+        event.begin();
+        event.memberId = memberId;
+        event.bookIds = String.valueOf(bookId);
+        event.bookCount = 1;
+        try {
+            // Membre actif, quota (RÈGLE 2) et doublon (RÈGLE 3) vérifiés et comptabilisés en une seule requête
+            if (!memberService.registerLoan(memberId, bookId, MAX_ACTIVE_LOANS_PER_MEMBER)) {
+                rejectLoan(memberId, 1);
+            }
 
-        // Vérifier que le livre existe
-        Book book = bookService.getBookById(bookId);
+            // RÈGLE 1 : Réserver un exemplaire (échoue si le livre n'existe pas ou n'a plus d'exemplaire)
+            Book book = bookService.reserveCopy(bookId);
 
-        // RÈGLE 1 : Vérifier que le livre a des exemplaires disponibles
-        if (book.getAvailableCopies() <= 0) {
-            throw new BusinessException("Aucun exemplaire disponible pour le livre '" + book.getTitle() + "'");
-        }
+            // Créer l'emprunt
+            Member member = memberService.getMemberReference(memberId);
+            Loan loan = new Loan(LocalDate.now(), dueDate, member, book);
+            loan.setStatus(LoanStatus.ACTIVE);
 
-        // RÈGLE 2 : Vérifier que le membre n'a pas déjà 3 emprunts actifs
-        long activeLoans = loanRepository.countByMemberAndStatus(member, LoanStatus.ACTIVE);
-        if (activeLoans >= MAX_ACTIVE_LOANS_PER_MEMBER) {
-            throw new BusinessException("Le membre a déjà atteint la limite de " + MAX_ACTIVE_LOANS_PER_MEMBER + 
-                    " emprunts actifs simultanés");
+            return getLoanView(insert(List.of(loan), 1).get(0).getId());
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
         }
+    }
 
-        // RÈGLE 3 : Vérifier que le membre n'a pas déjà cet exemplaire emprunté (sans l'avoir rendu)
-        if (loanRepository.existsByMemberAndBookAndStatus(member, book, LoanStatus.ACTIVE)) {
-            throw new BusinessException("Le membre a déjà emprunté ce livre et ne l'a pas encore rendu");
-        }
+    /**
+     * Emprunt de plusieurs livres en une seule transaction (panier du guichet).
+     *
+     * Tout ou rien : si un seul livre ne peut pas être emprunté, aucun emprunt n'est créé.
+     * Le quota et les doublons sont vérifiés une seule fois pour tout le panier, les exemplaires
+     * sont réservés livre par livre (UPDATE conditionnels, dans l'ordre des IDs pour éviter les
+     * interblocages entre paniers concurrents) et les emprunts sont insérés ensemble, puis relus
+     * en une seule requête projetée.
+     */
+    public List<LoanView> createLoans(CheckoutRequest request) {
+        CheckoutEvent event = new CheckoutEvent();
+        event.begin();
+        event.memberId = request.memberId();
+        event.bookIds = request.bookIds().toString();
+        event.bookCount = request.bookIds().size();
+        try {
+            Long memberId = request.memberId();
+            List<Long> bookIds = request.bookIds().stream().distinct().sorted().toList();
+            if (bookIds.size() != request.bookIds().size()) {
+                throw loanRejections.reject(Rule.DUPLICATE, "Le panier contient plusieurs fois le même livre");
+            }
 
-        // Créer l'emprunt
-        Loan loan = new Loan(LocalDate.now(), dueDate, member, book);
-        loan.setStatus(LoanStatus.ACTIVE);
+            // Membre actif, quota et doublons vérifiés et comptabilisés pour tout le panier
+            if (!memberService.registerLoans(memberId, bookIds, MAX_ACTIVE_LOANS_PER_MEMBER)) {
+                rejectLoan(memberId, bookIds.size());
+            }
 
-        // Décrémenter le nombre d'exemplaires disponibles
-        book.setAvailableCopies(book.getAvailableCopies() - 1);
-        bookService.updateBook(book.getId(), book);
+            Member member = memberService.getMemberReference(memberId);
+            LocalDate today = LocalDate.now();
+            List<Loan> loans = new ArrayList<>(bookIds.size());
+            for (Long bookId : bookIds) {
+                Book book = bookService.reserveCopy(bookId);
+                Loan loan = new Loan(today, request.dueDate(), member, book);
+                loan.setStatus(LoanStatus.ACTIVE);
+                loans.add(loan);
+            }
 
-        return loanRepository.save(loan);
+            return loanRepository.findViewsByIdIn(insert(loans, bookIds.size()).stream().map(Loan::getId).toList());
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     /**
-     * Retourne un livre (enregistre le retour).
+     * Insère les emprunts tout de suite (et non à la validation) pour traduire une violation de l'index
+     * unique des emprunts en cours en refus DUPLICATE : emprunt concurrent du même livre par le même membre.
+     * @param requested le nombre de livres demandés (message du refus)
      */
-    public Loan returnBook(Long loanId) {
-        Loan loan = getLoanById(loanId);
+    private List<Loan> insert(List<Loan> loans, int requested) {
+        try {
+            return loanRepository.saveAllAndFlush(loans);
+        } catch (DataIntegrityViolationException e) {
+            if (e.getCause() instanceof ConstraintViolationException violation
+                    && OUTSTANDING_LOAN_INDEX.equals(violation.getConstraintName())) {
+                throw loanRejections.reject(Rule.DUPLICATE, requested > 1
+                        ? "Le membre a déjà emprunté un de ces livres et ne l'a pas encore rendu"
+                        : "Le membre a déjà emprunté ce livre et ne l'a pas encore rendu");
+            }
+            throw e;
+        }
+    }
 
-        if (loan.getStatus() == LoanStatus.RETURNED) {
-            throw new BusinessException("Ce livre a déjà été retourné");
+    /**
+     * Identifie la règle qui a fait échouer un emprunt et lève l'exception correspondante.
+     * Appelée uniquement en cas de refus : le cas nominal ne relit pas le membre.
+     * @param requested le nombre de livres demandés
+     */
+    private void rejectLoan(Long memberId, int requested) {
+        Member member = memberService.getMemberById(memberId);
+        if (!member.getActive()) {
+            throw loanRejections.reject(Rule.SUSPENDED, "Le compte du membre est suspendu. Impossible d'emprunter.");
+        }
+        if (member.getActiveLoanCount() >= MAX_ACTIVE_LOANS_PER_MEMBER) {
+            throw loanRejections.reject(Rule.QUOTA, "Le membre a déjà atteint la limite de " +
+                    MAX_ACTIVE_LOANS_PER_MEMBER + " emprunts actifs simultanés");
+        }
+        if (member.getActiveLoanCount() + requested > MAX_ACTIVE_LOANS_PER_MEMBER) {
+            throw loanRejections.reject(Rule.QUOTA, "Le panier de " + requested + " livres dépasserait la limite de " +
+                    MAX_ACTIVE_LOANS_PER_MEMBER + " emprunts actifs simultanés");
         }
+        if (requested > 1) {
+            throw loanRejections.reject(Rule.DUPLICATE, "Le membre a déjà emprunté un de ces livres et ne l'a pas encore rendu");
+        }
+        throw loanRejections.reject(Rule.DUPLICATE, "Le membre a déjà emprunté ce livre et ne l'a pas encore rendu");
+    }
+
+    /**
+     * Retourne un livre (enregistre le retour).
+     * Budget : 5 requêtes SQL (lecture de l'emprunt, remise en rayon, compteur du membre, mise à jour
+     * de l'emprunt, lecture projetée de la représentation renvoyée).
+     */
+    public LoanView returnBook(Long loanId) {
+        ReturnEvent event = new ReturnEvent();
+        event.begin();
+        event.loanId = loanId;
+        try {
+            Loan loan = getLoanById(loanId);
+            event.memberId = loan.getMember().getId();
+            event.bookId = loan.getBook().getId();
 
-        // Enregistrer la date de retour
-        loan.setReturnDate(LocalDate.now());
-        loan.setStatus(LoanStatus.RETURNED);
+            if (loan.getStatus() == LoanStatus.RETURNED) {
+                throw new BusinessException("Ce livre a déjà été retourné");
+            }
+
+            // Enregistrer la date de retour
+            loan.setReturnDate(LocalDate.now());
+            loan.setStatus(LoanStatus.RETURNED);
 
-        // Incrémenter le nombre d'exemplaires disponibles
-        Book book = loan.getBook();
-        book.setAvailableCopies(book.getAvailableCopies() + 1);
-        bookService.updateBook(book.getId(), book);
+            // Incrémenter le nombre d'exemplaires disponibles (UPDATE atomique, sans relire le livre)
+            bookService.releaseCopy(loan.getBook().getId());
+            memberService.registerReturn(loan.getMember().getId());
 
-        return loanRepository.save(loan);
+            return getLoanView(loanRepository.save(loan).getId());
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
     }
 
     /**
      * Met à jour le statut des emprunts (vérifie et marque les retards).
-     * Cette méthode doit être appelée régulièrement (par une tâche planifiée).
+     * Exécutée chaque nuit par OverdueLoanSweeper ; cet appel permet de la déclencher à la demande.
+     * Pas de transaction englobante : chaque lot est validé séparément.
      */
-    @Transactional
-    public void updateOverdueLoans() {
-        List<Loan> activeLoans = loanRepository.findByStatus(LoanStatus.ACTIVE);
-
-        for (Loan loan : activeLoans) {
-            if (loan.isOverdue()) {
-                loan.setStatus(LoanStatus.OVERDUE);
-                loanRepository.save(loan);
-            }
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public OverdueSweepResult updateOverdueLoans() {
+        return overdueLoanSweeper.sweep(LocalDate.now());
     }
 
     /**
-     * Récupère les emprunts actifs d'un membre.
+     * Récupère les emprunts en cours d'un membre (non rendus, en retard ou non), page par page (curseur sur l'ID).
+     * Même résultat quel que soit le mode de calcul des retards ; chaque emprunt porte son statut effectif.
      */
-    public List<Loan> getActiveLoansByMember(Long memberId) {
+    public CursorPage<LoanView> getActiveLoansByMember(Long memberId, String after, Integer limit) {
         Member member = memberService.getMemberById(memberId);
-        return loanRepository.findByMemberAndStatus(member, LoanStatus.ACTIVE);
+        int size = Cursor.limit(limit);
+        List<Loan> rows = loanRepository.findByMemberAndStatusInAndIdGreaterThanOrderByIdAsc(
+                member, LoanStatus.OUTSTANDING, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, l -> Cursor.ofId(l.getId())).map(LoanView::of);
     }
 
     /**
-     * Récupère tous les emprunts d'un membre.
+     * Récupère les emprunts d'un membre, du plus récent au plus ancien, page par page.
+     * Le curseur porte la clé (date d'emprunt, id) du dernier emprunt de la page précédente.
      */
-    public List<Loan> getLoansByMember(Long memberId) {
+    public CursorPage<LoanView> getLoansByMember(Long memberId, String after, Integer limit) {
         Member member = memberService.getMemberById(memberId);
-        return loanRepository.findLoansByMemberOrderByDate(member);
+        int size = Cursor.limit(limit);
+        Cursor.DateKey key = Cursor.date(after);
+        List<Loan> rows = key == null
+                ? loanRepository.findByMemberOrderByLoanDateDescIdDesc(member, Limit.of(size + 1))
+                : loanRepository.findLoansByMemberBefore(member, key.date(), key.id(), Limit.of(size + 1));
+        return CursorPage.of(rows, size, l -> Cursor.ofDate(l.getLoanDate(), l.getId())).map(LoanView::of);
     }
 
     /**
-     * Récupère les emprunts en retard.
+     * Récupère les emprunts en retard, page par page (curseur sur l'ID).
+     * En mode DERIVED, le retard est évalué dans la requête (non rendu et date de retour prévue dépassée) ;
+     * les emprunts déjà marqués OVERDUE par un ancien passage de la tâche sont aussi inclus.
      */
-    public List<Loan> getOverdueLoans() {
-        return loanRepository.findByStatus(LoanStatus.OVERDUE);
+    public CursorPage<LoanView> getOverdueLoans(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        long afterId = Cursor.id(after);
+        List<Loan> rows = overdueMode == OverdueMode.DERIVED
+                ? loanRepository.findByDueDateBeforeAndStatusInAndIdGreaterThanOrderByIdAsc(
+                        LocalDate.now(), LoanStatus.OUTSTANDING, afterId, Limit.of(size + 1))
+                : loanRepository.findByStatusAndIdGreaterThanOrderByIdAsc(LoanStatus.OVERDUE, afterId, Limit.of(size + 1));
+        return CursorPage.of(rows, size, l -> Cursor.ofId(l.getId())).map(LoanView::of);
     }
 
     /**
-     * Récupère les emprunts d'un livre.
+     * Récupère les emprunts d'un livre, page par page.
      */
-    public List<Loan> getLoansByBook(Long bookId) {
+    public CursorPage<LoanView> getLoansByBook(Long bookId, String after, Integer limit) {
         Book book = bookService.getBookById(bookId);
-        return loanRepository.findByBook(book);
+        int size = Cursor.limit(limit);
+        List<Loan> rows = loanRepository.findByBookAndIdGreaterThanOrderByIdAsc(book, Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, l -> Cursor.ofId(l.getId())).map(LoanView::of);
     }
 
     /**
-     * Compte le nombre d'emprunts actifs d'un membre.
+     * Compte le nombre d'emprunts en cours (non rendus) d'un membre.
+     * Lu sur le compteur du membre : une lecture par clé primaire.
      */
     public long countActiveLoansByMember(Long memberId) {
-        Member member = memberService.getMemberById(memberId);
-        return loanRepository.countByMemberAndStatus(member, LoanStatus.ACTIVE);
+        return memberService.getMemberById(memberId).getActiveLoanCount();
     }
 
     /**
-     * Compte le nombre d'emprunts total d'un membre.
+     * Compte le nombre d'emprunts total d'un membre (lu sur le compteur du membre).
      */
     public long countTotalLoansByMember(Long memberId) {
-        return loanRepository.countTotalLoansByMember(memberId);
+        return memberService.getMemberById(memberId).getTotalLoanCount();
     }
 
     /**
-     * Vérifie si un membre peut emprunter (moins de 3 emprunts actifs).
+     * Vérifie si un membre peut emprunter (moins de 3 emprunts en cours).
      */
     public boolean canMemberBorrow(Long memberId) {
-        long activeLoans = loanRepository.countByMemberAndStatus(
-                memberService.getMemberById(memberId), 
-                LoanStatus.ACTIVE
-        );
-        return activeLoans < MAX_ACTIVE_LOANS_PER_MEMBER;
+        return getBorrowQuota(memberId).canBorrow();
     }
 
     /**
-     * Récupère le nombre d'emprunts actifs restants qu'un membre peut faire.
+     * Récupère le nombre d'emprunts restants qu'un membre peut faire.
      */
     public int getRemainingBorrowQuota(Long memberId) {
-        long activeLoans = loanRepository.countByMemberAndStatus(
-                memberService.getMemberById(memberId), 
-                LoanStatus.ACTIVE
-        );
-        return Math.max(0, (int) (MAX_ACTIVE_LOANS_PER_MEMBER - activeLoans));
+        return getBorrowQuota(memberId).remainingQuota();
+    }
+
+    /**
+     * Récupère le quota d'emprunt d'un membre en une seule lecture du membre.
+     */
+    public BorrowQuota getBorrowQuota(Long memberId) {
+        Member member = memberService.getMemberById(memberId);
+        return BorrowQuota.of(memberId, member.getActiveLoanCount(), MAX_ACTIVE_LOANS_PER_MEMBER);
     }
 }
@@ -0,0 +1,73 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.ActiveLoanView;
+import be.condorcet.library.dto.BorrowQuota;
+import be.condorcet.library.dto.MemberDashboard;
+import be.condorcet.library.dto.MemberSummary;
+import be.condorcet.library.exception.ResourceNotFoundException;
+import be.condorcet.library.model.enums.LoanStatus;
+import be.condorcet.library.repository.LoanRepository;
+import be.condorcet.library.repository.MemberRepository;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Service qui assemble le tableau de bord d'un membre (écran du guichet de prêt).
+ *
+ * Remplace cinq appels HTTP (profil, emprunts actifs, quota, deux statistiques) par deux requêtes
+ * de projection indépendantes, lancées en parallèle : le profil avec ses compteurs d'emprunts
+ * (d'où découlent quota et statistiques) et les emprunts en cours avec le titre des livres.
+ * Pas de transaction englobante : chaque requête utilise sa propre connexion.
+ * Les deux requêtes s'exécutent sur l'exécuteur dédié dashboardTaskExecutor (voir AsyncExecutorsConfig).
+ */
+@Service
+public class MemberDashboardService {
+
+    private final MemberRepository memberRepository;
+    private final LoanRepository loanRepository;
+    private final AsyncTaskExecutor taskExecutor;
+
+    public MemberDashboardService(MemberRepository memberRepository,
+                                  LoanRepository loanRepository,
+                                  @Qualifier("dashboardTaskExecutor") AsyncTaskExecutor taskExecutor) {
+        this.memberRepository = memberRepository;
+        this.loanRepository = loanRepository;
+        this.taskExecutor = taskExecutor;
+    }
+
+    /**
+     * Récupère le tableau de bord d'un membre.
+     */
+    public MemberDashboard getDashboard(Long memberId) {
+        CompletableFuture<MemberSummary> member = CompletableFuture.supplyAsync(
+                () -> memberRepository.findSummaryById(memberId)
+                        .orElseThrow(() -> new ResourceNotFoundException("Membre avec l'ID " + memberId + " non trouvé")),
+                taskExecutor);
+        CompletableFuture<List<ActiveLoanView>> activeLoans = CompletableFuture.supplyAsync(
+                () -> loanRepository.findLoanViewsByMember(memberId, LoanStatus.OUTSTANDING),
+                taskExecutor);
+
+        MemberSummary summary = join(member);
+        BorrowQuota quota = BorrowQuota.of(memberId, summary.activeLoanCount(), LoanService.MAX_ACTIVE_LOANS_PER_MEMBER);
+        return new MemberDashboard(summary, join(activeLoans), quota);
+    }
+
+    /**
+     * Attend le résultat d'une sous-requête en relançant l'exception d'origine (ex. membre non trouvé).
+     */
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
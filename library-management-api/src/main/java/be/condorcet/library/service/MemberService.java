@@ -1,11 +1,20 @@
 package be.condorcet.library.service;
 
+import be.condorcet.library.dto.LoanCounterReconciliationResult;
 import be.condorcet.library.model.Member;
+import be.condorcet.library.model.enums.LoanStatus;
 import be.condorcet.library.repository.MemberRepository;
 import be.condorcet.library.exception.ResourceNotFoundException;
+import be.condorcet.library.dto.Cursor;
+import be.condorcet.library.dto.CursorPage;
+import be.condorcet.library.dto.MemberSummary;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -14,19 +23,27 @@ import java.util.List;
  */
 @Service
 @Transactional
+@Timed(value = "library.service", histogram = true)
 public class MemberService {
 
     private final MemberRepository memberRepository;
+    private final LoanCounterReconciler loanCounterReconciler;
+    private final UniquenessFilters uniquenessFilters;
 
-    public MemberService(MemberRepository memberRepository) {
+    public MemberService(MemberRepository memberRepository, LoanCounterReconciler loanCounterReconciler,
+                         UniquenessFilters uniquenessFilters) {
         this.memberRepository = memberRepository;
+        this.loanCounterReconciler = loanCounterReconciler;
+        this.uniquenessFilters = uniquenessFilters;
     }
 
     /**
-     * Récupère tous les membres.
+     * Récupère les membres page par page (pagination par curseur sur l'ID).
      */
-    public List<Member> getAllMembers() {
-        return memberRepository.findAll();
+    public CursorPage<MemberSummary> getAllMembers(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<MemberSummary> rows = memberRepository.findSummariesAfter(Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, m -> Cursor.ofId(m.id()));
     }
 
     /**
@@ -37,30 +54,82 @@ public class MemberService {
                 .orElseThrow(() -> new ResourceNotFoundException("Membre avec l'ID " + id + " non trouvé"));
     }
 
+    /**
+     * Récupère le profil d'un membre par son ID (projection, sans charger l'entité).
+     */
+    public MemberSummary getMemberSummary(Long id) {
+        return memberRepository.findSummaryById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Membre avec l'ID " + id + " non trouvé"));
+    }
+
+    /**
+     * Récupère une référence vers un membre sans le charger (aucune requête).
+     * À utiliser quand l'existence du membre a déjà été vérifiée.
+     */
+    public Member getMemberReference(Long id) {
+        return memberRepository.getReferenceById(id);
+    }
+
+    /**
+     * Comptabilise un nouvel emprunt sur les compteurs du membre (requête conditionnelle unique).
+     * @return true si le membre est actif, sous le quota et n'a pas déjà ce livre en cours d'emprunt
+     */
+    public boolean registerLoan(Long memberId, Long bookId, int maxActiveLoans) {
+        return registerLoans(memberId, List.of(bookId), maxActiveLoans);
+    }
+
+    /**
+     * Comptabilise plusieurs emprunts d'un coup sur les compteurs du membre (requête conditionnelle unique).
+     * @return true si le membre est actif, reste sous le quota et n'a aucun de ces livres en cours d'emprunt
+     */
+    public boolean registerLoans(Long memberId, Collection<Long> bookIds, int maxActiveLoans) {
+        return memberRepository.incrementLoanCounters(
+                memberId, bookIds, bookIds.size(), maxActiveLoans, LoanStatus.OUTSTANDING) == 1;
+    }
+
+    /**
+     * Comptabilise un retour sur le compteur d'emprunts en cours du membre.
+     */
+    public void registerReturn(Long memberId) {
+        memberRepository.decrementActiveLoanCount(memberId);
+    }
+
+    /**
+     * Recalcule les compteurs d'emprunts de tous les membres à la demande.
+     * Pas de transaction englobante : chaque tranche est validée séparément.
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public LoanCounterReconciliationResult reconcileLoanCounters() {
+        return loanCounterReconciler.reconcile();
+    }
+
     /**
      * Crée un nouveau membre.
      */
-    public Member createMember(Member member) {
+    public MemberSummary createMember(Member member) {
         // Vérifier que l'email n'existe pas déjà
-        if (memberRepository.existsByEmail(member.getEmail())) {
+        if (uniquenessFilters.emailExists(member.getEmail())) {
             throw new RuntimeException("Un membre avec l'email '" + member.getEmail() + "' existe déjà");
         }
-        return memberRepository.save(member);
+        Member saved = memberRepository.save(member);
+        uniquenessFilters.recordEmail(saved.getEmail());
+        return MemberSummary.of(saved);
     }
 
     /**
      * Met à jour un membre existant.
      */
-    public Member updateMember(Long id, Member memberDetails) {
+    public MemberSummary updateMember(Long id, Member memberDetails) {
         Member member = getMemberById(id);
         
         if (memberDetails.getEmail() != null) {
             // Vérifier que le nouvel email n'existe pas déjà (sauf si c'est le même)
             if (!memberDetails.getEmail().equals(member.getEmail()) && 
-                memberRepository.existsByEmail(memberDetails.getEmail())) {
+                uniquenessFilters.emailExists(memberDetails.getEmail())) {
                 throw new RuntimeException("Un membre avec l'email '" + memberDetails.getEmail() + "' existe déjà");
             }
             member.setEmail(memberDetails.getEmail());
+            uniquenessFilters.recordEmail(member.getEmail());
         }
         if (memberDetails.getFirstName() != null) {
             member.setFirstName(memberDetails.getFirstName());
@@ -75,7 +144,7 @@ public class MemberService {
             member.setActive(memberDetails.getActive());
         }
         
-        return memberRepository.save(member);
+        return MemberSummary.of(memberRepository.save(member));
     }
 
     /**
@@ -89,34 +158,45 @@ public class MemberService {
     /**
      * Recherche un membre par son email.
      */
-    public Member getMemberByEmail(String email) {
-        return memberRepository.findByEmail(email)
+    public MemberSummary getMemberByEmail(String email) {
+        return memberRepository.findSummaryByEmail(email)
                 .orElseThrow(() -> new ResourceNotFoundException("Membre avec l'email '" + email + "' non trouvé"));
     }
 
     /**
-     * Récupère tous les membres actifs.
+     * Recherche les membres par nom de famille (partiel, sans accents, fautes de frappe tolérées).
+     */
+    public List<MemberSummary> searchByLastName(String lastName, Integer limit) {
+        return memberRepository.searchByLastNameText(lastName, Cursor.limit(limit)).stream()
+                .map(MemberSummary::of)
+                .toList();
+    }
+
+    /**
+     * Récupère les membres actifs page par page (curseur sur l'ID).
      */
-    public List<Member> getActiveMembers() {
-        return memberRepository.findByActiveTrue();
+    public CursorPage<MemberSummary> getActiveMembers(String after, Integer limit) {
+        int size = Cursor.limit(limit);
+        List<MemberSummary> rows = memberRepository.findActiveSummariesAfter(Cursor.id(after), Limit.of(size + 1));
+        return CursorPage.of(rows, size, m -> Cursor.ofId(m.id()));
     }
 
     /**
      * Désactive un membre (suspension du compte).
      */
-    public Member suspendMember(Long id) {
+    public MemberSummary suspendMember(Long id) {
         Member member = getMemberById(id);
         member.setActive(false);
-        return memberRepository.save(member);
+        return MemberSummary.of(memberRepository.save(member));
     }
 
     /**
      * Réactive un membre (levée de suspension).
      */
-    public Member activateMember(Long id) {
+    public MemberSummary activateMember(Long id) {
         Member member = getMemberById(id);
         member.setActive(true);
-        return memberRepository.save(member);
+        return MemberSummary.of(memberRepository.save(member));
     }
 
     /**
@@ -130,6 +210,6 @@ public class MemberService {
      * Vérifie si un membre existe avec cet email.
      */
     public boolean memberExists(String email) {
-        return memberRepository.existsByEmail(email);
+        return uniquenessFilters.emailExists(email);
     }
 }
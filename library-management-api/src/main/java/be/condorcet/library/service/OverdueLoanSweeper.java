@@ -0,0 +1,110 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.config.OverdueMode;
+import be.condorcet.library.dto.OverdueSweepResult;
+import be.condorcet.library.jfr.OverdueSweepEvent;
+import be.condorcet.library.model.enums.LoanStatus;
+import be.condorcet.library.repository.LoanRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Tâche planifiée qui marque les emprunts en retard (ACTIVE → OVERDUE).
+ *
+ * Au lieu de charger tous les emprunts actifs en mémoire, elle travaille par lots :
+ * chaque lot lit au plus {@code chunkSize} IDs d'emprunts échus puis les met à jour
+ * avec un seul UPDATE, dans sa propre transaction courte.
+ *
+ * En mode {@link OverdueMode#DERIVED}, le retard est calculé à la lecture et la tâche n'écrit rien.
+ */
+@Service
+public class OverdueLoanSweeper {
+
+    private static final Logger log = LoggerFactory.getLogger(OverdueLoanSweeper.class);
+
+    private final LoanRepository loanRepository;
+    private final TransactionTemplate chunkTransaction;
+    private final int chunkSize;
+    private final OverdueMode overdueMode;
+
+    public OverdueLoanSweeper(LoanRepository loanRepository,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${library.loans.overdue-sweep.chunk-size:1000}") int chunkSize,
+                              @Value("${library.loans.overdue-mode:STORED}") OverdueMode overdueMode) {
+        this.loanRepository = loanRepository;
+        this.chunkTransaction = new TransactionTemplate(transactionManager);
+        this.chunkTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkSize = chunkSize;
+        this.overdueMode = overdueMode;
+    }
+
+    /**
+     * Exécution planifiée (par défaut chaque nuit à 1h).
+     */
+    @Scheduled(cron = "${library.loans.overdue-sweep.cron:0 0 1 * * *}")
+    public void scheduledSweep() {
+        sweep(LocalDate.now());
+    }
+
+    /**
+     * Marque comme OVERDUE tous les emprunts ACTIVE dont la date de retour prévue est antérieure à {@code today}.
+     * Les emprunts mis à jour sortent de l'ensemble ACTIVE : chaque lot reprend donc naturellement les suivants.
+     */
+    public OverdueSweepResult sweep(LocalDate today) {
+        OverdueSweepEvent event = new OverdueSweepEvent();
+        event.begin();
+        event.mode = overdueMode.name();
+        try {
+            OverdueSweepResult result = doSweep(today);
+            event.updatedLoans = result.updatedLoans();
+            event.chunks = result.chunks();
+            return result;
+        } catch (RuntimeException e) {
+            event.fail(e);
+            throw e;
+        } finally {
+            event.commit();
+        }
+    }
+
+    private OverdueSweepResult doSweep(LocalDate today) {
+        if (overdueMode == OverdueMode.DERIVED) {
+            log.debug("Détection des retards ignorée : retard calculé à la lecture (mode DERIVED)");
+            return new OverdueSweepResult(0, 0, 0);
+        }
+        long start = System.nanoTime();
+        int updated = 0;
+        int chunks = 0;
+
+        while (true) {
+            Integer touched = chunkTransaction.execute(status -> {
+                List<Long> ids = loanRepository.findIdsByDueDateBeforeAndStatus(
+                        today, LoanStatus.ACTIVE, Limit.of(chunkSize));
+                if (ids.isEmpty()) {
+                    return null;
+                }
+                return loanRepository.updateStatusByIds(ids, LoanStatus.ACTIVE, LoanStatus.OVERDUE);
+            });
+            if (touched == null) {
+                break;
+            }
+            updated += touched;
+            chunks++;
+        }
+
+        long durationMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Détection des retards : {} emprunt(s) passé(s) en OVERDUE en {} lot(s), {} ms",
+                updated, chunks, durationMs);
+        return new OverdueSweepResult(updated, chunks, durationMs);
+    }
+}
@@ -0,0 +1,47 @@
+package be.condorcet.library.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/**
+ * Normalisation des textes pour la recherche : minuscules, sans accents ni ligatures,
+ * découpés en mots. « Élève » et « eleve » donnent ainsi le même terme.
+ */
+public final class TextNormalizer {
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private TextNormalizer() {
+    }
+
+    /**
+     * Replie un texte : décomposition Unicode, suppression des accents, ligatures œ/æ développées, minuscules.
+     */
+    public static String fold(String text) {
+        if (text == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(text, Normalizer.Form.NFD);
+        return DIACRITICS.matcher(decomposed).replaceAll("")
+                .replace("œ", "oe").replace("Œ", "oe")
+                .replace("æ", "ae").replace("Æ", "ae")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Découpe un texte replié en mots (lettres et chiffres).
+     */
+    public static List<String> tokens(String text) {
+        List<String> tokens = new ArrayList<>();
+        for (String token : SEPARATORS.split(fold(text))) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
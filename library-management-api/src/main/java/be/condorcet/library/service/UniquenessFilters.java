@@ -0,0 +1,197 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.dto.UniquenessFilterStats;
+import be.condorcet.library.repository.AuthorRepository;
+import be.condorcet.library.repository.BookRepository;
+import be.condorcet.library.repository.MemberRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * Filtres de Bloom devant les vérifications d'unicité (ISBN, email des membres, nom des auteurs).
+ *
+ * Une valeur nouvelle, le cas courant (création, import), est presque toujours « absente à coup sûr »
+ * pour le filtre : la requête EXISTS est évitée. Sinon (« peut-être présente »), la base tranche,
+ * et la contrainte d'unicité reste le dernier rempart.
+ *
+ * Les filtres sont remplis au démarrage puis à chaque écriture. Une valeur est ajoutée dès l'écriture,
+ * sans attendre la validation : une transaction annulée ne laisse qu'un faux positif, jamais un faux
+ * négatif. Les suppressions ne retirent rien (impossible dans un filtre de Bloom) : elles ne font
+ * qu'augmenter le taux de faux positifs jusqu'au prochain redémarrage.
+ */
+@Service
+public class UniquenessFilters {
+
+    private static final Logger log = LoggerFactory.getLogger(UniquenessFilters.class);
+
+    // Taux de faux positifs visé et marge de croissance avant que le taux réel ne se dégrade
+    private static final double FALSE_POSITIVE_RATE = 0.01;
+    private static final int GROWTH_FACTOR = 2;
+    private static final long MIN_CAPACITY = 100_000;
+
+    private final BookRepository bookRepository;
+    private final MemberRepository memberRepository;
+    private final AuthorRepository authorRepository;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private final Filter isbns = new Filter("isbn");
+    private final Filter emails = new Filter("email");
+    private final Filter authors = new Filter("author");
+
+    public UniquenessFilters(BookRepository bookRepository,
+                             MemberRepository memberRepository,
+                             AuthorRepository authorRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.bookRepository = bookRepository;
+        this.memberRepository = memberRepository;
+        this.authorRepository = authorRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Un filtre et ses compteurs. Tant qu'il n'est pas prêt, toutes les vérifications partent en base.
+     */
+    private static final class Filter {
+        final String name;
+        volatile BloomFilter bloom;
+        volatile boolean ready;
+        final AtomicLong checks = new AtomicLong();
+        final AtomicLong skipped = new AtomicLong();
+        final AtomicLong falsePositives = new AtomicLong();
+        // Valeurs écrites avant la création du filtre (gardé par this)
+        final List<String> pending = new ArrayList<>();
+
+        Filter(String name) {
+            this.name = name;
+        }
+
+        boolean exists(String key, Predicate<String> database) {
+            checks.incrementAndGet();
+            BloomFilter filter = bloom;
+            if (ready && !filter.mightContain(key)) {
+                skipped.incrementAndGet();
+                return false;
+            }
+            boolean exists = database.test(key);
+            if (ready && !exists) {
+                falsePositives.incrementAndGet();
+            }
+            return exists;
+        }
+
+        void put(String key) {
+            if (key == null) {
+                return;
+            }
+            BloomFilter filter = bloom;
+            if (filter == null) {
+                synchronized (this) {
+                    if (bloom == null) {
+                        pending.add(key);
+                        return;
+                    }
+                    filter = bloom;
+                }
+            }
+            filter.put(key);
+        }
+
+        /**
+         * Crée le filtre vide avant de le remplir : les valeurs écrites avant (en attente) et pendant
+         * le remplissage y sont ajoutées elles aussi, même si leur transaction n'était pas encore validée
+         * quand la lecture de la base a commencé.
+         */
+        void load(long count, Runnable fill) {
+            BloomFilter filter = new BloomFilter(Math.max(MIN_CAPACITY, count * GROWTH_FACTOR), FALSE_POSITIVE_RATE);
+            synchronized (this) {
+                pending.forEach(filter::put);
+                pending.clear();
+                bloom = filter;
+            }
+            fill.run();
+            ready = true;
+        }
+
+        UniquenessFilterStats stats() {
+            long fp = falsePositives.get();
+            long negatives = fp + skipped.get();
+            BloomFilter filter = bloom;
+            return new UniquenessFilterStats(name, ready, checks.get(), skipped.get(), fp,
+                    negatives == 0 ? 0 : (double) fp / negatives,
+                    filter == null ? 0 : filter.expectedFalsePositiveRate());
+        }
+    }
+
+    /**
+     * Remplit les filtres à partir de la base (au démarrage).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        long start = System.nanoTime();
+        readOnlyTransaction.executeWithoutResult(status -> {
+            isbns.load(bookRepository.count(), () -> {
+                try (Stream<String> values = bookRepository.streamAllIsbns()) {
+                    values.forEach(isbns::put);
+                }
+            });
+            emails.load(memberRepository.count(), () -> {
+                try (Stream<String> values = memberRepository.streamAllEmails()) {
+                    values.forEach(emails::put);
+                }
+            });
+            authors.load(authorRepository.count(), () -> {
+                try (Stream<Object[]> names = authorRepository.streamAllNames()) {
+                    names.forEach(name -> authors.put(authorKey((String) name[0], (String) name[1])));
+                }
+            });
+        });
+        log.info("Filtres d'unicité chargés en {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public boolean isbnExists(String isbn) {
+        return isbns.exists(isbn, bookRepository::existsByIsbn);
+    }
+
+    public boolean emailExists(String email) {
+        return emails.exists(email, memberRepository::existsByEmail);
+    }
+
+    public boolean authorExists(String firstName, String lastName) {
+        return authors.exists(authorKey(firstName, lastName),
+                key -> authorRepository.existsByFirstNameAndLastName(firstName, lastName));
+    }
+
+    public void recordIsbn(String isbn) {
+        isbns.put(isbn);
+    }
+
+    public void recordEmail(String email) {
+        emails.put(email);
+    }
+
+    public void recordAuthor(String firstName, String lastName) {
+        authors.put(authorKey(firstName, lastName));
+    }
+
+    public List<UniquenessFilterStats> getStats() {
+        return List.of(isbns.stats(), emails.stats(), authors.stats());
+    }
+
+    // Même égalité que la requête (sensible à la casse) ; le séparateur ne peut pas apparaître dans un nom.
+    // Partagée avec l'import du catalogue, pour qu'un auteur soit reconnu de la même façon partout.
+    static String authorKey(String firstName, String lastName) {
+        return firstName + '\u0000' + lastName;
+    }
+}
@@ -1,41 +1,59 @@
--- Nettoyage des tables (ordre pour respecter les clés étrangères)
-DELETE FROM book_categories;
-DELETE FROM loans;
-DELETE FROM books;
-DELETE FROM categories;
-DELETE FROM authors;
-DELETE FROM members;
+-- Jeu de démonstration, inséré uniquement sur une base vide : un jeu de données généré
+-- (profil dataset, voir DatasetGenerator) ou saisi via l'API est conservé au redémarrage.
 
 -- Auteurs
-INSERT INTO authors (id, first_name, last_name, nationality, birth_year) VALUES
+INSERT INTO authors (id, first_name, last_name, nationality, birth_year)
+SELECT * FROM (VALUES
   (1, 'Jules', 'Verne', 'France', 1828),
   (2, 'George', 'Orwell', 'UK', 1903),
-  (3, 'Mary', 'Shelley', 'UK', 1797);
+  (3, 'Mary', 'Shelley', 'UK', 1797)) AS v
+WHERE NOT EXISTS (SELECT 1 FROM books)
+ON CONFLICT DO NOTHING;
 
 -- Catégories
-INSERT INTO categories (id, name, description) VALUES
+INSERT INTO categories (id, name, description)
+SELECT * FROM (VALUES
   (1, 'Science-Fiction', 'Voyages extraordinaires et anticipations scientifiques'),
   (2, 'Dystopie', 'Sociétés imaginaires, totalitarismes et surveillance'),
-  (3, 'Horreur', 'Frissons, monstres et gothique romantique');
+  (3, 'Horreur', 'Frissons, monstres et gothique romantique')) AS v
+WHERE NOT EXISTS (SELECT 1 FROM books)
+ON CONFLICT DO NOTHING;
 
 -- Membres
-INSERT INTO members (id, email, first_name, last_name, membership_date, active) VALUES
+INSERT INTO members (id, email, first_name, last_name, membership_date, active)
+SELECT v.id, v.email, v.first_name, v.last_name, v.membership_date::date, v.active FROM (VALUES
   (1, 'alice@example.com', 'Alice', 'Durand', '2023-01-10', true),
   (2, 'bob@example.com', 'Bob', 'Martin', '2023-02-15', true),
-  (3, 'carol@example.com', 'Carol', 'Leroy', '2023-03-20', true);
+  (3, 'carol@example.com', 'Carol', 'Leroy', '2023-03-20', true)) AS v (id, email, first_name, last_name, membership_date, active)
+WHERE NOT EXISTS (SELECT 1 FROM books)
+ON CONFLICT DO NOTHING;
 
--- Livres
-INSERT INTO books (id, isbn, title, publication_year, available_copies, total_copies, author_id) VALUES
+-- Livres (insérés en dernier : la condition sur books garde les instructions précédentes cohérentes)
+INSERT INTO books (id, isbn, title, publication_year, available_copies, total_copies, author_id)
+SELECT * FROM (VALUES
   (1, '978-2-07-040051-9', 'Vingt mille lieues sous les mers', 1870, 3, 3, 1),
   (2, '978-2-07-036053-0', 'Le Tour du monde en 80 jours', 1872, 2, 2, 1),
   (3, '978-0-452-28423-4', '1984', 1949, 4, 4, 2),
   (4, '978-0-452-28424-1', 'Animal Farm', 1945, 3, 3, 2),
-  (5, '978-0-553-21375-2', 'Frankenstein', 1818, 2, 2, 3);
+  (5, '978-0-553-21375-2', 'Frankenstein', 1818, 2, 2, 3)) AS v
+WHERE NOT EXISTS (SELECT 1 FROM books)
+ON CONFLICT DO NOTHING;
 
 -- Association Livres-Catégories
-INSERT INTO book_categories (book_id, category_id) VALUES
+INSERT INTO book_categories (book_id, category_id)
+SELECT * FROM (VALUES
   (1, 1),
   (2, 1),
   (3, 2),
   (4, 2),
-  (5, 3);
+  (5, 3)) AS v
+WHERE NOT EXISTS (SELECT 1 FROM book_categories)
+ON CONFLICT DO NOTHING;
+
+-- Séquences placées au-delà des IDs existants (borne haute du bloc « pooled », d'où la marge de 50),
+-- sans jamais reculer : les IDs fixés à la main ci-dessus restent sous 1000
+SELECT setval('authors_seq', GREATEST((SELECT last_value FROM authors_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM authors), 1000));
+SELECT setval('categories_seq', GREATEST((SELECT last_value FROM categories_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM categories), 1000));
+SELECT setval('members_seq', GREATEST((SELECT last_value FROM members_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM members), 1000));
+SELECT setval('books_seq', GREATEST((SELECT last_value FROM books_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM books), 1000));
+SELECT setval('loans_seq', GREATEST((SELECT last_value FROM loans_seq), (SELECT COALESCE(MAX(id), 0) + 50 FROM loans), 1000));
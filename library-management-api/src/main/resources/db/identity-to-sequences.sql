@@ -0,0 +1,24 @@
+-- Migration d'une base existante : colonnes IDENTITY → séquences « pooled » (allocationSize = 50).
+-- À exécuter une fois (psql) avant de démarrer la version qui utilise les séquences.
+-- Chaque séquence est placée au-delà du plus grand ID existant : avec l'optimiseur « pooled »,
+-- la valeur lue est la borne haute du bloc réservé, d'où la marge de 50.
+
+CREATE SEQUENCE IF NOT EXISTS authors_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('authors_seq', COALESCE((SELECT MAX(id) FROM authors), 0) + 50);
+ALTER TABLE authors ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS categories_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('categories_seq', COALESCE((SELECT MAX(id) FROM categories), 0) + 50);
+ALTER TABLE categories ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS members_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('members_seq', COALESCE((SELECT MAX(id) FROM members), 0) + 50);
+ALTER TABLE members ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS books_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('books_seq', COALESCE((SELECT MAX(id) FROM books), 0) + 50);
+ALTER TABLE books ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+CREATE SEQUENCE IF NOT EXISTS loans_seq START WITH 1 INCREMENT BY 50;
+SELECT setval('loans_seq', COALESCE((SELECT MAX(id) FROM loans), 0) + 50);
+ALTER TABLE loans ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,10 @@
+-- Contraintes des emprunts que le mapping JPA ne sait pas exprimer.
+-- Exécuté à chaque démarrage, après la mise à jour du schéma par Hibernate (instructions idempotentes).
+
+-- Un membre n'a jamais deux emprunts en cours du même livre. La vérification de
+-- MemberRepository.incrementLoanCounters ne suffit pas seule : deux emprunts simultanés du même livre
+-- s'attendent sur la ligne du membre, et le second, en READ COMMITTED, revérifie la ligne du membre
+-- avec l'instantané pris avant la validation du premier (il ne voit pas le premier emprunt).
+-- Nom repris par LoanService pour traduire la violation en refus DUPLICATE.
+CREATE UNIQUE INDEX IF NOT EXISTS uk_loans_outstanding_member_book
+    ON loans (member_id, book_id) WHERE status IN ('ACTIVE', 'OVERDUE');
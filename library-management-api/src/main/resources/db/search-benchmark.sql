@@ -0,0 +1,60 @@
+-- Banc d'essai de la recherche par titre sur un catalogue d'un million de livres.
+-- À exécuter (psql) sur une base où db/search-schema.sql a déjà été appliqué ; tout est créé
+-- dans un schéma « bench » supprimé à la fin, les tables de l'application ne sont pas touchées.
+-- Compare l'ancienne requête (LIKE sur lower(title), parcours complet) aux requêtes
+-- sur la colonne normalisée indexée en trigrammes.
+
+DROP SCHEMA IF EXISTS bench CASCADE;
+CREATE SCHEMA bench;
+
+CREATE TABLE bench.books (
+    id bigint PRIMARY KEY,
+    title varchar(255) NOT NULL,
+    title_search text GENERATED ALWAYS AS (library_unaccent(title)) STORED
+);
+
+-- Titres : un mot courant accentué suivi de 2 à 5 mots tirés de 13 824 mots synthétiques (trois syllabes
+-- dont certaines accentuées), numéro en fin de titre ; graine fixe, résultats reproductibles
+SELECT setseed(0.42);
+INSERT INTO bench.books (id, title)
+SELECT g, (ARRAY['Élève','Mer','Lieues','Forêt','Château','Été','Hiver','Cœur','Rêve','Fenêtre',
+                 'Île','Prière','Étoile','Frère','Mémoire','Théâtre','Légende','Épée','Bâtiment','Naïf',
+                 'Voyage','Nuit','Jardin','Rivière','Histoire','Secret','Ombre','Lumière','Chemin','Roi'])
+              [1 + floor(random() * 30)::int]
+          || ' ' || array_to_string(ARRAY(
+              SELECT s[1 + floor(random() * 24)::int] || s[1 + floor(random() * 24)::int] || s[1 + floor(random() * 24)::int]
+              FROM (SELECT ARRAY['ba','ché','do','fè','gu','la','mi','no','pê','ri','so','tu',
+                                 'vé','zo','ca','lè','mo','ni','ra','sè','ta','vi','bé','du'] AS s) syllables,
+                   generate_series(1, 2 + (g % 4))), ' ')
+          || ' ' || g
+FROM generate_series(1, 1000000) g;
+
+CREATE INDEX ON bench.books USING gin (title_search gin_trgm_ops);
+ANALYZE bench.books;
+
+-- 1. Ancienne requête (findByTitleContainingIgnoreCase) : parcours complet de la table,
+--    et « chedoso » ne trouve pas « chédoso »
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench.books WHERE lower(title) LIKE '%' || lower('chedoso') || '%' LIMIT 20;
+
+-- 2. Même sous-chaîne sur la colonne normalisée, servie par l'index trigramme
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT * FROM bench.books WHERE title_search LIKE '%' || library_unaccent('chedoso') || '%' LIMIT 20;
+
+-- 3. Requête de BookRepository.searchByTitleText avec une faute de frappe (« chedosso »)
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT b.* FROM bench.books b
+WHERE b.title_search LIKE '%' || library_unaccent('chedosso') || '%'
+   OR library_unaccent('chedosso') <% b.title_search
+ORDER BY library_unaccent('chedosso') <<-> b.title_search, b.id
+LIMIT 20;
+
+-- 4. Cas défavorable : mot très fréquent (un titre sur trente), toutes les correspondances sont classées
+EXPLAIN (ANALYZE, BUFFERS, COSTS OFF)
+SELECT b.* FROM bench.books b
+WHERE b.title_search LIKE '%' || library_unaccent('chateu') || '%'
+   OR library_unaccent('chateu') <% b.title_search
+ORDER BY library_unaccent('chateu') <<-> b.title_search, b.id
+LIMIT 20;
+
+DROP SCHEMA bench CASCADE;
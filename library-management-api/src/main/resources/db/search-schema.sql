@@ -0,0 +1,26 @@
+-- Recherche plein texte tolérante côté PostgreSQL : colonnes normalisées (minuscules, sans accents)
+-- générées par la base et indexées en trigrammes (pg_trgm).
+-- Exécuté à chaque démarrage, après la mise à jour du schéma par Hibernate (toutes les instructions
+-- sont idempotentes). Les colonnes *_search ne sont pas mappées dans les entités : seules les
+-- requêtes natives des repositories les utilisent.
+
+CREATE EXTENSION IF NOT EXISTS unaccent;
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- unaccent() n'est pas IMMUTABLE (son dictionnaire est résolu à l'exécution) : cette enveloppe,
+-- qui fixe le dictionnaire, peut servir dans une colonne générée et dans un index
+CREATE OR REPLACE FUNCTION library_unaccent(text) RETURNS text
+    LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT
+    AS $$ SELECT lower(public.unaccent('public.unaccent'::regdictionary, $1)) $$;
+
+ALTER TABLE books ADD COLUMN IF NOT EXISTS title_search text
+    GENERATED ALWAYS AS (library_unaccent(title)) STORED;
+CREATE INDEX IF NOT EXISTS idx_books_title_search_trgm ON books USING gin (title_search gin_trgm_ops);
+
+ALTER TABLE authors ADD COLUMN IF NOT EXISTS last_name_search text
+    GENERATED ALWAYS AS (library_unaccent(last_name)) STORED;
+CREATE INDEX IF NOT EXISTS idx_authors_last_name_search_trgm ON authors USING gin (last_name_search gin_trgm_ops);
+
+ALTER TABLE members ADD COLUMN IF NOT EXISTS last_name_search text
+    GENERATED ALWAYS AS (library_unaccent(last_name)) STORED;
+CREATE INDEX IF NOT EXISTS idx_members_last_name_search_trgm ON members USING gin (last_name_search gin_trgm_ops);
@@ -0,0 +1,49 @@
+package be.condorcet.library;
+
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+
+/**
+ * Base des tests d'intégration : application complète (serveur HTTP sur un port libre) sur PostgreSQL
+ * embarqué, chargé avec test-data.sql. La configuration étant identique pour toutes les sous-classes,
+ * le contexte Spring et la base sont partagés : chaque test travaille sur ses propres lignes du jeu de données.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.sql.init.data-locations=classpath:test-data.sql",
+        "spring.main.banner-mode=off",
+        // Aucune tâche en arrière-plan : les requêtes SQL comptées sont celles des appels testés
+        "library.loans.overdue-sweep.cron=-",
+        "library.members.loan-counters.reconcile-cron=-",
+        "library.members.loan-counters.reconcile-on-startup=false"})
+public abstract class PostgresIntegrationTest {
+
+    private static EmbeddedPostgres postgres;
+
+    @DynamicPropertySource
+    static void database(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", PostgresIntegrationTest::jdbcUrl);
+    }
+
+    private static synchronized String jdbcUrl() {
+        if (postgres == null) {
+            try {
+                postgres = EmbeddedPostgres.builder().start();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Démarrage de PostgreSQL embarqué impossible", e);
+            }
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+                try {
+                    postgres.close();
+                } catch (IOException e) {
+                    // JVM en cours d'arrêt : rien de plus à faire
+                }
+            }, "embedded-postgres-stop"));
+        }
+        return postgres.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true";
+    }
+}
@@ -0,0 +1,316 @@
+package be.condorcet.library.controller;
+
+import be.condorcet.library.PostgresIntegrationTest;
+import jakarta.persistence.EntityManagerFactory;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.TestMethodOrder;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Budget de requêtes SQL et de latence de chaque endpoint, sur PostgreSQL embarqué chargé avec test-data.sql.
+ *
+ * Chaque appel passe par HTTP (sécurité, sérialisation JSON comprise) avec les caches Hibernate vidés :
+ * le nombre d'exécutions JDBC compté est le pire cas, et tout N+1 ou chargement paresseux réintroduit
+ * dans un service ou pendant la sérialisation dépasse le budget (ou échoue en 500, open-in-view étant désactivé).
+ * Le compte attendu est exact : un budget plus élevé doit être une décision explicite, pas une dérive,
+ * et une baisse se reporte ici. Les allocations de blocs d'IDs (nextval, une tous les 50 INSERT) ne sont pas
+ * comptées : elles dépendent des écritures faites avant, dans cette classe ou une autre du même contexte.
+ *
+ * Les plafonds de latence ne sont vérifiés que sur demande, avec -Dlibrary.budget.latency-factor=N
+ * (1 pour les plafonds tels quels, davantage sur une machine lente), après un échauffement des lectures :
+ * sur une machine partagée, une mesure d'horloge ferait échouer le build au hasard.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class EndpointBudgetTest extends PostgresIntegrationTest {
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointBudgetTest.class);
+
+    // Facteur des plafonds de latence ; null : latences mesurées et journalisées, pas vérifiées
+    private static final String LATENCY_FACTOR = System.getProperty("library.budget.latency-factor");
+    private static final String ADMIN = "Basic " + Base64.getEncoder().encodeToString("admin:admin".getBytes(StandardCharsets.UTF_8));
+    private static final String JSON = "application/json";
+    private static final LocalDate DUE = LocalDate.now().plusDays(14);
+
+    private final HttpClient http = HttpClient.newHttpClient();
+    private final AtomicInteger statements = new AtomicInteger();
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Lectures : état initial du jeu de test, chaque appel rejouable.
+     */
+    static Stream<Call> reads() {
+        return Stream.of(
+                get("/api/authors?limit=50", 200, 1),
+                get("/api/authors/1", 200, 1),
+                get("/api/authors/search/lastname?lastName=verne", 200, 1),
+                get("/api/authors/search/nationality?nationality=France&limit=50", 200, 1),
+
+                get("/api/categories?limit=50", 200, 1),
+                get("/api/categories/1", 200, 1),
+                get("/api/categories/search/name?name=Genre%2001", 200, 1),
+
+                get("/api/books?limit=100", 200, 2),
+                adminGet("/api/books/export", 200, 1),
+                get("/api/books/1", 200, 3),
+                get("/api/books/99999", 404, 1),
+                get("/api/books/search/isbn?isbn=979-000000001", 200, 3),
+                get("/api/books/search/title?title=voyage&limit=50", 200, 1),
+                get("/api/books/search/text?q=chateau&limit=50", 200, 3),
+                get("/api/books/suggest?q=mem", 200, 0),
+                get("/api/books/author/1?limit=100", 200, 3),
+                get("/api/books/category/1?limit=100", 200, 3),
+                get("/api/books/available?limit=100", 200, 2),
+                get("/api/books/unavailable?limit=100", 200, 2),
+                get("/api/books/stats/available-count", 200, 1),
+                get("/api/books/available/category?categoryName=Genre%2002&limit=100", 200, 2),
+
+                get("/api/loans?limit=100", 200, 1),
+                adminGet("/api/loans/export", 200, 1),
+                get("/api/loans/2003", 200, 1),
+                get("/api/loans/member/2?limit=100", 200, 2),
+                get("/api/loans/member/2/active?limit=100", 200, 2),
+                get("/api/loans/book/5", 200, 2),
+                get("/api/loans/overdue?limit=100", 200, 1),
+                get("/api/loans/stats/member/2/active-count", 200, 1),
+                get("/api/loans/stats/member/2/total-count", 200, 1),
+                get("/api/loans/quota/member/2", 200, 1),
+
+                get("/api/members?limit=100", 200, 1),
+                get("/api/members/1", 200, 1),
+                get("/api/members/2/dashboard", 200, 2),
+                get("/api/members/search/email?email=membre1@example.com", 200, 1),
+                get("/api/members/search/lastname?lastName=nom1", 200, 1),
+                get("/api/members/status/active?limit=100", 200, 1),
+                get("/api/members/stats/active-count", 200, 1),
+
+                adminGet("/api/cache/stats", 200, 0),
+                adminGet("/api/cache/uniqueness-filters", 200, 0));
+    }
+
+    /**
+     * Écritures, dans l'ordre : chacune porte sur des lignes que les précédentes n'ont pas touchées.
+     */
+    static Stream<Call> writes() {
+        return Stream.of(
+                call("POST", "/api/authors", JSON,
+                        "{\"firstName\":\"Ada\",\"lastName\":\"Lovelace\",\"nationality\":\"UK\",\"birthYear\":1815}", 201, 1),
+                call("PUT", "/api/authors/49", JSON,
+                        "{\"firstName\":\"Jules\",\"lastName\":\"Verne\",\"nationality\":\"France\",\"birthYear\":1828}", 200, 2),
+                call("DELETE", "/api/authors/50", null, null, 204, 3),
+
+                call("POST", "/api/categories", JSON, "{\"name\":\"Genre 99\",\"description\":\"Test\"}", 201, 2),
+                call("PUT", "/api/categories/9", JSON, "{\"name\":\"Genre 09 bis\",\"description\":\"Test\"}", 200, 3),
+                call("DELETE", "/api/categories/10", null, null, 204, 2),
+
+                call("POST", "/api/members", JSON, "{\"email\":\"nouveau@example.com\",\"firstName\":\"Nina\","
+                        + "\"lastName\":\"Nouveau\",\"membershipDate\":\"2025-01-01\"}", 201, 1),
+                call("PUT", "/api/members/99", JSON, "{\"email\":\"membre99@example.com\",\"firstName\":\"Paul\","
+                        + "\"lastName\":\"Nom99\",\"membershipDate\":\"2022-04-10\"}", 200, 2),
+                call("POST", "/api/members/98/suspend", null, null, 200, 2),
+                call("POST", "/api/members/98/activate", null, null, 200, 2),
+                call("DELETE", "/api/members/100", null, null, 204, 3),
+
+                call("POST", "/api/books", JSON, "{\"isbn\":\"979-999999999\",\"title\":\"Nouveau livre\","
+                        + "\"publicationYear\":2024,\"totalCopies\":2,\"availableCopies\":2,\"author\":{\"id\":1}}", 201, 2),
+                call("PUT", "/api/books/499", JSON, "{\"isbn\":\"979-000000499\",\"title\":\"Titre modifié\","
+                        + "\"publicationYear\":2001,\"totalCopies\":3,\"availableCopies\":3}", 200, 4),
+                call("POST", "/api/books/498/category/2", null, null, 200, 6),
+                call("DELETE", "/api/books/498/category/2", null, null, 200, 6),
+                call("DELETE", "/api/books/500", null, null, 204, 4),
+                call("POST", "/api/books/import", "text/csv",
+                        "isbn,title,publicationYear,totalCopies,authorFirstName,authorLastName,categories\n"
+                                + "979-888000001,Import un,2020,2,Jules,Verne 7,Genre 01|Genre 02\n"
+                                + "979-888000002,Import deux,2021,1,Grace,Hopper,Genre 03\n"
+                                + "979-888000003,Import trois,2022,3,Grace,Hopper,Genre 99\n", 200, 6),
+
+                call("POST", "/api/loans?memberId=90&bookId=450&dueDate=" + DUE, null, null, 201, 4),
+                call("POST", "/api/loans?memberId=2&bookId=451&dueDate=" + DUE, null, null, 400, 2),
+                call("POST", "/api/loans/batch", JSON,
+                        "{\"memberId\":91,\"bookIds\":[451,452,453],\"dueDate\":\"" + DUE + "\"}", 201, 6),
+                call("POST", "/api/loans/2003/return", null, null, 200, 5),
+                call("POST", "/api/loans/overdue/sweep", null, null, 200, 1),
+                // Plus grand ID, puis verrou et recalcul par tranche de 1000 membres (IDs sous 1000 dans test-data.sql)
+                call("POST", "/api/members/loan-counters/reconcile", null, null, 200, 3),
+
+                // Flight Recorder : aucune requête SQL, démarrage et vidage du fichier plus lents
+                diagnostics("POST", "/api/diagnostics/recording?duration=1m", 200),
+                diagnostics("GET", "/api/diagnostics/recording", 200),
+                diagnostics("POST", "/api/diagnostics/recording/stop", 200),
+                diagnostics("GET", "/api/diagnostics/recording/file", 200),
+                diagnostics("DELETE", "/api/diagnostics/recording", 204));
+    }
+
+    @BeforeAll
+    void countStatementsAndWarmUp() throws Exception {
+        assertTrue(dataSource instanceof ProxyDataSource, "DataSource attendue derrière le proxy JDBC");
+        ((ProxyDataSource) dataSource).getProxyConfig().getQueryListener().addListener(new QueryExecutionListener() {
+            @Override
+            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+            }
+
+            @Override
+            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                if (queryInfoList.isEmpty() || !queryInfoList.get(0).getQuery().startsWith("select nextval(")) {
+                    statements.incrementAndGet();
+                }
+            }
+        });
+        // Compilation JIT et initialisations paresseuses hors mesure
+        for (int round = 0; round < 3; round++) {
+            for (Call call : reads().toList()) {
+                send(call);
+            }
+        }
+    }
+
+    @Order(1)
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("reads")
+    void readStaysWithinBudget(Call call) throws Exception {
+        assertWithinBudget(call);
+    }
+
+    @Order(2)
+    @Test
+    void loansOfMemberDoNotDependOnLoanCount() throws Exception {
+        Measure one = measure(get("/api/loans/member/1?limit=100", 200, 2));
+        Measure many = measure(get("/api/loans/member/2?limit=100", 200, 2));
+        assertEquals(2, many.statements(), "GET /api/loans/member/{id} : requêtes SQL");
+        assertEquals(one.statements(), many.statements(),
+                "1 emprunt contre 63 : le nombre de requêtes SQL ne doit pas dépendre du nombre d'emprunts");
+    }
+
+    @Order(2)
+    @Test
+    void serverTimingCountsQueriesOfParallelTasks() throws Exception {
+        // Le tableau de bord lit le profil et les emprunts en parallèle, sur l'exécuteur applicatif
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        HttpResponse<byte[]> response = send(get("/api/members/2/dashboard", 200, 2));
+        assertEquals(200, response.statusCode());
+        String serverTiming = response.headers().firstValue("Server-Timing").orElse("");
+        assertTrue(serverTiming.contains("desc=\"2 sql\""), "Server-Timing : " + serverTiming);
+    }
+
+    @Order(3)
+    @ParameterizedTest(name = "{0}")
+    @MethodSource("writes")
+    void writeStaysWithinBudget(Call call) throws Exception {
+        assertWithinBudget(call);
+    }
+
+    private void assertWithinBudget(Call call) throws Exception {
+        Measure measure = measure(call);
+        log.debug("{} : {} requête(s) SQL, {} ms", call, measure.statements(), measure.nanos() / 1_000_000);
+        assertEquals(call.status(), measure.status(), call + " : statut HTTP");
+        assertEquals(call.statements(), measure.statements(), call + " : requêtes SQL");
+        if (LATENCY_FACTOR != null) {
+            long ceilingNanos = (long) (call.maxLatency().toNanos() * Double.parseDouble(LATENCY_FACTOR));
+            assertTrue(measure.nanos() <= ceilingNanos,
+                    call + " : " + measure.nanos() / 1_000_000 + " ms pour un plafond de " + ceilingNanos / 1_000_000 + " ms");
+        }
+    }
+
+    /**
+     * Un appel avec les caches de second niveau et de requêtes vidés : le nombre de requêtes est le pire cas.
+     */
+    private Measure measure(Call call) throws Exception {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        int before = statements.get();
+        long start = System.nanoTime();
+        HttpResponse<byte[]> response = send(call);
+        long nanos = System.nanoTime() - start;
+        return new Measure(response.statusCode(), statements.get() - before, nanos);
+    }
+
+    private HttpResponse<byte[]> send(Call call) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + call.path()))
+                .timeout(Duration.ofSeconds(30));
+        if (call.admin()) {
+            request.header("Authorization", ADMIN);
+        }
+        if (call.contentType() != null) {
+            request.header("Content-Type", call.contentType());
+        }
+        request.method(call.method(), call.body() == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(call.body(), StandardCharsets.UTF_8));
+        return http.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    /**
+     * Lecture publique, sans authentification : le contrôle du mot de passe (BCrypt, une centaine de ms)
+     * masquerait la latence de l'endpoint.
+     */
+    private static Call get(String path, int status, int statements) {
+        return new Call("GET", path, null, null, false, status, statements, Duration.ofMillis(250));
+    }
+
+    private static Call adminGet(String path, int status, int statements) {
+        return new Call("GET", path, null, null, true, status, statements, Duration.ofMillis(500));
+    }
+
+    private static Call call(String method, String path, String contentType, String body, int status, int statements) {
+        return new Call(method, path, contentType, body, true, status, statements, Duration.ofMillis(1000));
+    }
+
+    private static Call diagnostics(String method, String path, int status) {
+        return new Call(method, path, null, null, true, status, 0, Duration.ofSeconds(5));
+    }
+
+    /**
+     * @param admin true pour s'authentifier en ADMIN (écritures, exports, diagnostics)
+     * @param statements le nombre exact d'exécutions JDBC (un lot compte pour une, nextval ne compte pas)
+     * @param maxLatency la durée maximum de l'appel, vue du client (vérifiée sur demande)
+     */
+    record Call(String method, String path, String contentType, String body, boolean admin, int status,
+                int statements, Duration maxLatency) {
+
+        @Override
+        public String toString() {
+            return method + " " + path;
+        }
+    }
+
+    private record Measure(int status, int statements, long nanos) {
+    }
+}
@@ -0,0 +1,72 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.PostgresIntegrationTest;
+import be.condorcet.library.dto.BookImportReport;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Import du catalogue : un lot refusé par la base est repris ligne par ligne ; auteurs reconnus comme par l'API.
+ * ISBN 979-777… et auteur « Hedy Lamarr » : réservés à ce test.
+ */
+class BookImportServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private BookImportService bookImportService;
+
+    @Autowired
+    private UniquenessFilters uniquenessFilters;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void failedChunkRejectsOnlyOffendingRows() {
+        // Titre valide pour l'import mais trop long pour la colonne : seul l'INSERT échoue, avec tout le lot
+        String csv = "isbn,title,publicationYear,totalCopies,authorFirstName,authorLastName,categories\n"
+                + "979-777000001,Premier,2020,1,Hedy,Lamarr,Genre 01\n"
+                + "979-777000002," + "T".repeat(300) + ",2020,1,Hedy,Lamarr,Genre 01\n"
+                + "979-777000003,Troisième,2020,1,Hedy,Lamarr,\n"
+                + "979-777000001,Doublon,2020,1,Hedy,Lamarr,\n";
+
+        BookImportReport report = bookImportService.importBooks(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BookImportService.Format.CSV);
+
+        assertEquals(4, report.rowsRead());
+        assertEquals(2, report.imported());
+        assertEquals(2, report.rejected());
+        assertEquals(3, report.errors().get(0).line());
+        assertTrue(report.errors().get(0).message().startsWith("Échec de l'écriture"));
+        assertEquals(5, report.errors().get(1).line());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM books WHERE isbn LIKE '979-777%'", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM authors WHERE first_name = 'Hedy' AND last_name = 'Lamarr'", Integer.class));
+    }
+
+    @Test
+    void authorsAreMatchedLikeAuthorService() {
+        // Même clé que la création d'un auteur par l'API : sensible à la casse
+        String csv = "isbn,title,publicationYear,totalCopies,authorFirstName,authorLastName,categories\n"
+                + "979-777000011,Onze,2020,1,Hedy,LAMARR,\n"
+                + "979-777000012,Douze,2020,1,Hedy,LAMARR,\n"
+                + "979-777000013,Treize,2020,1,hedy,lamarr,\n";
+
+        BookImportReport report = bookImportService.importBooks(
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BookImportService.Format.CSV);
+
+        assertEquals(3, report.imported());
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT count(*) FROM authors WHERE first_name IN ('Hedy', 'hedy') AND last_name IN ('LAMARR', 'lamarr')",
+                Integer.class));
+        assertTrue(uniquenessFilters.authorExists("Hedy", "LAMARR"));
+        assertTrue(uniquenessFilters.authorExists("hedy", "lamarr"));
+    }
+}
@@ -0,0 +1,134 @@
+package be.condorcet.library.service;
+
+import be.condorcet.library.PostgresIntegrationTest;
+import be.condorcet.library.exception.BusinessException;
+import be.condorcet.library.model.Book;
+import be.condorcet.library.model.Member;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Modifications d'entités concurrentes d'un emprunt : l'emprunt est validé entre la lecture de l'entité
+ * et l'écriture de la modification, qui ne doit pas écraser les colonnes tenues par les UPDATE conditionnels.
+ * Membres 81 à 89 et livres 460 à 480 : lignes réservées à ce test dans test-data.sql.
+ */
+class ConcurrentUpdateTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private MemberService memberService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private LoanService loanService;
+
+    @Autowired
+    private LoanCounterReconciler loanCounterReconciler;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void memberEditKeepsLoanCountersOfConcurrentCheckout() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberService.getMemberById(85L);   // compteurs lus avant l'emprunt
+            checkoutInAnotherTransaction(85L, 470L);
+
+            Member details = new Member();
+            details.setFirstName("Renommé");
+            memberService.updateMember(85L, details);
+            memberService.suspendMember(85L);
+        });
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT active_loan_count FROM members WHERE id = 85", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT total_loan_count FROM members WHERE id = 85", Integer.class));
+        assertEquals("Renommé", jdbcTemplate.queryForObject("SELECT first_name FROM members WHERE id = 85", String.class));
+    }
+
+    @Test
+    void bookEditKeepsAvailableCopiesOfConcurrentCheckout() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bookService.getBookById(475L);   // exemplaires lus avant l'emprunt
+            checkoutInAnotherTransaction(86L, 475L);
+
+            Book details = new Book();
+            details.setTitle("Titre corrigé");
+            bookService.updateBook(475L, details);
+            bookService.addCategoryToBook(475L, 1L);
+        });
+
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = 475", Integer.class));
+        assertEquals("Titre corrigé", jdbcTemplate.queryForObject("SELECT title FROM books WHERE id = 475", String.class));
+    }
+
+    @Test
+    void concurrentCheckoutsOfSameBookBySameMemberCreateOneLoan() {
+        CompletableFuture<?>[] second = new CompletableFuture<?>[1];
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            loanService.createLoan(87L, 476L, LocalDate.now().plusDays(14));
+            // Le second emprunt attend le verrou du membre, avec un instantané qui ne voit pas le premier
+            second[0] = CompletableFuture.runAsync(() -> loanService.createLoan(87L, 476L, LocalDate.now().plusDays(14)));
+            awaitLockWait();
+        });
+
+        CompletionException failure = assertThrows(CompletionException.class, second[0]::join);
+        BusinessException rejection = assertInstanceOf(BusinessException.class, failure.getCause());
+        assertEquals(BusinessException.Rule.DUPLICATE, rejection.getRule());
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM loans WHERE member_id = 87 AND book_id = 476 "
+                + "AND status IN ('ACTIVE', 'OVERDUE')", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT active_loan_count FROM members WHERE id = 87", Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT available_copies FROM books WHERE id = 476", Integer.class));
+    }
+
+    @Test
+    void reconcileDuringCheckoutCountsCommittedLoan() {
+        // Compteurs en écart : la réconciliation doit corriger ce membre, et donc attendre son verrou
+        jdbcTemplate.update("UPDATE members SET active_loan_count = 2, total_loan_count = 2 WHERE id = 88");
+        CompletableFuture<?>[] reconcile = new CompletableFuture<?>[1];
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            loanService.createLoan(88L, 477L, LocalDate.now().plusDays(14));
+            // La réconciliation attend le verrou du membre pendant que l'emprunt n'est pas validé
+            reconcile[0] = CompletableFuture.runAsync(loanCounterReconciler::reconcile);
+            awaitLockWait();
+        });
+        reconcile[0].join();
+
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT active_loan_count FROM members WHERE id = 88", Integer.class));
+        assertEquals(1, jdbcTemplate.queryForObject("SELECT total_loan_count FROM members WHERE id = 88", Integer.class));
+    }
+
+    /**
+     * Attend qu'une autre connexion soit bloquée sur un verrou de ligne (au plus 10 secondes).
+     */
+    private void awaitLockWait() {
+        long deadline = System.nanoTime() + 10_000_000_000L;
+        while (jdbcTemplate.queryForObject("SELECT count(*) FROM pg_stat_activity WHERE wait_event_type = 'Lock'",
+                Integer.class) == 0) {
+            assertTrue(System.nanoTime() < deadline, "Aucune transaction n'attend le verrou du membre");
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Emprunt validé dans sa propre transaction, sur un autre thread, pendant que l'appelant garde la sienne ouverte.
+     */
+    private void checkoutInAnotherTransaction(Long memberId, Long bookId) {
+        CompletableFuture.runAsync(() -> loanService.createLoan(memberId, bookId, LocalDate.now().plusDays(14))).join();
+    }
+}
@@ -0,0 +1,85 @@
+-- Jeu de données des tests d'intégration (PostgresIntegrationTest), rechargé à chaque démarrage du contexte.
+-- Assez de lignes pour qu'un N+1 se voie (listes de dizaines d'éléments, auteurs et catégories variés) :
+--   auteurs 1 à 50 (le 50 sans livre), catégories « Genre 01 » à « Genre 10 » (la 10 sans livre) ;
+--   livres 1 à 500, 3 exemplaires, les livres 391 à 500 jamais empruntés ;
+--   membres 1 à 100 : le 1 a un seul emprunt rendu, le 2 en a 60 et 3 en cours,
+--   les membres 3 à 80 ont 5 emprunts rendus et un en cours (ID 2000 + membre, échu pour la plupart),
+--   les membres 81 à 100 n'ont aucun emprunt.
+-- Lignes modifiées par les tests : membres 81 à 89 et livres 460 à 480 (ConcurrentUpdateTest),
+-- membres 90 à 100, livres 450 à 453 et 498 à 500 (écritures d'EndpointBudgetTest).
+
+TRUNCATE book_categories, loans, books, categories, authors, members;
+
+INSERT INTO authors (id, first_name, last_name, nationality, birth_year)
+SELECT g,
+       (ARRAY['Jules','Victor','Émile','Marguerite','George'])[1 + g % 5],
+       (ARRAY['Verne','Hugo','Zola','Duras','Sand','Camus','Balzac'])[1 + g % 7] || ' ' || g,
+       (ARRAY['France','Belgique','Suisse','Canada'])[1 + g % 4],
+       1800 + g
+FROM generate_series(1, 50) g;
+
+INSERT INTO categories (id, name, description)
+SELECT g, 'Genre ' || lpad(g::text, 2, '0'), 'Catégorie de test n° ' || g
+FROM generate_series(1, 10) g;
+
+INSERT INTO members (id, email, first_name, last_name, membership_date, active, active_loan_count, total_loan_count)
+SELECT g, 'membre' || g || '@example.com', 'Prénom' || g, 'Nom' || g, DATE '2022-01-01' + g, true, 0, 0
+FROM generate_series(1, 100) g;
+
+INSERT INTO books (id, isbn, title, publication_year, available_copies, total_copies, author_id)
+SELECT g,
+       '979-' || lpad(g::text, 9, '0'),
+       (ARRAY['Voyage','Nuit','Étoile','Mer','Forêt','Château','Hiver','Rêve','Mémoire','Jardin'])[1 + g % 10]
+           || ' ' || g,
+       1900 + g % 120, 3, 3, 1 + (g - 1) % 49
+FROM generate_series(1, 500) g;
+
+INSERT INTO book_categories (book_id, category_id)
+SELECT g, 1 + g % 9 FROM generate_series(1, 500) g
+UNION
+SELECT g, 1 + (g * 7 + 3) % 9 FROM generate_series(1, 500) g WHERE g % 3 = 0;
+
+-- Membre 1 : un emprunt rendu ; membre 2 : 60 emprunts rendus et 3 en cours
+INSERT INTO loans (id, loan_date, due_date, return_date, status, member_id, book_id)
+VALUES (1, DATE '2024-01-10', DATE '2024-01-31', DATE '2024-01-20', 'RETURNED', 1, 1);
+
+INSERT INTO loans (id, loan_date, due_date, return_date, status, member_id, book_id)
+SELECT 1 + g, DATE '2024-01-01' + g, DATE '2024-01-22' + g, DATE '2024-01-10' + g, 'RETURNED', 2, 1 + g
+FROM generate_series(1, 60) g;
+
+INSERT INTO loans (id, loan_date, due_date, return_date, status, member_id, book_id)
+SELECT 61 + g, CURRENT_DATE - 5, CURRENT_DATE + 16, NULL, 'ACTIVE', 2, 300 + g
+FROM generate_series(1, 3) g;
+
+-- Membres 3 à 80 : 5 emprunts rendus et un en cours, échu (OVERDUE) au-delà de 21 jours
+INSERT INTO loans (id, loan_date, due_date, return_date, status, member_id, book_id)
+SELECT 1000 + (m - 3) * 5 + k, DATE '2024-06-01' + m + k, DATE '2024-06-22' + m + k, DATE '2024-06-15' + m + k,
+       'RETURNED', m, 1 + (m * 5 + k) % 300
+FROM generate_series(3, 80) m, generate_series(0, 4) k;
+
+INSERT INTO loans (id, loan_date, due_date, return_date, status, member_id, book_id)
+SELECT 2000 + m, CURRENT_DATE - m % 40, CURRENT_DATE - m % 40 + 21, NULL,
+       CASE WHEN m % 40 > 21 THEN 'OVERDUE' ELSE 'ACTIVE' END, m, 310 + m
+FROM generate_series(3, 80) m;
+
+UPDATE books b SET available_copies = b.total_copies - l.outstanding
+FROM (SELECT book_id, count(*) AS outstanding FROM loans WHERE status <> 'RETURNED' GROUP BY book_id) l
+WHERE l.book_id = b.id;
+
+UPDATE members m SET active_loan_count = l.outstanding, total_loan_count = l.total
+FROM (SELECT member_id, count(*) FILTER (WHERE status <> 'RETURNED') AS outstanding, count(*) AS total
+      FROM loans GROUP BY member_id) l
+WHERE l.member_id = m.id;
+
+-- Livres 313 à 330 en un seul exemplaire, emprunté : liste des livres indisponibles non vide
+UPDATE books SET total_copies = 1, available_copies = 0 WHERE id BETWEEN 313 AND 330;
+
+ANALYZE;
+
+-- Séquences juste au-delà des IDs du jeu : la réconciliation des compteurs (par tranches de 1000 IDs)
+-- garde un nombre de requêtes fixe après les créations des tests
+ALTER SEQUENCE authors_seq RESTART WITH 1000;
+ALTER SEQUENCE categories_seq RESTART WITH 1000;
+ALTER SEQUENCE members_seq RESTART WITH 1000;
+ALTER SEQUENCE books_seq RESTART WITH 1000;
+ALTER SEQUENCE loans_seq RESTART WITH 3000;